@@ -30,6 +30,7 @@ import ontologizer.calculation.EnrichedGOTermsResult;
 import ontologizer.calculation.ICalculation;
 import ontologizer.calculation.ProbabilisticCalculation;
 import ontologizer.calculation.b2g.B2GParam;
+import ontologizer.calculation.b2g.Bayes2GOBatch;
 import ontologizer.calculation.b2g.Bayes2GOCalculation;
 import ontologizer.enumeration.TermEnumerator;
 import ontologizer.ontology.Ontology;
@@ -430,6 +431,9 @@ public class Benchmark
 
 		final TermEnumerator completePopEnumerator = completePop.enumerateTerms(graph, assoc);
 
+		/* All MGSA runs share the population specific data */
+		final Bayes2GOBatch mgsaBatch = new Bayes2GOBatch(graph, assoc, completePop);
+
 		for (TermID tid : completePopEnumerator)
 		{
 			if (tid.id == 8150)
@@ -585,7 +589,7 @@ public class Benchmark
 				for (final Combination combi : combinationList)
 				{
 					es.execute(createSingleRunRunnable(rnd, assoc, graph, completePop,
-							completePopEnumerator, allGenesArray, out, outTime,
+							completePopEnumerator, mgsaBatch, allGenesArray, out, outTime,
 							numberOfRuns, sampler, ALPHA, BETA, combi, ++current,
 							combi.termCombi));
 
@@ -597,7 +601,7 @@ public class Benchmark
 		for (final Combination combi : combinationList)
 		{
 			es.execute(createSingleRunRunnable(rnd, assoc, graph, completePop,
-					completePopEnumerator, allGenesArray, out, outTime,
+					completePopEnumerator, mgsaBatch, allGenesArray, out, outTime,
 					numberOfRuns, sampler, -1, -1, combi, ++current,
 					combi.termCombi));
 
@@ -624,6 +628,7 @@ public class Benchmark
 	 * @param graph
 	 * @param completePop
 	 * @param completePopEnumerator
+	 * @param mgsaBatch used for all MGSA calculations
 	 * @param allGenesArray
 	 * @param out
 	 * @param outTime
@@ -643,6 +648,7 @@ public class Benchmark
 			final AssociationContainer assoc, final Ontology graph,
 			final PopulationSet completePop,
 			final TermEnumerator completePopEnumerator,
+			final Bayes2GOBatch mgsaBatch,
 			final ByteString[] allGenesArray, final PrintWriter out,
 			final PrintWriter outTime, final int numberOfRuns,
 			final StudySetSampler sampler, final double alpha,
@@ -797,7 +803,8 @@ public class Benchmark
 							if (m.shallDealWithValues && newValuedStudySet != null)
 								studySetForCalculation = newValuedStudySet;
 
-							if (m.testCorrection != null) result = calc.calculateStudySet(graph, assoc, completePop, studySetForCalculation, m.testCorrection);
+							if (calc instanceof Bayes2GOCalculation) result = mgsaBatch.calculateStudySet((Bayes2GOCalculation)calc, studySetForCalculation);
+							else if (m.testCorrection != null) result = calc.calculateStudySet(graph, assoc, completePop, studySetForCalculation, m.testCorrection);
 							else result = calc.calculateStudySet(graph, assoc, completePop, studySetForCalculation, testCorrection);
 
 							for (AbstractGOTermProperties p : result)
@@ -13,7 +13,7 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
 import ontologizer.calculation.EnrichedGOTermsResult;
-import ontologizer.calculation.EnrichedGOTermsTableWriter;
+import ontologizer.calculation.EnrichedGOTermsTableStreamWriter;
 import ontologizer.ontology.OBOParserException;
 import ontologizer.ontology.TermID;
 
@@ -190,6 +190,22 @@ public class OntologizerCMD
 				}
 			}
 
+			/* Prepare the table writer, which is shared by all study sets */
+			EnrichedGOTermsTableStreamWriter.Format tableFormat = EnrichedGOTermsTableStreamWriter.Format.TSV;
+			if (cmd.hasOption(OntologizerOptions.TABLE_FORMAT))
+			{
+				String tableFormatStr = cmd.getOptionValue(OntologizerOptions.TABLE_FORMAT);
+				if (tableFormatStr.equalsIgnoreCase("binary"))
+				{
+					tableFormat = EnrichedGOTermsTableStreamWriter.Format.BINARY;
+				} else if (!tableFormatStr.equalsIgnoreCase("tsv"))
+				{
+					System.err.println("The --" + OntologizerOptions.TABLE_FORMAT + " argument needs to be either \"tsv\" or \"binary\".");
+					System.exit(-1);
+				}
+			}
+			EnrichedGOTermsTableStreamWriter tableWriter = new EnrichedGOTermsTableStreamWriter(tableFormat, cmd.hasOption(OntologizerOptions.GZIP));
+
 			/* Testing availability of calculation method */
 			if (arguments.calculationName != null)
 			{
@@ -262,6 +278,20 @@ public class OntologizerCMD
 				}
 			}
 
+			if (cmd.hasOption(OntologizerOptions.ADAPTIVE_THRESHOLD))
+			{
+				try
+				{
+					double t = Double.parseDouble(cmd.getOptionValue(OntologizerOptions.ADAPTIVE_THRESHOLD));
+					if (!(t > 0 && t < 1)) throw new Exception();
+					arguments.adaptiveThreshold = t;
+				} catch (Exception e)
+				{
+					System.err.println("The --" + OntologizerOptions.ADAPTIVE_THRESHOLD + " argument needs to be a number between 0 and 1.");
+					System.exit(-1);
+				}
+			}
+
 			/* Evaluate the dot option */
 			boolean createDOTFile = cmd.hasOption('d');
 			double alpha = 0.05;
@@ -324,9 +354,9 @@ public class OntologizerCMD
 						+ "-" + controller.getTestCorrectionName();
 
 				{
-					String tableName = "table-" + outBasename + ".txt";
+					String tableName = "table-" + outBasename + tableWriter.getSuffix();
 					File outFile = new File(outputDirectoryName,tableName);
-					EnrichedGOTermsTableWriter.writeTable(outFile, studySetResult);
+					tableWriter.writeTable(outFile, studySetResult);
 				}
 
 				if (createDOTFile)
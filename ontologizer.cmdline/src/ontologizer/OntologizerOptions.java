@@ -16,6 +16,9 @@ public class OntologizerOptions
 	public static final String MCMC_STEPS = "mcmcSteps";
 	public static final String MAX_ALPHA = "maxAlpha";
 	public static final String MAX_BETA = "maxBeta";
+	public static final String TABLE_FORMAT = "tableFormat";
+	public static final String GZIP = "gzip";
+	public static final String ADAPTIVE_THRESHOLD = "adaptiveThreshold";
 
 	public Options options()
 	{
@@ -105,6 +108,8 @@ public class OntologizerOptions
 		options.addOption(new Option("n","annotation",false,"Create an additional file per study set which contains the annotations."));
 		options.addOption(new Option("f","filter",true,"Filter the gene names by appling rules in a given file (currently only mapping supported)."));
 		options.addOption(new Option("o","outdir",true,"Specifies the directory in which the results will be placed."));
+		options.addOption(Option.builder().longOpt(TABLE_FORMAT).argName("format").hasArg(true).desc("Format of the result tables. Possible values are \"tsv\" (default) and \"binary\".").build());
+		options.addOption(Option.builder().longOpt(GZIP).desc("Compress the result tables using gzip.").build());
 
 		options.addOption(Option.builder().longOpt(MCMC_STEPS).argName("steps").hasArg(true).desc("Number of sample steps for MCMC based approaches like MSGA. Defaults to " + GlobalPreferences.getMcmcSteps() + ".").build());
 		options.addOption(Option.builder().longOpt(MAX_ALPHA).argName("alpha").hasArg(true).desc("Upper bound for alpha that is inferred in MGSA. Defaults to " + GlobalPreferences.getAlpha() + ".").build());
@@ -113,6 +118,9 @@ public class OntologizerOptions
 			options.addOption(new Option("r","resamplingsteps", true, "Specifies the number of steps used in resampling based MTCs"));
 			options.addOption(new Option("t","sizetolerance", true, "Specifies the percentage at which the actual study set size and " +
 					"the size of the resampled study sets are allowed to differ"));
+			options.addOption(Option.builder().longOpt(ADAPTIVE_THRESHOLD).argName("thrsh").hasArg(true).desc("Stop resampling based MTCs early, " +
+					"as soon as it is settled for all terms whether the adjusted p-value is below or above the given threshold. " +
+					"The number of resampling steps is the upper bound.").build());
 		}
 		options.addOption(new Option("v","version",false,"Shows version information and exits"));
 
@@ -1,15 +1,32 @@
 package org.ontologizer.dataprep;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
 import com.beust.jcommander.JCommander;
 
+import ontologizer.association.AnnotationBundle;
+import ontologizer.association.AssociationContainer;
+import ontologizer.association.AssociationParser;
+import ontologizer.ontology.OBOParser;
+import ontologizer.ontology.OBOParserException;
+import ontologizer.ontology.OBOParserFileInput;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.TermContainer;
+
 /**
- * A simple tool preparing data for (Web) ontologizer.
+ * A simple tool preparing data for (Web) ontologizer. It parses the given
+ * obo and association files and writes a compressed annotation bundle
+ * that can be loaded without parsing any text.
  *
  * @author Sebastian Bauer
  */
 public class DataPrep
 {
-	public static void main(String[] args)
+	public static void main(String[] args) throws IOException, OBOParserException
 	{
 		DataPrepCLIConfig cliConfig = new DataPrepCLIConfig();
 		JCommander jc = new JCommander(cliConfig);
@@ -23,5 +40,28 @@ public class DataPrep
 			System.exit(0);
 		}
 
+		System.err.println("Parsing obo file \"" + cliConfig.obo + "\"");
+		OBOParser oboParser = new OBOParser(new OBOParserFileInput(cliConfig.obo));
+		oboParser.doParse();
+		TermContainer terms = new TermContainer(oboParser.getTermMap(), oboParser.getFormatVersion(), oboParser.getDate());
+		Ontology ontology = Ontology.create(terms);
+
+		System.err.println("Parsing association file \"" + cliConfig.assoc + "\"");
+		AssociationParser ap = new AssociationParser(new OBOParserFileInput(cliConfig.assoc), terms);
+		AssociationContainer assoc = new AssociationContainer(ap.getAssociations(), ap.getAnnotationMapping());
+
+		String output = cliConfig.output;
+		if (output == null)
+			output = AnnotationBundle.getBundleName(new File(cliConfig.assoc).getName());
+
+		System.err.println("Writing annotation bundle \"" + output + "\"");
+		GZIPOutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+		try
+		{
+			AnnotationBundle.write(out, ontology, assoc);
+		} finally
+		{
+			out.close();
+		}
 	}
 }
@@ -28,6 +28,10 @@ public class DataPrepCLIConfig
 			"\"http://cvsweb.geneontology.org/cgi-bin/cvsweb.cgi/go/gene-associations/gene_association.fb.gz?rev=HEAD\"", arity=1, required=true)
 	public String assoc;
 
+	@Parameter(names={"--output"}, description="Name of the file to which the annotation bundle is written. Defaults to the name of the " +
+			"association file with the extension \".bundle\".", arity=1)
+	public String output;
+
 	@Parameter(names={"--proxy"}, description="Name of the proxy that shall be used for http connections.", arity=1)
 	public String proxy;
 
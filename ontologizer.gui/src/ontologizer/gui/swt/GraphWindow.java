@@ -9,6 +9,7 @@ import ontologizer.GlobalPreferences;
 import ontologizer.dotwriter.AbstractDotAttributesProvider;
 import ontologizer.gui.swt.result.GraphGenerationThread;
 import ontologizer.gui.swt.support.GraphCanvas;
+import ontologizer.gui.swt.support.GraphGenerationService;
 import ontologizer.gui.swt.support.IGraphGenerationFinished;
 import ontologizer.ontology.Namespace;
 import ontologizer.ontology.Ontology;
@@ -182,7 +183,7 @@ class GraphWindow extends ApplicationWindow
 		ggt.go = graph;
 		ggt.emanatingTerm = null;
 		ggt.leafTerms.addAll(terms);
-		ggt.start();
+		GraphGenerationService.schedule(ggt, this);
 	}
 }
 
@@ -15,9 +15,13 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Properties;
@@ -110,6 +114,9 @@ public class MainWindow extends ApplicationWindow
 
 	public static final String PROJECT_SETTINGS_NAME = ".project";
 
+	/** The number of work sets of recently used projects that are loaded in advance */
+	private static final int NUMBER_OF_PRELOADED_WORKSETS = 2;
+
 	/* Manually added attributes */
 	private Workspace workspace;
 
@@ -190,6 +197,48 @@ public class MainWindow extends ApplicationWindow
 		{
 			addProject(project);
 		}
+
+		preloadRecentWorkSets();
+	}
+
+	/**
+	 * Preload the work sets of the most recently used projects in the
+	 * background, such that switching between them doesn't stall.
+	 */
+	private void preloadRecentWorkSets()
+	{
+		List<Project> projects = new ArrayList<Project>();
+		for (Project project : workspace.projects())
+			projects.add(project);
+
+		Collections.sort(projects, new Comparator<Project>()
+		{
+			public int compare(Project o1, Project o2)
+			{
+				long l1 = o1.getLastUsed();
+				long l2 = o2.getLastUsed();
+				if (l1 > l2) return -1;
+				if (l1 < l2) return 1;
+				return 0;
+			}
+		});
+
+		HashSet<String> preloaded = new HashSet<String>();
+		for (Project project : projects)
+		{
+			if (preloaded.size() >= NUMBER_OF_PRELOADED_WORKSETS)
+				break;
+
+			ProjectSettings settings = project.settings;
+			if (settings.ontologyFileName == null || settings.ontologyFileName.length() == 0) continue;
+			if (settings.annotationsFileName == null || settings.annotationsFileName.length() == 0) continue;
+			if (!preloaded.add(settings.ontologyFileName + "\t" + settings.annotationsFileName)) continue;
+
+			WorkSet ws = new WorkSet(project.projectDirectory.getName());
+			ws.setOboPath(settings.ontologyFileName);
+			ws.setAssociationPath(settings.annotationsFileName);
+			WorkSetLoadThread.preloadDatafiles(ws);
+		}
 	}
 
 	/**
@@ -296,7 +296,7 @@ public class Ontologizer
 						result,defintionFile,associationsFile,mappingFile,
 						populationSet,studySetList,methodName,mtcName,
 						subsetName,subontologyName,checkedEvidences,
-						GlobalPreferences.getNumberOfPermutations(),
+						GlobalPreferences.getNumberOfPermutations(),GlobalPreferences.getAdaptiveThreshold(),
 						GlobalPreferences.getAlpha(),GlobalPreferences.getUpperAlpha(),
 						GlobalPreferences.getBeta(),GlobalPreferences.getUpperBeta(),
 						GlobalPreferences.getExpectedNumber(), GlobalPreferences.getMcmcSteps());
@@ -424,6 +424,7 @@ public class Ontologizer
 			p.put("method", main.getSelectedMethodName());
 			p.put("dotCMD",GlobalPreferences.getDOTPath());
 			p.put("numberOfPermutations",Integer.toString(GlobalPreferences.getNumberOfPermutations()));
+			p.put("adaptiveThreshold", Double.toString(GlobalPreferences.getAdaptiveThreshold()));
 			p.put("wrapColumn", Integer.toString(GlobalPreferences.getWrapColumn()));
 			p.put("alpha", Double.toString(GlobalPreferences.getAlpha()));
 			p.put("upperAlpha", Double.toString(GlobalPreferences.getUpperAlpha()));
@@ -502,6 +503,7 @@ public class Ontologizer
 			{
 				GlobalPreferences.setDOTPath(prefs.getDOTPath());
 				GlobalPreferences.setNumberOfPermutations(prefs.getNumberOfPermutations());
+				GlobalPreferences.setAdaptiveThreshold(prefs.getAdaptiveThreshold());
 				GlobalPreferences.setProxyHost(prefs.getProxyHost());
 				GlobalPreferences.setProxyPort(prefs.getProxyPort());
 				GlobalPreferences.setWrapColumn(prefs.getWrapColumn());
@@ -527,6 +529,7 @@ public class Ontologizer
 
 		GlobalPreferences.setDOTPath(p.get("dotCMD","dot"));
 		GlobalPreferences.setNumberOfPermutations(p.getInt("numberOfPermutations", 500));
+		GlobalPreferences.setAdaptiveThreshold(p.getDouble("adaptiveThreshold", Double.NaN));
 		GlobalPreferences.setProxyPort(p.get("proxyPort", "8888"));
 		GlobalPreferences.setProxyHost(p.get("proxyHost", ""));
 		GlobalPreferences.setWrapColumn(p.getInt("wrapColumn", 30));
@@ -29,12 +29,16 @@ import org.eclipse.swt.widgets.Text;
 public class PreferencesWindow extends ApplicationWindow
 {
 	private static String resamplingToolTipText = "Specifies the number of resampling steps which are performed for a permutation based multiple test procedure.";
+	private static String adaptiveToolTipText = "If enabled, resampling is stopped as soon as it is settled for all terms whether the adjusted p-value is below or above the given threshold.\n" +
+		"The number of resampling steps is the upper bound.";
 
 	private Button okButton;
 	private Text proxyText;
 	private Spinner portSpinner;
 	private FileGridCompositeWidgets dotFileComposite;
 	private Spinner permutationSpinner;
+	private Spinner adaptiveSpinner;
+	private Button adaptiveButton;
 	private Button wrapColumnCheckbox;
 	private Spinner wrapColumnSpinner;
 
@@ -120,6 +124,30 @@ public class PreferencesWindow extends ApplicationWindow
 		permutationSpinner.setMaximum(5000);
 		permutationSpinner.setToolTipText(resamplingToolTipText);
 
+		Label adaptiveLabel = new Label(composite,0);
+		adaptiveLabel.setText("Adaptive Threshold (in percent)");
+		adaptiveLabel.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_END));
+		adaptiveLabel.setToolTipText(adaptiveToolTipText);
+		adaptiveSpinner = new Spinner(composite,SWT.BORDER);
+		adaptiveSpinner.setLayoutData(new GridData(SWT.FILL,0,true,false,1,1));
+		adaptiveSpinner.setMinimum(1);
+		adaptiveSpinner.setMaximum(99*(int)Math.pow(10, ALPHA_BETA_DIGITS));
+		adaptiveSpinner.setSelection(5*(int)Math.pow(10, ALPHA_BETA_DIGITS));
+		adaptiveSpinner.setDigits(ALPHA_BETA_DIGITS);
+		adaptiveSpinner.setEnabled(false);
+		adaptiveSpinner.setToolTipText(adaptiveToolTipText);
+		adaptiveButton = new Button(composite,SWT.CHECK);
+		adaptiveButton.setText("Enabled");
+		adaptiveButton.setToolTipText(adaptiveToolTipText);
+		adaptiveButton.addSelectionListener(new SelectionAdapter()
+		{
+			@Override
+			public void widgetSelected(SelectionEvent e)
+			{
+				adaptiveSpinner.setEnabled(adaptiveButton.getSelection());
+			}
+		});
+
 		/* Proxy Composite */
 		Label proxyLabel = new Label(composite,0);
 		proxyLabel.setText("Proxy");
@@ -275,6 +303,12 @@ public class PreferencesWindow extends ApplicationWindow
 			/* Initialize the widgets' contents */
 			dotFileComposite.setPath(GlobalPreferences.getDOTPath());
 			permutationSpinner.setSelection(GlobalPreferences.getNumberOfPermutations());
+			if (!Double.isNaN(GlobalPreferences.getAdaptiveThreshold()))
+			{
+				adaptiveSpinner.setSelection((int)Math.round(GlobalPreferences.getAdaptiveThreshold() * Math.pow(10, ALPHA_BETA_DIGITS) * 100));
+				adaptiveSpinner.setEnabled(true);
+				adaptiveButton.setSelection(true);
+			}
 			portSpinner.setSelection(GlobalPreferences.getProxyPort());
 			upperAlphaSpinner.setSelection((int)(GlobalPreferences.getUpperAlpha() * Math.pow(10, ALPHA_BETA_DIGITS) * 100));
 			upperBetaSpinner.setSelection((int)(GlobalPreferences.getUpperBeta() * Math.pow(10, ALPHA_BETA_DIGITS) * 100 ));
@@ -355,6 +389,18 @@ public class PreferencesWindow extends ApplicationWindow
 		return permutationSpinner.getSelection();
 	}
 
+	/**
+	 * Returns the threshold of the adaptive resampling.
+	 *
+	 * @return the threshold or NaN if adaptive resampling is disabled.
+	 */
+	public double getAdaptiveThreshold()
+	{
+		if (!adaptiveButton.getSelection()) return Double.NaN;
+
+		return adaptiveSpinner.getSelection() / Math.pow(10, ALPHA_BETA_DIGITS) / 100.0;
+	}
+
 	/**
 	 * @return the proxy port.
 	 */
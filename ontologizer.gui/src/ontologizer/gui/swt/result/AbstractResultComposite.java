@@ -13,6 +13,7 @@ import ontologizer.calculation.AbstractGOTermsResult;
 import ontologizer.dotwriter.AbstractDotAttributesProvider;
 import ontologizer.gui.swt.ISimpleAction;
 import ontologizer.gui.swt.support.GraphCanvas;
+import ontologizer.gui.swt.support.GraphGenerationService;
 import ontologizer.gui.swt.support.IGraphGenerationFinished;
 import ontologizer.ontology.Ontology;
 import ontologizer.ontology.Term;
@@ -296,7 +297,7 @@ public abstract class AbstractResultComposite extends Composite
 				}
 			}
 		},dotNodeAttributesProvider );
-		ggt.start();
+		GraphGenerationService.schedule(ggt, this);
 	}
 
 	/**
@@ -37,6 +37,8 @@ import org.eclipse.swt.dnd.TextTransfer;
 import org.eclipse.swt.dnd.Transfer;
 import org.eclipse.swt.events.DisposeEvent;
 import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.events.ModifyEvent;
+import org.eclipse.swt.events.ModifyListener;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Color;
@@ -46,6 +48,7 @@ import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Event;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Link;
@@ -57,6 +60,7 @@ import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.TableItem;
+import org.eclipse.swt.widgets.Text;
 import org.swtchart.Chart;
 import org.swtchart.ILineSeries;
 import org.swtchart.ISeries.SeriesType;
@@ -75,6 +79,7 @@ import ontologizer.enumeration.TermEnumerator;
 import ontologizer.enumeration.TermEnumerator.TermAnnotatedGenes;
 import ontologizer.gui.swt.Ontologizer;
 import ontologizer.gui.swt.support.GraphCanvas;
+import ontologizer.gui.swt.support.GraphGenerationService;
 import ontologizer.gui.swt.support.IGraphGenerationFinished;
 import ontologizer.gui.swt.support.SWTUtil;
 import ontologizer.ontology.Namespace;
@@ -96,17 +101,17 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 	/** Defines the significance resolution */
 	private static final int SIGNIFICANCE_RESOLUTION = 10000;
 
-	private static final int ACTIVITY = 0;
-	private static final int GOID = 1;
-	private static final int NAME = 2;
-	private static final int NAMESPACE = 3;
-	private static final int PVAL = 4;
-	private static final int ADJPVAL = 5;
-	private static final int MARG = 6;
-	private static final int RANK = 7;
-	private static final int POP = 8;
-	private static final int STUDY = 9;
-	private static final int LAST = 10;
+	static final int ACTIVITY = 0;
+	static final int GOID = 1;
+	static final int NAME = 2;
+	static final int NAMESPACE = 3;
+	static final int PVAL = 4;
+	static final int ADJPVAL = 5;
+	static final int MARG = 6;
+	static final int RANK = 7;
+	static final int POP = 8;
+	static final int STUDY = 9;
+	static final int LAST = 10;
 
 	/** Indicates whether pvalues should be handled as marginals
 	 * (TODO: needs to be done in a more abstract way) */
@@ -147,11 +152,28 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 	/** Maps the terms to a P-value rank */
 	private HashMap<TermID,Integer> termID2PValueRank;
 
-	/** Used to find the position of a table line given the term id */
-	private HashMap<Integer,Integer> termID2ListLine;
+	/** The model providing the values of the table */
+	private EnrichedGOTermsTableModel model;
 
-	/** Used to find the proper term position given the table position */
-	private HashMap<Integer,Integer> line2TermPos;
+	/** The current permutation of term positions according to the sorting settings */
+	private int [] order;
+
+	/** The term positions of the displayed lines */
+	private int [] lines = new int[0];
+
+	/** Used to find the table line given the term position (-1 if not displayed) */
+	private int [] pos2Line = new int[0];
+
+	/** Which term positions are displayable according to the emanating term (null if all) */
+	private boolean [] displayable;
+
+	/** The current text of the filter */
+	private String filterText = "";
+
+	/** Incremented for each sort request, used to drop outdated results */
+	private int sortGeneration;
+
+	private Text filterTextField;
 
 	/** Used to get the color of a term. The color is determined by the term's significance */
 	private HashMap<TermID,Color> termID2Color;
@@ -269,20 +291,13 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		}
 		initializeCheckedTerms();
 
-		/* We sort the array now by adjusted p-values (if no decision could be made,
-		 * by normal p-values) in order to get the terms' rank */
-		Arrays.sort(props, new Comparator<AbstractGOTermProperties>(){
-			public int compare(AbstractGOTermProperties o1, AbstractGOTermProperties o2)
-			{
-				if (o1.p_adjusted < o2.p_adjusted) return -1;
-				if (o1.p_adjusted > o2.p_adjusted) return 1;
-				if (o1.p < o2.p) return -1;
-				if (o1.p > o2.p) return 1;
-				return 0;
-			}});
+		/* The model determines the terms' rank */
+		model = new EnrichedGOTermsTableModel(go, props);
+		order = model.rankOrder();
+		prepareDisplayable();
 		termID2PValueRank = new HashMap<TermID,Integer>();
-		for (int rank = 0;rank < props.length; rank++)
-			termID2PValueRank.put(props[rank].term, rank + 1);
+		for (int i = 0;i < props.length; i++)
+			termID2PValueRank.put(props[i].term, model.getRank(i));
 
 		prepareSignificanceColors();
 		buildCheckedTermHashSet();
@@ -295,128 +310,151 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 	 */
 	void populateTable()
 	{
-		int entryNumber;
-		final int direction;
-
-		if (sortDirection == SWT.UP) direction = 1;
-		else direction = -1;
+		order = model.order(order, sortColumn, getSortDirectionFactor(), getCheckedPositions());
+		setLines(model.filter(order, displayable, filterText));
+	}
 
-		switch (sortColumn)
+	/**
+	 * Sorts the table according to the current sorting settings. The sorting
+	 * is performed in a background thread, the table is updated afterwards
+	 * within the UI thread unless another sort request was issued in the
+	 * meantime.
+	 *
+	 * @param selectedTermID the term that shall be selected after sorting (may
+	 *  be null).
+	 */
+	private void sortTable(final TermID selectedTermID)
+	{
+		final int generation = ++sortGeneration;
+		final EnrichedGOTermsTableModel sortModel = model;
+		final int [] previousOrder = order;
+		final int column = sortColumn;
+		final int direction = getSortDirectionFactor();
+		final boolean [] checked = getCheckedPositions();
+		final boolean [] sortDisplayable = displayable;
+		final String sortFilterText = filterText;
+		final Display display = getDisplay();
+
+		Thread sortThread = new Thread("Sort Result Table")
 		{
-			case	ACTIVITY: Arrays.sort(props, getCheckedComparator(direction)); break;
-			case	GOID: Arrays.sort(props, new GOIDComparator(direction)); break;
-			case	NAME: Arrays.sort(props, new GONameComparator(direction)); break;
-
-			case	RANK:
-					Arrays.sort(props, new Comparator<AbstractGOTermProperties>(){
-						public int compare(AbstractGOTermProperties o1, AbstractGOTermProperties o2)
-						{
-							int r;
+			public void run()
+			{
+				final int [] newOrder = sortModel.order(previousOrder, column, direction, checked);
+				final int [] newLines = sortModel.filter(newOrder, sortDisplayable, sortFilterText);
 
-							r = termID2PValueRank.get(o1.term) - termID2PValueRank.get(o2.term);
+				display.asyncExec(new Runnable()
+				{
+					public void run()
+					{
+						if (isDisposed() || generation != sortGeneration || sortModel != model)
+							return;
 
-							r *= direction;
-							return r;
-						}});
-					break;
+						order = newOrder;
+						if (sortDisplayable == displayable && sortFilterText.equals(filterText))
+							setLines(newLines);
+						else
+							setLines(model.filter(order, displayable, filterText));
 
-			case	ADJPVAL:
-					Arrays.sort(props, new Comparator<AbstractGOTermProperties>(){
-						public int compare(AbstractGOTermProperties o1, AbstractGOTermProperties o2)
+						if (selectedTermID != null)
 						{
-							int r;
-
-							if (o1.p_adjusted < o2.p_adjusted) r = -1;
-							else if (o1.p_adjusted > o2.p_adjusted) r = 1;
-							else if (o1.p < o2.p) r = -1;
-							else if (o1.p > o2.p) r = 1;
-							else r = 0;
+							int line = getLine(selectedTermID.id);
+							if (line != -1)
+								table.setSelection(line);
+						}
+					}
+				});
+			}
+		};
+		sortThread.setDaemon(true);
+		sortThread.start();
+	}
 
-							r *= direction;
-							return r;
-						}});
-					break;
+	/**
+	 * Applies the current filter text. If the new text is an extension of the
+	 * previous one, only the currently displayed lines need to be considered.
+	 *
+	 * @param newFilterText
+	 */
+	private void applyFilterText(String newFilterText)
+	{
+		newFilterText = newFilterText.trim().toLowerCase();
+		if (newFilterText.equals(filterText))
+			return;
 
-			case	MARG:
-					Arrays.sort(props,new Comparator<AbstractGOTermProperties>()
-					{
-							public int compare(AbstractGOTermProperties o1, AbstractGOTermProperties o2)
-							{
-								int r;
-
-								if (o1 instanceof Bayes2GOGOTermProperties && o2 instanceof Bayes2GOGOTermProperties)
-								{
-									double m1 = ((Bayes2GOGOTermProperties)o1).marg;
-									double m2 = ((Bayes2GOGOTermProperties)o2).marg;
-
-									if (m1 < m2) r = -1;
-									else if (m1 > m2) r = 1;
-									else r = 0;
-								} else
-								{
-									if (o1.p < o2.p) r = -1;
-									else if (o1.p > o2.p) r = 1;
-									else r = 0;
-								}
-								r *= direction;
-								return r;
-							}
-					});
-					break;
-			case	PVAL:
-					Arrays.sort(props,new Comparator<AbstractGOTermProperties>()
-					{
-						public int compare(AbstractGOTermProperties o1, AbstractGOTermProperties o2)
-						{
-							int r;
+		int [] positions;
+		if (newFilterText.startsWith(filterText)) positions = lines;
+		else positions = order;
 
-							if (o1.p < o2.p) r = -1;
-							else if (o1.p > o2.p) r = 1;
-							else r = 0;
-							r *= direction;
-							return r;
-						}
-					});
-					break;
+		filterText = newFilterText;
+		setLines(model.filter(positions, displayable, filterText));
+		updateSignificanceText();
+	}
 
-			case	POP:
-					Arrays.sort(props,new Comparator<AbstractGOTermProperties>()
-					{
-						public int compare(AbstractGOTermProperties o1, AbstractGOTermProperties o2)
-						{
-							return (o1.annotatedPopulationGenes - o2.annotatedPopulationGenes)*direction;
-						}
-					});
-					break;
+	/**
+	 * Sets the displayed lines.
+	 *
+	 * @param newLines the term positions of the lines.
+	 */
+	private void setLines(int [] newLines)
+	{
+		lines = newLines;
+		pos2Line = new int[props.length];
+		Arrays.fill(pos2Line, -1);
+		for (int i = 0; i < lines.length; i++)
+			pos2Line[lines[i]] = i;
 
-			case	STUDY:
-					Arrays.sort(props,new Comparator<AbstractGOTermProperties>()
-					{
-						public int compare(AbstractGOTermProperties o1, AbstractGOTermProperties o2)
-						{
-							return (o1.annotatedStudyGenes - o2.annotatedStudyGenes)*direction;
-						}
-					});
-					break;
-		}
+		table.clearAll();
+		table.setItemCount(lines.length);
+	}
 
+	/**
+	 * Returns the table line of the term with the given integer id.
+	 *
+	 * @param id
+	 * @return the line or -1 if the term is not displayed.
+	 */
+	private int getLine(int id)
+	{
+		if (model == null) return -1;
+		int pos = model.getPosition(id);
+		if (pos == -1) return -1;
+		return pos2Line[pos];
+	}
 
-		termID2ListLine = new HashMap<Integer,Integer>();
-		line2TermPos = new HashMap<Integer,Integer>();
+	/**
+	 * @return 1 if sorting is ascending, -1 if sorting is descending.
+	 */
+	private int getSortDirectionFactor()
+	{
+		if (sortDirection == SWT.UP) return 1;
+		return -1;
+	}
 
-		entryNumber = 0;
+	/**
+	 * @return which term positions are checked.
+	 */
+	private boolean [] getCheckedPositions()
+	{
+		boolean [] checked = new boolean[props.length];
+		for (int i = 0; i < props.length; i++)
+			checked[i] = isCheckedTerm(props[i].term);
+		return checked;
+	}
 
-		for (int i=0;i<props.length;i++)
+	/**
+	 * Determines which terms are displayable according to the emanating term.
+	 */
+	private void prepareDisplayable()
+	{
+		if (getEmanatingTerm() == null)
 		{
-			if (!shouldTermDisplayed(props[i].term))
-				continue;
-			termID2ListLine.put(props[i].term.id, entryNumber);
-			line2TermPos.put(entryNumber, i);
-			entryNumber++;
+			displayable = null;
+			return;
 		}
 
-		table.clearAll();
-		table.setItemCount(entryNumber);
+		displayable = new boolean[props.length];
+		for (int i = 0; i < props.length; i++)
+			displayable[i] = shouldTermDisplayed(props[i].term);
 	}
 
 	/**
@@ -594,12 +632,12 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 	{
 		double level = getSignificanceLevel();
 		int count = 0;
-		int total = line2TermPos.size();
+		int total = lines.length;
 
 		/* count the number of significant entries */
-		for (Integer i : line2TermPos.keySet())
+		for (int i = 0; i < lines.length; i++)
 		{
-			AbstractGOTermProperties prop = props[line2TermPos.get(i)];
+			AbstractGOTermProperties prop = props[lines[i]];
 			if (prop.isSignificant(level)) count++;
 		}
 
@@ -617,6 +655,12 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		str.append("<a href=\"all\">");
 		str.append(total);
 		str.append("</a>");
+		if (result.getNumberOfResamplingSteps() > 0)
+		{
+			str.append(" (");
+			str.append(result.getNumberOfResamplingSteps());
+			str.append(" resampling steps)");
+		}
 
 		significanceLink.setText(str.toString());
 
@@ -627,6 +671,8 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		else str.append("below");
 		str.append(" the given threshold.\n");
 		str.append("The third value shows the total number of terms that are displayed within the table.");
+		if (result.getNumberOfResamplingSteps() > 0)
+			str.append("\nThe number of resampling steps is the one actually performed by the multiple test correction.");
 		significanceLink.setToolTipText(str.toString());
 	}
 
@@ -723,8 +769,7 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		for (TermID termid : termids)
 		{
 			/* Is the term displayed? */
-			Integer lineIdx = termID2ListLine.get(termid.id);
-			if (lineIdx != null)
+			if (getLine(termid.id) != -1)
 			{
 				Term term = go.getTerm(termid);
 				if (term != null)
@@ -802,13 +847,11 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 				table.setSortColumn(col);
 				table.setSortDirection(sortDirection);
 
-				populateTable();
-
+				TermID selectedTermID = null;
 				if (selectedItem != null)
-				{
-					TermID selectedTermID = (TermID)selectedItem.getData("term");
-					table.setSelection(termID2ListLine.get(selectedTermID.id));
-				}
+					selectedTermID = (TermID)selectedItem.getData("term");
+
+				sortTable(selectedTermID);
 
 			}
 		};
@@ -854,6 +897,19 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		/* Initially, we hide the graph */
 		termSashForm.setMaximizedControl(tableFolder);
 
+		/* Filter text */
+		filterTextField = new Text(tableComposite, SWT.SEARCH | SWT.ICON_CANCEL);
+		filterTextField.setMessage("Filter terms by id or name");
+		filterTextField.setLayoutData(new GridData(GridData.GRAB_HORIZONTAL|GridData.FILL_HORIZONTAL));
+		filterTextField.addModifyListener(new ModifyListener()
+		{
+			public void modifyText(ModifyEvent e)
+			{
+				if (model != null)
+					applyFilterText(filterTextField.getText());
+			}
+		});
+
 		/* Table widget */
 		table = new Table(tableComposite, SWT.BORDER | SWT.FULL_SELECTION | SWT.CHECK | SWT.VIRTUAL);
 		GridData tableGridData = new GridData(GridData.FILL_BOTH|GridData.GRAB_HORIZONTAL|GridData.GRAB_VERTICAL);
@@ -880,10 +936,9 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		table.addListener(SWT.SetData, new Listener() {
 			public void handleEvent(Event e) {
 				TableItem item = (TableItem) e.item;
-				Integer index = line2TermPos.get(e.index);
-				if (index != null)
+				if (e.index < lines.length)
 				{
-					AbstractGOTermProperties prop = props[index];
+					AbstractGOTermProperties prop = props[lines[e.index]];
 					Term t = go.getTerm(prop.term);
 					item.setText(GOID, prop.term.toString());
 					item.setText(NAME, t.getName().toString());
@@ -1040,8 +1095,8 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 				try
 				{
 					TermID termId = GODOTWriter.decodeTermID(e.text);
-					Integer selection = termID2ListLine.get(termId.id);
-					if (selection != null)
+					int selection = getLine(termId.id);
+					if (selection != -1)
 					{
 						table.setSelection(selection);
 						updateBrowser();
@@ -1075,8 +1130,8 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 						Set<TermID> termIDs = go.getTermChildren(selectedTermId);
 						for (TermID termID : termIDs)
 						{
-							Integer selection = termID2ListLine.get(termID.id);
-							if (selection != null)
+							int selection = getLine(termID.id);
+							if (selection != -1)
 							{
 								addToCheckedTerms(termID);
 								table.getItem(selection).setChecked(true);
@@ -1194,8 +1249,8 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 						try
 						{
 							int id = Integer.parseInt(event.location.substring(7));
-							Integer selection = termID2ListLine.get(id);
-							if (selection != null)
+							int selection = getLine(id);
+							if (selection != -1)
 							{
 								table.setSelection(selection);
 								updateBrowser();
@@ -1266,7 +1321,8 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 	{
 		super.newEmanatingTermSelected(term);
 
-		populateTable();
+		prepareDisplayable();
+		setLines(model.filter(order, displayable, filterText));
 		updateSignificanceText();
 	}
 
@@ -1353,7 +1409,7 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 			}
 		});
 		logger.info("Layouting graph.");
-		ggt.start();
+		GraphGenerationService.schedule(ggt, this);
 	}
 
 	/**
@@ -1375,7 +1431,7 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		});
 
 		ggt.setGfxOutFilename(path);
-		ggt.start();
+		GraphGenerationService.schedule(ggt);
 	}
 
 	/**
@@ -1431,7 +1487,7 @@ public class EnrichedGOTermsComposite extends AbstractResultComposite implements
 		});
 
 		logger.info("Preparing to store html file \"" + path + "\".");
-		ggt.start();
+		GraphGenerationService.schedule(ggt);
 	}
 
 	/**
@@ -0,0 +1,387 @@
+package ontologizer.gui.swt.result;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import ontologizer.calculation.AbstractGOTermProperties;
+import ontologizer.calculation.b2g.Bayes2GOGOTermProperties;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.Term;
+
+/**
+ * The model behind the virtual table of the {@link EnrichedGOTermsComposite}.
+ *
+ * The values of all sortable columns are extracted once into primitive arrays
+ * that are indexed by the position of the term within the properties array.
+ * The properties array itself is never reordered. Instead, sorting computes a
+ * permutation of these positions, which only touches the primitive arrays and
+ * hence can be performed outside the UI thread. Filtering produces the list
+ * of displayed lines from such a permutation.
+ */
+class EnrichedGOTermsTableModel
+{
+	/** The properties in the order in which they were supplied */
+	private final AbstractGOTermProperties [] props;
+
+	private final Ontology go;
+
+	private final int [] goIDs;
+	private final double [] p;
+	private final double [] pAdjusted;
+	private final double [] marg;
+	private final int [] pop;
+	private final int [] study;
+
+	/** The rank of each term (starting with 1) when ordered by adjusted p values and p values */
+	private final int [] rank;
+
+	/** The position of each term when ordered by names, calculated lazily */
+	private int [] nameRank;
+
+	/** Lower case variant of the id and name for each term, calculated lazily */
+	private String [] filterStrings;
+
+	/** The integer parts of the term ids in ascending order */
+	private final int [] sortedIDs;
+
+	/** The position of the term of the corresponding entry in sortedIDs */
+	private final int [] sortedIDPos;
+
+	/**
+	 * Constructs the model.
+	 *
+	 * @param go the ontology.
+	 * @param props the properties to be displayed. The array mustn't be
+	 *  altered afterwards.
+	 */
+	public EnrichedGOTermsTableModel(Ontology go, AbstractGOTermProperties [] props)
+	{
+		int n = props.length;
+
+		this.go = go;
+		this.props = props;
+
+		goIDs = new int[n];
+		p = new double[n];
+		pAdjusted = new double[n];
+		marg = new double[n];
+		pop = new int[n];
+		study = new int[n];
+		rank = new int[n];
+		sortedIDs = new int[n];
+		sortedIDPos = new int[n];
+
+		for (int i = 0; i < n; i++)
+		{
+			AbstractGOTermProperties prop = props[i];
+			goIDs[i] = prop.term.id;
+			p[i] = prop.p;
+			pAdjusted[i] = prop.p_adjusted;
+			if (prop instanceof Bayes2GOGOTermProperties)
+				marg[i] = ((Bayes2GOGOTermProperties)prop).marg;
+			else
+				marg[i] = prop.p;
+			pop[i] = prop.annotatedPopulationGenes;
+			study[i] = prop.annotatedStudyGenes;
+		}
+
+		/* Pack ids and positions into longs, so the ids can be sorted along
+		 * with their positions without boxing */
+		long [] idPos = new long[n];
+		for (int i = 0; i < n; i++)
+			idPos[i] = ((long)goIDs[i] << 32) | i;
+		Arrays.sort(idPos);
+		for (int i = 0; i < n; i++)
+		{
+			sortedIDs[i] = (int)(idPos[i] >>> 32);
+			sortedIDPos[i] = (int)idPos[i];
+		}
+
+		/* Order by adjusted p-values (if no decision could be made,
+		 * by normal p-values) in order to get the terms' rank */
+		int [] order = identity(n);
+		sort(order, new IndexComparator()
+		{
+			public int compare(int i, int j)
+			{
+				if (pAdjusted[i] < pAdjusted[j]) return -1;
+				if (pAdjusted[i] > pAdjusted[j]) return 1;
+				if (p[i] < p[j]) return -1;
+				if (p[i] > p[j]) return 1;
+				return 0;
+			}
+		});
+		for (int r = 0; r < n; r++)
+			rank[order[r]] = r + 1;
+	}
+
+	/**
+	 * @return the number of terms.
+	 */
+	public int size()
+	{
+		return props.length;
+	}
+
+	/**
+	 * Returns the properties at the given position.
+	 *
+	 * @param pos
+	 * @return the properties.
+	 */
+	public AbstractGOTermProperties get(int pos)
+	{
+		return props[pos];
+	}
+
+	/**
+	 * Returns the rank of the term at the given position.
+	 *
+	 * @param pos
+	 * @return the rank, starting with 1.
+	 */
+	public int getRank(int pos)
+	{
+		return rank[pos];
+	}
+
+	/**
+	 * Returns the position of the term with the given integer id.
+	 *
+	 * @param id
+	 * @return the position or -1 if no such term exists.
+	 */
+	public int getPosition(int id)
+	{
+		int idx = Arrays.binarySearch(sortedIDs, id);
+		if (idx < 0) return -1;
+		return sortedIDPos[idx];
+	}
+
+	/**
+	 * @return the permutation in which the terms are ordered by their rank,
+	 *  i.e., by adjusted p values and p values.
+	 */
+	public int [] rankOrder()
+	{
+		int [] order = new int[props.length];
+		for (int i = 0; i < props.length; i++)
+			order[rank[i] - 1] = i;
+		return order;
+	}
+
+	/**
+	 * Sorts the given permutation according to the given column. Sorting is
+	 * stable, i.e., terms with equal values stay in the same relative order.
+	 * This method doesn't access any UI resources and thus can be called from
+	 * any thread.
+	 *
+	 * @param previous the previous permutation, which is not altered.
+	 * @param column the column as defined in {@link EnrichedGOTermsComposite}.
+	 * @param direction either 1 (ascending) or -1 (descending).
+	 * @param checked which terms are checked, indexed by position. Used only
+	 *  for sorting by activity.
+	 * @return the new permutation.
+	 */
+	public int [] order(int [] previous, int column, final int direction, final boolean [] checked)
+	{
+		int [] order = previous.clone();
+
+		final double [] dkey;
+		final int [] ikey;
+
+		switch (column)
+		{
+			case	EnrichedGOTermsComposite.ACTIVITY:
+					sort(order, new IndexComparator()
+					{
+						public int compare(int i, int j)
+						{
+							if (checked[i] == checked[j]) return 0;
+							if (checked[i]) return -direction;
+							return direction;
+						}
+					});
+					return order;
+
+			case	EnrichedGOTermsComposite.GOID: ikey = goIDs; dkey = null; break;
+			case	EnrichedGOTermsComposite.NAME: ikey = getNameRanks(); dkey = null; break;
+			case	EnrichedGOTermsComposite.RANK: /* fall through */
+			case	EnrichedGOTermsComposite.ADJPVAL: ikey = rank; dkey = null; break;
+			case	EnrichedGOTermsComposite.MARG: ikey = null; dkey = marg; break;
+			case	EnrichedGOTermsComposite.PVAL: ikey = null; dkey = p; break;
+			case	EnrichedGOTermsComposite.POP: ikey = pop; dkey = null; break;
+			case	EnrichedGOTermsComposite.STUDY: ikey = study; dkey = null; break;
+			default: return order;
+		}
+
+		if (ikey != null)
+		{
+			sort(order, new IndexComparator()
+			{
+				public int compare(int i, int j)
+				{
+					if (ikey[i] < ikey[j]) return -direction;
+					if (ikey[i] > ikey[j]) return direction;
+					return 0;
+				}
+			});
+		} else
+		{
+			sort(order, new IndexComparator()
+			{
+				public int compare(int i, int j)
+				{
+					if (dkey[i] < dkey[j]) return -direction;
+					if (dkey[i] > dkey[j]) return direction;
+					return 0;
+				}
+			});
+		}
+		return order;
+	}
+
+	/**
+	 * Filters the given positions. Only positions that are displayable
+	 * and whose term id or name contain the given text are kept.
+	 *
+	 * If the text is an extension of a text used before, it is sufficient
+	 * to supply the result of the previous filtering rather than the
+	 * complete permutation.
+	 *
+	 * @param positions the positions to be filtered.
+	 * @param displayable which positions are displayable at all, may be null.
+	 * @param text the text to filter for, may be null.
+	 * @return the positions that passed the filter.
+	 */
+	public int [] filter(int [] positions, boolean [] displayable, String text)
+	{
+		String [] strings = null;
+		if (text != null && text.length() > 0)
+		{
+			strings = getFilterStrings();
+			text = text.toLowerCase();
+		} else
+		{
+			if (displayable == null)
+				return positions;
+		}
+
+		int [] lines = new int[positions.length];
+		int n = 0;
+		for (int i = 0; i < positions.length; i++)
+		{
+			int pos = positions[i];
+			if (displayable != null && !displayable[pos])
+				continue;
+			if (strings != null && strings[pos].indexOf(text) == -1)
+				continue;
+			lines[n++] = pos;
+		}
+		return Arrays.copyOf(lines, n);
+	}
+
+	private synchronized int [] getNameRanks()
+	{
+		if (nameRank != null)
+			return nameRank;
+
+		final String [] names = new String[props.length];
+		for (int i = 0; i < props.length; i++)
+			names[i] = getTermName(i);
+
+		Integer [] order = new Integer[props.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			public int compare(Integer o1, Integer o2)
+			{
+				return names[o1].compareToIgnoreCase(names[o2]);
+			}
+		});
+
+		int [] newNameRank = new int[props.length];
+		int r = 0;
+		for (int i = 0; i < order.length; i++)
+		{
+			if (i > 0 && names[order[i]].compareToIgnoreCase(names[order[i-1]]) != 0)
+				r++;
+			newNameRank[order[i]] = r;
+		}
+		nameRank = newNameRank;
+		return nameRank;
+	}
+
+	private synchronized String [] getFilterStrings()
+	{
+		if (filterStrings != null)
+			return filterStrings;
+
+		String [] newFilterStrings = new String[props.length];
+		for (int i = 0; i < props.length; i++)
+			newFilterStrings[i] = (props[i].term.toString() + " " + getTermName(i)).toLowerCase();
+		filterStrings = newFilterStrings;
+		return filterStrings;
+	}
+
+	private String getTermName(int pos)
+	{
+		Term t = go.getTerm(props[pos].term);
+		if (t == null) return "";
+		return t.getName().toString();
+	}
+
+	private static int [] identity(int n)
+	{
+		int [] order = new int[n];
+		for (int i = 0; i < n; i++)
+			order[i] = i;
+		return order;
+	}
+
+	/**
+	 * Compares two positions.
+	 */
+	private static interface IndexComparator
+	{
+		int compare(int i, int j);
+	}
+
+	/**
+	 * Stable merge sort of the given int array using the given comparator.
+	 *
+	 * @param a
+	 * @param cmp
+	 */
+	private static void sort(int [] a, IndexComparator cmp)
+	{
+		int n = a.length;
+		int [] src = a;
+		int [] dest = new int[n];
+
+		for (int width = 1; width < n; width *= 2)
+		{
+			for (int lo = 0; lo < n; lo += 2 * width)
+			{
+				int mid = Math.min(lo + width, n);
+				int hi = Math.min(lo + 2 * width, n);
+				int i = lo, j = mid, k = lo;
+
+				while (i < mid && j < hi)
+				{
+					if (cmp.compare(src[j], src[i]) < 0) dest[k++] = src[j++];
+					else dest[k++] = src[i++];
+				}
+				while (i < mid) dest[k++] = src[i++];
+				while (j < hi) dest[k++] = src[j++];
+			}
+			int [] tmp = src;
+			src = dest;
+			dest = tmp;
+		}
+
+		if (src != a)
+			System.arraycopy(src, 0, a, 0, n);
+	}
+}
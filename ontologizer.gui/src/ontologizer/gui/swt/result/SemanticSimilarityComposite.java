@@ -15,6 +15,7 @@ import net.sourceforge.nattable.NatTable;
 import ontologizer.GlobalPreferences;
 import ontologizer.association.Gene2Associations;
 import ontologizer.calculation.SemanticResult;
+import ontologizer.gui.swt.support.GraphGenerationService;
 import ontologizer.gui.swt.support.IGraphCanvas;
 import ontologizer.gui.swt.support.IMinimizedAdapter;
 import ontologizer.ontology.Ontology;
@@ -359,7 +360,7 @@ public class SemanticSimilarityComposite extends Composite implements IGraphActi
 	{
 		SemanticGOGraphGenerationThread sgggt =
 			new SemanticGOGraphGenerationThread(g1,g2,getDisplay(),result.g,GlobalPreferences.getDOTPath());
-		sgggt.start();
+		GraphGenerationService.schedule(sgggt, this);
 	}
 
 	public void setResult(SemanticResult result)
@@ -444,7 +445,7 @@ public class SemanticSimilarityComposite extends Composite implements IGraphActi
 				}
 			};
 			sgggt.setGfxOutFilename(file);
-			sgggt.start();
+			GraphGenerationService.schedule(sgggt);
 		}
 	}
 }
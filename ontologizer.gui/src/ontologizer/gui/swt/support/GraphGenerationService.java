@@ -0,0 +1,115 @@
+package ontologizer.gui.swt.support;
+
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executes graph generations on a bounded pool of low priority threads,
+ * such that several graphs (e.g., one for each result of a project) can
+ * be layouted concurrently without starting an unbounded number of dot
+ * processes.
+ *
+ * A generation can be scheduled on behalf of an owner, e.g., the composite
+ * displaying the graph. If a new generation is scheduled for the same owner,
+ * the previous one is considered as stale and is cancelled. The owner is
+ * remembered only until its most recent generation has been finished, so
+ * it is not kept alive by the service.
+ */
+public class GraphGenerationService
+{
+	/** The maximum number of graphs that are layouted concurrently */
+	private static final int MAX_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	private static ExecutorService executor = Executors.newFixedThreadPool(MAX_THREADS, new ThreadFactory()
+	{
+		private int count;
+
+		public synchronized Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "Graph Generation " + (++count));
+			t.setPriority(Thread.MIN_PRIORITY);
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	/**
+	 * The most recently scheduled generation of an owner that has not been
+	 * finished yet. A weak map wouldn't help here, as the generation usually
+	 * references its owner via the support interface.
+	 */
+	private static HashMap<Object,NewGraphGenerationThread> lastGenerations = new HashMap<Object,NewGraphGenerationThread>();
+
+	private GraphGenerationService()
+	{
+	}
+
+	/**
+	 * Schedules the given graph generation.
+	 *
+	 * @param ggt the generation to be scheduled.
+	 */
+	public static void schedule(NewGraphGenerationThread ggt)
+	{
+		schedule(ggt, null);
+	}
+
+	/**
+	 * Schedules the given graph generation on behalf of the given owner.
+	 * A still pending or running generation that has been scheduled for
+	 * the same owner before is cancelled.
+	 *
+	 * @param ggt the generation to be scheduled.
+	 * @param owner the owner or null, if the generation shall not replace
+	 *  any other generation.
+	 */
+	public static void schedule(final NewGraphGenerationThread ggt, final Object owner)
+	{
+		if (owner == null)
+		{
+			executor.execute(ggt);
+			return;
+		}
+
+		NewGraphGenerationThread last;
+		synchronized (lastGenerations)
+		{
+			last = lastGenerations.put(owner, ggt);
+		}
+		if (last != null)
+			last.cancel();
+
+		executor.execute(new Runnable()
+		{
+			public void run()
+			{
+				try
+				{
+					ggt.run();
+				} finally
+				{
+					finished(ggt, owner);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Forgets the given generation of the owner, unless it has been
+	 * replaced by a newer one in the meantime.
+	 *
+	 * @param ggt
+	 * @param owner
+	 */
+	private static void finished(NewGraphGenerationThread ggt, Object owner)
+	{
+		synchronized (lastGenerations)
+		{
+			if (lastGenerations.get(owner) == ggt)
+				lastGenerations.remove(owner);
+		}
+	}
+
+}
@@ -0,0 +1,241 @@
+package ontologizer.gui.swt.support;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * A cache for layouted graphs. The key of an entry is the digest of the
+ * unlayouted dot file, which covers the set of terms as well as all
+ * node attributes. The value is the dot file as returned by the dot
+ * tool. Hence, requesting the layout of a graph that has already been
+ * layouted (e.g., when toggling the threshold back and forth) doesn't
+ * involve the dot tool at all.
+ *
+ * The cache holds at most a given number of entries. If this number is
+ * exceeded, the least recently used entry is removed and its file is
+ * deleted. Files that are returned by {@link #get(String)} or added by
+ * {@link #put(String, File)} are pinned until they are released via
+ * {@link #release(File)}, so a file is never deleted while it is still
+ * handed out to the UI.
+ */
+public class GraphLayoutCache
+{
+	private static Logger logger = Logger.getLogger(GraphLayoutCache.class.getCanonicalName());
+
+	/** The default number of layouts that are kept */
+	public static final int DEFAULT_MAX_ENTRIES = 32;
+
+	private static final char [] HEX = "0123456789abcdef".toCharArray();
+
+	private static GraphLayoutCache instance = new GraphLayoutCache(DEFAULT_MAX_ENTRIES);
+
+	private final int maxEntries;
+
+	/** Maps the digest of an unlayouted dot file to the layouted dot file (in access order) */
+	private LinkedHashMap<String,File> layouts = new LinkedHashMap<String,File>(16, 0.75f, true);
+
+	/** The number of pins of the files that are handed out */
+	private HashMap<File,Integer> pinned = new HashMap<File,Integer>();
+
+	/** Evicted files that are deleted as soon as they are no longer pinned */
+	private HashSet<File> evicted = new HashSet<File>();
+
+	private int hits;
+	private int misses;
+
+	/**
+	 * Constructs a new cache.
+	 *
+	 * @param maxEntries the maximum number of layouts kept by the cache.
+	 */
+	public GraphLayoutCache(int maxEntries)
+	{
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @return the cache instance that is shared by all graph generations.
+	 */
+	public static GraphLayoutCache getInstance()
+	{
+		return instance;
+	}
+
+	/**
+	 * Returns the key that identifies the given unlayouted dot file.
+	 *
+	 * @param dotFile
+	 * @return the key or null if the key couldn't be determined.
+	 */
+	public static String key(File dotFile)
+	{
+		try
+		{
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			InputStream in = new FileInputStream(dotFile);
+			try
+			{
+				byte [] buf = new byte[16384];
+				int read;
+				while ((read = in.read(buf)) != -1)
+					md.update(buf, 0, read);
+			} finally
+			{
+				in.close();
+			}
+
+			byte [] digest = md.digest();
+			char [] hex = new char[digest.length * 2];
+			for (int i = 0; i < digest.length; i++)
+			{
+				hex[i*2] = HEX[(digest[i] >> 4) & 0xf];
+				hex[i*2+1] = HEX[digest[i] & 0xf];
+			}
+			return new String(hex);
+		} catch (IOException e)
+		{
+			logger.warning("Unable to determine the key for \"" + dotFile + "\": " + e.getMessage());
+		} catch (NoSuchAlgorithmException e)
+		{
+			logger.warning("Unable to determine the key for \"" + dotFile + "\": " + e.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the layouted dot file for the given key. The file is pinned
+	 * and must be released via {@link #release(File)} once it is no longer
+	 * needed.
+	 *
+	 * @param key
+	 * @return the layouted dot file or null if no such layout is cached.
+	 */
+	public synchronized File get(String key)
+	{
+		if (key == null)
+			return null;
+
+		File layoutedDotFile = layouts.get(key);
+		if (layoutedDotFile != null && !layoutedDotFile.exists())
+		{
+			layouts.remove(key);
+			layoutedDotFile = null;
+		}
+
+		if (layoutedDotFile != null)
+		{
+			pin(layoutedDotFile);
+			hits++;
+		} else misses++;
+
+		return layoutedDotFile;
+	}
+
+	/**
+	 * Adds the layouted dot file for the given key. The cache takes over
+	 * the ownership of the file, i.e., it may delete it after it has been
+	 * evicted and released. The file is pinned and must be released via
+	 * {@link #release(File)} once it is no longer needed.
+	 *
+	 * @param key
+	 * @param layoutedDotFile
+	 */
+	public synchronized void put(String key, File layoutedDotFile)
+	{
+		if (key == null)
+			return;
+
+		pin(layoutedDotFile);
+
+		File old = layouts.put(key, layoutedDotFile);
+		if (old != null && !old.equals(layoutedDotFile))
+			evict(old);
+
+		Iterator<Map.Entry<String,File>> iter = layouts.entrySet().iterator();
+		while (layouts.size() > maxEntries && iter.hasNext())
+		{
+			File f = iter.next().getValue();
+			iter.remove();
+			evict(f);
+		}
+	}
+
+	/**
+	 * Releases a file that has been pinned by {@link #get(String)} or
+	 * {@link #put(String, File)}. If the file has been evicted in the
+	 * meantime and is not pinned anymore, it is deleted.
+	 *
+	 * @param layoutedDotFile
+	 */
+	public synchronized void release(File layoutedDotFile)
+	{
+		Integer pins = pinned.get(layoutedDotFile);
+		if (pins == null)
+			return;
+
+		if (pins > 1)
+		{
+			pinned.put(layoutedDotFile, pins - 1);
+			return;
+		}
+
+		pinned.remove(layoutedDotFile);
+		if (evicted.remove(layoutedDotFile))
+			layoutedDotFile.delete();
+	}
+
+	private void pin(File layoutedDotFile)
+	{
+		Integer pins = pinned.get(layoutedDotFile);
+		pinned.put(layoutedDotFile, pins == null ? 1 : pins + 1);
+	}
+
+	/**
+	 * Deletes the given file that is no longer part of the cache, or defers
+	 * the deletion until it has been released.
+	 *
+	 * @param layoutedDotFile
+	 */
+	private void evict(File layoutedDotFile)
+	{
+		if (pinned.containsKey(layoutedDotFile)) evicted.add(layoutedDotFile);
+		else layoutedDotFile.delete();
+	}
+
+	/**
+	 * Removes all layouts from the cache. Pinned files are deleted once
+	 * they have been released.
+	 */
+	public synchronized void clear()
+	{
+		for (File f : layouts.values())
+			evict(f);
+		layouts.clear();
+	}
+
+	/**
+	 * @return the number of requests that could be served by the cache.
+	 */
+	public synchronized int getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return the number of requests that could not be served by the cache.
+	 */
+	public synchronized int getMisses()
+	{
+		return misses;
+	}
+}
@@ -11,6 +11,14 @@ import org.eclipse.swt.widgets.Display;
  * the layoutFinished method of the specified constructor
  * argument is executed in the context of the GUI thread.
  *
+ * Layouts are looked up in and added to the {@link GraphLayoutCache}. The
+ * layouted file is pinned in the cache while it is handed out to the
+ * support, so its layoutFinished method must not keep the file beyond
+ * the call.
+ * Instead of starting the thread directly, the generation can be also
+ * executed via the {@link GraphGenerationService}, which allows to cancel
+ * stale generations.
+ *
  * @author Sebastian Bauer
  */
 public class NewGraphGenerationThread extends Thread
@@ -23,6 +31,12 @@ public class NewGraphGenerationThread extends Thread
 
 	private IGraphGenerationSupport support;
 
+	/** Whether the generation has been cancelled */
+	private volatile boolean cancelled;
+
+	/** The currently running dot process */
+	private Process dotProcess;
+
 	public NewGraphGenerationThread(Display display, String dotCMDPath, IGraphGenerationSupport support)
 	{
 		setPriority(Thread.MIN_PRIORITY);
@@ -58,23 +72,79 @@ public class NewGraphGenerationThread extends Thread
 		this.gfxOutFilename = gfxOutFilename;
 	}
 
+	/**
+	 * Cancels the generation. If the generation has not been finished yet,
+	 * the support's layoutFinished method will not be called.
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+
+		synchronized (this)
+		{
+			if (dotProcess != null)
+				dotProcess.destroy();
+		}
+	}
+
+	/**
+	 * @return whether the generation has been cancelled.
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
 	public void run()
 	{
+		if (cancelled)
+			return;
+
 		try
 		{
 			final File dotTmpFile = File.createTempFile("onto", ".dot");
-			final File layoutedDotTmpFile = File.createTempFile("onto", ".dot");
 			final File gfxFile;
 
 			/* Remove temporary files on exit */
 			dotTmpFile.deleteOnExit();
-			layoutedDotTmpFile.deleteOnExit();
 
 			if (gfxOutFilename != null) gfxFile = new File(gfxOutFilename);
 			else gfxFile = null;
 
 			support.writeDOT(dotTmpFile);
 
+			GraphLayoutCache cache = GraphLayoutCache.getInstance();
+			String key = GraphLayoutCache.key(dotTmpFile);
+
+			if (gfxFile == null)
+			{
+				final File cachedLayoutedDotFile = cache.get(key);
+				if (cachedLayoutedDotFile != null)
+				{
+					dotTmpFile.delete();
+					try
+					{
+						if (cancelled)
+							return;
+
+						display.syncExec(new Runnable()
+						{
+							public void run()
+							{
+								support.layoutFinished(true, null, null, cachedLayoutedDotFile);
+							}
+						});
+					} finally
+					{
+						cache.release(cachedLayoutedDotFile);
+					}
+					return;
+				}
+			}
+
+			final File layoutedDotTmpFile = File.createTempFile("onto", ".dot");
+			layoutedDotTmpFile.deleteOnExit();
+
 			String [] args;
 			if (gfxFile != null)
 			{
@@ -98,7 +168,13 @@ public class NewGraphGenerationThread extends Thread
 						"-Tdot", "-o", layoutedDotTmpFile.getCanonicalPath()};
 			}
 
-			Process dotProcess = Runtime.getRuntime().exec(args);
+			Process dotProcess;
+			synchronized (this)
+			{
+				if (cancelled)
+					return;
+				dotProcess = this.dotProcess = Runtime.getRuntime().exec(args);
+			}
 
 			int c;
 			BufferedInputStream es = new BufferedInputStream(dotProcess.getErrorStream());
@@ -108,22 +184,41 @@ public class NewGraphGenerationThread extends Thread
 
 			dotProcess.waitFor();
 
+			dotTmpFile.delete();
+			if (cancelled)
+			{
+				layoutedDotTmpFile.delete();
+				return;
+			}
+
 			final boolean success = dotProcess.exitValue() == 0;
 			if (!success)
 				logger.severe(errStr.toString());
+			else
+				cache.put(key, layoutedDotTmpFile);
 
-			/* Create the result window. Runs within the application's context */
-			display.syncExec(new Runnable()
+			try
 			{
-				public void run()
+				/* Create the result window. Runs within the application's context */
+				display.syncExec(new Runnable()
 				{
-					support.layoutFinished(success,
-							"Dot returned a failure!\nPlease consult the error log for more details.",
-							gfxFile,layoutedDotTmpFile);
-				}
-			});
+					public void run()
+					{
+						support.layoutFinished(success,
+								"Dot returned a failure!\nPlease consult the error log for more details.",
+								gfxFile,layoutedDotTmpFile);
+					}
+				});
+			} finally
+			{
+				if (success)
+					cache.release(layoutedDotTmpFile);
+			}
 		} catch (final Exception e)
 		{
+			if (cancelled)
+				return;
+
 			e.printStackTrace();
 
 			/* Enable the generate graph button */
@@ -1,20 +1,32 @@
 package ontologizer.gui.swt.threads;
 
 import java.io.File;
+import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
+import ontologizer.OntologizerThreadGroups;
 import ontologizer.association.AssociationContainer;
 import ontologizer.association.AssociationParser;
 import ontologizer.association.IAssociationParserProgress;
 import ontologizer.calculation.AbstractGOTermsResult;
+import ontologizer.calculation.AbstractPValueBasedCalculation;
 import ontologizer.calculation.CalculationRegistry;
 import ontologizer.calculation.EnrichedGOTermsResult;
 import ontologizer.calculation.ICalculation;
 import ontologizer.calculation.ICalculationProgress;
 import ontologizer.calculation.IProgressFeedback;
+import ontologizer.calculation.PopulationIndex;
 import ontologizer.calculation.b2g.B2GParam;
 import ontologizer.calculation.b2g.Bayes2GOCalculation;
 import ontologizer.filter.GeneFilter;
@@ -41,6 +53,9 @@ public class AnalyseThread extends AbstractOntologizerThread
 {
 	private static Logger logger = Logger.getLogger(AnalyseThread.class.getName());
 
+	/** The maximum number of study sets that are analysed concurrently */
+	private static final int MAX_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
 	private String definitionFile;
 	private String associationsFile;
 	private String mappingFile;
@@ -51,16 +66,20 @@ public class AnalyseThread extends AbstractOntologizerThread
 	private PopulationSet populationSet;
 	private StudySetList studySetList;
 	private int numberOfPermutations;
+	private double adaptiveThreshold;
 	private Collection<String> checkedEvidences;
 
 	private double alpha, upperAlpha, beta, upperBeta;
 	private int expectedNumber;
 	private int numberOfMCMCSteps;
 
+	/** The analyses of the individual study sets that are currently scheduled */
+	private List<StudySetAnalysis> analyses = new ArrayList<StudySetAnalysis>();
+
 	public AnalyseThread(Display display, Runnable calledWhenFinished, ResultWindow result,
 			String definitionFile, String associationsFile, String mappingFile, PopulationSet populationSet, StudySetList studySetList,
 			String methodName, String mtcName, String subsetName, String subontologyName,Collection<String> checkedEvidences,
-			int noP, double alpha, double upperAlpha, double beta, double upperBeta, int expectedNumber, int numberOfMCMCSteps)
+			int noP, double adaptiveThreshold, double alpha, double upperAlpha, double beta, double upperBeta, int expectedNumber, int numberOfMCMCSteps)
 	{
 		super("Analyze Thread",calledWhenFinished,display,result);
 
@@ -76,6 +95,7 @@ public class AnalyseThread extends AbstractOntologizerThread
 		this.checkedEvidences = checkedEvidences;
 
 		this.numberOfPermutations = noP;
+		this.adaptiveThreshold = adaptiveThreshold;
 		this.alpha = alpha;
 		this.upperAlpha = upperAlpha;
 		this.beta = beta;
@@ -137,78 +157,8 @@ public class AnalyseThread extends AbstractOntologizerThread
 
 			/* TODO: Merge or change to use OntologizerCore */
 
-			ICalculation calculation = CalculationRegistry.getCalculationByName(methodName);
-			if (calculation == null)
-				calculation = CalculationRegistry.getDefault();
-
-			if (calculation instanceof IProgressFeedback)
-			{
-				((IProgressFeedback)calculation).setProgress(new ICalculationProgress()
-				{
-					public void init(final int max)
-					{
-						display.asyncExec(new Runnable() {
-							public void run()
-							{
-								if (!result.isDisposed())
-									result.initProgress(max);
-							}});
-					}
-
-					public void update(final int current)
-					{
-						/* Abort condition */
-						if (isInterrupted())
-							throw new AbortCalculationException();
-
-						display.asyncExec(new Runnable() {
-							public void run()
-							{
-								if (!result.isDisposed())
-									result.updateProgress(current);
-							}});
-					}
-				});
-			}
-
-			if (calculation instanceof Bayes2GOCalculation)
-			{
-				Bayes2GOCalculation b2g = (Bayes2GOCalculation)calculation;
-
-				if (!Double.isNaN(alpha)) b2g.setAlpha(alpha);
-				else
-				{
-					b2g.setAlpha(B2GParam.Type.MCMC);
-					b2g.setAlphaBounds(0,upperAlpha);
-				}
-				if (!Double.isNaN(beta)) b2g.setBeta(beta);
-				else
-				{
-					b2g.setBeta(B2GParam.Type.MCMC);
-					b2g.setBetaBounds(0,upperBeta);
-				}
-				if (expectedNumber != -1) b2g.setExpectedNumber(expectedNumber);
-				else b2g.setExpectedNumber(B2GParam.Type.MCMC);
-
-				b2g.setMcmcSteps(numberOfMCMCSteps);
-			}
-
-			/* Set the desired test correction or set the default */
-			AbstractTestCorrection testCorrection = TestCorrectionRegistry.getCorrectionByName(mtcName);
-			if (testCorrection == null)
-				testCorrection = TestCorrectionRegistry.getDefault();
-
-			if (testCorrection instanceof IResampling) {
-				IResampling resampling = (IResampling) testCorrection;
-
-				/* TODO: Probably, invalidating the cache doesn't make much sense here */
-
-				resampling.resetCache();
-				if (numberOfPermutations > 0) {
-					resampling.setNumberOfResamplingSteps(numberOfPermutations);
-				}
-			}
-
+			ICalculation calculation = getCalculation();
+			AbstractTestCorrection testCorrection = getTestCorrection();
 
 			/* OBO */
 			OBOParser oboParser = new OBOParser(new OBOParserFileInput(definitionFile),OBOParser.PARSE_DEFINITIONS);
@@ -337,61 +287,98 @@ public class AnalyseThread extends AbstractOntologizerThread
 				result.updateProgress(0);
 			}});
 
-			/* Perform calculation */
-			int studyNum = 0;
-			ArrayList<EnrichedGOTermsResult> studySetResultList = new ArrayList<EnrichedGOTermsResult>();
-
-			for (StudySet studySet : studySetList)
+			/* The index of the population is the same for all study sets, hence we build
+			 * it once before the study sets are analysed */
+			if (calculation instanceof AbstractPValueBasedCalculation)
 			{
-				/* Abort condition */
-				if (isInterrupted())
-					throw new AbortCalculationException();
+				log("Index population");
+				PopulationIndex.get(goGraph, goAssociations, populationSet);
+			}
 
-				studyNum++;
+			/* Perform calculation. Study sets are analysed concurrently, if the
+			 * calculation and test correction can be instantiated for each of them */
+			boolean concurrent = newInstance(calculation) != null && newInstance(testCorrection) != null;
+			int numberOfThreads = concurrent ? Math.max(1, Math.min(MAX_THREADS, studySetList.size())) : 1;
+			final boolean reportStudyProgress = numberOfThreads == 1;
 
-				/* If procedure is a resampling test
-				 * TODO: Enclose testCorrection by synchronize statement */
-				if (testCorrection instanceof AbstractResamplingTestCorrection)
+			ArrayList<EnrichedGOTermsResult> studySetResultList = new ArrayList<EnrichedGOTermsResult>();
+			ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory()
+			{
+				private int count;
+
+				public synchronized Thread newThread(Runnable r)
 				{
-					AbstractResamplingTestCorrection rtc = (AbstractResamplingTestCorrection)testCorrection;
-					final AnalyseThread t = this;
+					Thread t = new Thread(OntologizerThreadGroups.workerThreadGroup, r, "Analyze Study Set " + (++count));
+					t.setPriority(Thread.MIN_PRIORITY);
+					t.setDaemon(true);
+					return t;
+				}
+			});
 
-					rtc.setProgressUpdate(new IResamplingProgress(){
-						public void init(final int max)
-						{
-							display.asyncExec(new Runnable(){public void run() { if (!result.isDisposed()) result.initProgress(max); }});
-						}
+			try
+			{
+				CompletionService<EnrichedGOTermsResult> completion = new ExecutorCompletionService<EnrichedGOTermsResult>(executor);
 
-						public void update(final int current)
-						{
-							/* If thread is interrupted throw a Runtime Exception */
-							if (t.isInterrupted()) throw new AbortCalculationException();
+				int studyNum = 0;
+				for (StudySet studySet : studySetList)
+				{
+					studyNum++;
 
-							display.asyncExec(new Runnable(){public void run() { if (!result.isDisposed()) result.updateProgress(current); }});
-						}
-					});
+					StudySetAnalysis analysis = new StudySetAnalysis(studySet, studyNum, goGraph, goAssociations,
+							concurrent ? newInstance(calculation) : calculation,
+							concurrent ? newInstance(testCorrection) : testCorrection,
+							reportStudyProgress);
+					synchronized (analyses)
+					{
+						analyses.add(analysis);
+						analysis.future = completion.submit(analysis);
+					}
 				}
 
-				log("Perform analysis on study set " + studyNum + " (out of " + studySetList.size() + ")");
+				if (!reportStudyProgress)
+				{
+					final int max = studySetList.size();
+					display.asyncExec(new Runnable(){public void run() { if (!result.isDisposed()) result.initProgress(max); }});
+				}
 
-				EnrichedGOTermsResult studySetResult = calculation.calculateStudySet(
-						goGraph, goAssociations, populationSet, studySet,
-						testCorrection);
+				/* Results are added to the result window as soon as they are available */
+				for (int done = 1; done <= studyNum; done++)
+				{
+					Future<EnrichedGOTermsResult> future = completion.take();
 
-				/* Reset the counter and enumerator items here. It is not necessarily
-				 * nice to place it here, but for the moment it's the easiest way
-				 */
-				studySet.resetCounterAndEnumerator();
+					/* Abort condition */
+					if (isInterrupted())
+						throw new AbortCalculationException();
 
-				if (testCorrection instanceof AbstractResamplingTestCorrection)
-				{
-					AbstractResamplingTestCorrection rtc = (AbstractResamplingTestCorrection)testCorrection;
-					rtc.setProgressUpdate(null);
-				}
+					EnrichedGOTermsResult studySetResult;
+					try
+					{
+						studySetResult = future.get();
+					} catch (ExecutionException e)
+					{
+						if (e.getCause() instanceof Exception)
+							throw (Exception)e.getCause();
+						throw e;
+					}
 
-				display.asyncExec(new AddResultRunnable(studySetResult));
+					display.asyncExec(new AddResultRunnable(studySetResult));
+					if (!reportStudyProgress)
+					{
+						final int current = done;
+						display.asyncExec(new Runnable(){public void run() { if (!result.isDisposed()) result.updateProgress(current); }});
+					}
 
-				studySetResultList.add(studySetResult);
+					studySetResultList.add(studySetResult);
+				}
+			} finally
+			{
+				synchronized (analyses)
+				{
+					for (StudySetAnalysis analysis : analyses)
+						analysis.cancel();
+					analyses.clear();
+				}
+				executor.shutdownNow();
 			}
 
 			/* Eigen stuff */
@@ -451,4 +438,199 @@ public class AnalyseThread extends AbstractOntologizerThread
 			}
 		}
 	}
+
+	/**
+	 * @return the configured calculation.
+	 */
+	private ICalculation getCalculation()
+	{
+		ICalculation calculation = CalculationRegistry.getCalculationByName(methodName);
+		if (calculation == null)
+			calculation = CalculationRegistry.getDefault();
+		return calculation;
+	}
+
+	/**
+	 * @return the configured test correction.
+	 */
+	private AbstractTestCorrection getTestCorrection()
+	{
+		/* Set the desired test correction or set the default */
+		AbstractTestCorrection testCorrection = TestCorrectionRegistry.getCorrectionByName(mtcName);
+		if (testCorrection == null)
+			testCorrection = TestCorrectionRegistry.getDefault();
+		return testCorrection;
+	}
+
+	/**
+	 * Creates a new instance of the class of the given object.
+	 *
+	 * @param prototype
+	 * @return the new instance or null, if no instance could be created.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T newInstance(T prototype)
+	{
+		try
+		{
+			return (T)prototype.getClass().getDeclaredConstructor().newInstance();
+		} catch (NoSuchMethodException e)
+		{
+		} catch (InstantiationException e)
+		{
+		} catch (IllegalAccessException e)
+		{
+		} catch (InvocationTargetException e)
+		{
+		}
+		return null;
+	}
+
+	/**
+	 * The analysis of a single study set. Each analysis uses its own
+	 * calculation and test correction instance, so several analyses
+	 * can be performed at the same time.
+	 */
+	private class StudySetAnalysis implements Callable<EnrichedGOTermsResult>
+	{
+		private final StudySet studySet;
+		private final int studyNum;
+		private final Ontology goGraph;
+		private final AssociationContainer goAssociations;
+		private final ICalculation calculation;
+		private final AbstractTestCorrection testCorrection;
+		private final boolean reportProgress;
+
+		private volatile boolean cancelled;
+		private Future<EnrichedGOTermsResult> future;
+
+		public StudySetAnalysis(StudySet studySet, int studyNum, Ontology goGraph, AssociationContainer goAssociations,
+				ICalculation calculation, AbstractTestCorrection testCorrection, boolean reportProgress)
+		{
+			this.studySet = studySet;
+			this.studyNum = studyNum;
+			this.goGraph = goGraph;
+			this.goAssociations = goAssociations;
+			this.calculation = calculation;
+			this.testCorrection = testCorrection;
+			this.reportProgress = reportProgress;
+		}
+
+		/**
+		 * Cancels this analysis.
+		 */
+		public void cancel()
+		{
+			cancelled = true;
+			if (future != null)
+				future.cancel(true);
+		}
+
+		/**
+		 * Throws an AbortCalculationException if this analysis or the entire
+		 * thread has been cancelled.
+		 */
+		private void checkAbort()
+		{
+			if (cancelled || isInterrupted() || Thread.currentThread().isInterrupted())
+				throw new AbortCalculationException();
+		}
+
+		private void initProgress(final int max)
+		{
+			if (!reportProgress) return;
+
+			display.asyncExec(new Runnable(){public void run() { if (!result.isDisposed()) result.initProgress(max); }});
+		}
+
+		private void updateProgress(final int current)
+		{
+			checkAbort();
+
+			if (!reportProgress) return;
+
+			display.asyncExec(new Runnable(){public void run() { if (!result.isDisposed()) result.updateProgress(current); }});
+		}
+
+		public EnrichedGOTermsResult call()
+		{
+			checkAbort();
+
+			if (calculation instanceof IProgressFeedback)
+			{
+				((IProgressFeedback)calculation).setProgress(new ICalculationProgress()
+				{
+					public void init(int max) { initProgress(max); }
+					public void update(int current) { updateProgress(current); }
+				});
+			}
+
+			if (calculation instanceof Bayes2GOCalculation)
+			{
+				Bayes2GOCalculation b2g = (Bayes2GOCalculation)calculation;
+
+				if (!Double.isNaN(alpha)) b2g.setAlpha(alpha);
+				else
+				{
+					b2g.setAlpha(B2GParam.Type.MCMC);
+					b2g.setAlphaBounds(0,upperAlpha);
+				}
+				if (!Double.isNaN(beta)) b2g.setBeta(beta);
+				else
+				{
+					b2g.setBeta(B2GParam.Type.MCMC);
+					b2g.setBetaBounds(0,upperBeta);
+				}
+				if (expectedNumber != -1) b2g.setExpectedNumber(expectedNumber);
+				else b2g.setExpectedNumber(B2GParam.Type.MCMC);
+
+				b2g.setMcmcSteps(numberOfMCMCSteps);
+			}
+
+			if (testCorrection instanceof IResampling)
+			{
+				IResampling resampling = (IResampling) testCorrection;
+
+				/* TODO: Probably, invalidating the cache doesn't make much sense here */
+
+				resampling.resetCache();
+				if (numberOfPermutations > 0) {
+					resampling.setNumberOfResamplingSteps(numberOfPermutations);
+				}
+			}
+
+			/* If procedure is a resampling test */
+			if (testCorrection instanceof AbstractResamplingTestCorrection)
+			{
+				AbstractResamplingTestCorrection rtc = (AbstractResamplingTestCorrection)testCorrection;
+
+				rtc.setAdaptiveThreshold(adaptiveThreshold);
+				rtc.setProgressUpdate(new IResamplingProgress(){
+					public void init(int max) { initProgress(max); }
+					public void update(int current) { updateProgress(current); }
+				});
+			}
+
+			log("Perform analysis on study set " + studyNum + " (out of " + studySetList.size() + ")");
+
+			try
+			{
+				return calculation.calculateStudySet(
+						goGraph, goAssociations, populationSet, studySet,
+						testCorrection);
+			} finally
+			{
+				/* Reset the counter and enumerator items here. It is not necessarily
+				 * nice to place it here, but for the moment it's the easiest way
+				 */
+				studySet.resetCounterAndEnumerator();
+
+				if (testCorrection instanceof AbstractResamplingTestCorrection)
+				{
+					AbstractResamplingTestCorrection rtc = (AbstractResamplingTestCorrection)testCorrection;
+					rtc.setProgressUpdate(null);
+				}
+			}
+		}
+	}
 };
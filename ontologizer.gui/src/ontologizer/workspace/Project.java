@@ -131,6 +131,17 @@ public class Project implements IResource
 		}
 	}
 
+	/**
+	 * Returns the time at which the settings of this project have been
+	 * stored the last time, which approximates the time of the last use.
+	 *
+	 * @return the time in milliseconds since the epoch or 0 if unknown.
+	 */
+	public long getLastUsed()
+	{
+		return new File(projectDirectory,PROJECT_SETTINGS_NAME).lastModified();
+	}
+
 	public Iterable<ItemSet> itemSets()
 	{
 		return itemSets;
@@ -0,0 +1,115 @@
+package ontologizer;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ontologizer.types.ByteString;
+import ontologizer.types.ByteStringIntHashMap;
+import sonumina.collections.ObjectIntHashMap;
+
+/**
+ * Compares the lookup performance of ObjectIntHashMap and
+ * ByteStringIntHashMap on a key set that resembles the symbols and
+ * object ids of a typical GAF file.
+ */
+@State(Scope.Benchmark)
+public class ByteStringIntHashMapBenchmark
+{
+	private static final int NUMBER_OF_KEYS = 50000;
+
+	private ByteString [] keys;
+	private byte [] line;
+	private int [] lineOffsets;
+	private int [] lineLengths;
+
+	private ObjectIntHashMap<ByteString> objectIntHashMap;
+	private ByteStringIntHashMap byteStringIntHashMap;
+
+	@Setup
+	public void setup()
+	{
+		Random rnd = new Random(1);
+		keys = new ByteString[NUMBER_OF_KEYS];
+		StringBuilder str = new StringBuilder();
+		lineOffsets = new int[NUMBER_OF_KEYS];
+		lineLengths = new int[NUMBER_OF_KEYS];
+
+		objectIntHashMap = new ObjectIntHashMap<ByteString>();
+		byteStringIntHashMap = new ByteStringIntHashMap();
+
+		for (int i = 0; i < NUMBER_OF_KEYS; i++)
+		{
+			String key;
+			if (rnd.nextBoolean()) key = String.format("S%09d", rnd.nextInt(1000000000));
+			else key = "GENE" + Integer.toString(rnd.nextInt(100000), 36).toUpperCase() + "-" + i;
+
+			keys[i] = new ByteString(key);
+			objectIntHashMap.put(keys[i], i);
+			byteStringIntHashMap.put(keys[i], i);
+
+			/* Keys are also embedded into a buffer, like in a line of a GAF file */
+			str.append("SGD\t");
+			lineOffsets[i] = str.length();
+			lineLengths[i] = key.length();
+			str.append(key);
+			str.append("\t");
+		}
+		line = str.toString().getBytes();
+	}
+
+	@Benchmark
+	@Warmup(iterations=5)
+	@Fork(value=1)
+	@Measurement(time=2,timeUnit=TimeUnit.SECONDS)
+	public int benchmarkObjectIntHashMap()
+	{
+		int sum = 0;
+		for (ByteString key : keys)
+			sum += objectIntHashMap.getIfAbsent(key, 0);
+		return sum;
+	}
+
+	@Benchmark
+	@Warmup(iterations=5)
+	@Fork(value=1)
+	@Measurement(time=2,timeUnit=TimeUnit.SECONDS)
+	public int benchmarkByteStringIntHashMap()
+	{
+		int sum = 0;
+		for (ByteString key : keys)
+			sum += byteStringIntHashMap.getIfAbsent(key, 0);
+		return sum;
+	}
+
+	@Benchmark
+	@Warmup(iterations=5)
+	@Fork(value=1)
+	@Measurement(time=2,timeUnit=TimeUnit.SECONDS)
+	public int benchmarkObjectIntHashMapFromSlice()
+	{
+		int sum = 0;
+		for (int i = 0; i < lineOffsets.length; i++)
+			sum += objectIntHashMap.getIfAbsent(new ByteString(line, lineOffsets[i], lineOffsets[i] + lineLengths[i]), 0);
+		return sum;
+	}
+
+	@Benchmark
+	@Warmup(iterations=5)
+	@Fork(value=1)
+	@Measurement(time=2,timeUnit=TimeUnit.SECONDS)
+	public int benchmarkByteStringIntHashMapFromSlice()
+	{
+		int sum = 0;
+		for (int i = 0; i < lineOffsets.length; i++)
+			sum += byteStringIntHashMap.getIfAbsent(line, lineOffsets[i], lineLengths[i], 0);
+		return sum;
+	}
+}
@@ -0,0 +1,117 @@
+package ontologizer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ontologizer.association.AssociationContainer;
+import ontologizer.association.AssociationParser;
+import ontologizer.calculation.CalculationUtils;
+import ontologizer.calculation.b2g.FixedAlphaBetaScore;
+import ontologizer.calculation.util.XorShiftRandom;
+import ontologizer.enumeration.TermEnumerator;
+import ontologizer.ontology.OBOParser;
+import ontologizer.ontology.OBOParserException;
+import ontologizer.ontology.OBOParserFileInput;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.TermContainer;
+import ontologizer.ontology.TermID;
+import ontologizer.set.PopulationSet;
+import ontologizer.types.ByteString;
+import sonumina.collections.IntMapper;
+
+/**
+ * Measures the number of MCMC steps per second of the MGSA chain on the
+ * test data, i.e., the inner loop of Bayes2GOCalculation with parameters
+ * alpha, beta, and p being sampled.
+ */
+@State(Scope.Benchmark)
+public class MCMCBenchmark
+{
+	private static final String obofile = "../../ontologizer.tests/data/gene_ontology.1_2.obo.gz";
+	private static final String assocfile = "../../ontologizer.tests/data/gene_association.sgd.gz";
+
+	private static final int STUDY_SIZE = 200;
+	private static final int STEPS = 100000;
+
+	@Param({"random", "xorshift"})
+	public String rng;
+
+	private FixedAlphaBetaScore score;
+	private Random rnd;
+	private double currentScore;
+
+	@Setup
+	public void setup() throws IOException, OBOParserException
+	{
+		OBOParser oboParser = new OBOParser(new OBOParserFileInput(obofile));
+		oboParser.doParse();
+		TermContainer goTerms = new TermContainer(oboParser.getTermMap(), oboParser.getFormatVersion(), oboParser.getDate());
+		Ontology ontology = Ontology.create(goTerms);
+
+		AssociationParser ap = new AssociationParser(new OBOParserFileInput(assocfile), ontology.getTermMap());
+		AssociationContainer assoc = new AssociationContainer(ap.getAssociations(), ap.getAnnotationMapping());
+
+		PopulationSet population = new PopulationSet();
+		population.addGenes(assoc.getAllAnnotatedGenes());
+		TermEnumerator populationEnumerator = population.enumerateTerms(ontology, assoc);
+
+		IntMapper<TermID> termMapper = IntMapper.create(populationEnumerator.getAllAnnotatedTermsAsList());
+		IntMapper<ByteString> geneMapper = IntMapper.create(populationEnumerator.getGenesAsList());
+		int [][] termLinks = CalculationUtils.makeTermLinks(populationEnumerator, termMapper, geneMapper);
+
+		List<ByteString> genes = new ArrayList<ByteString>(populationEnumerator.getGenesAsList());
+		Collections.shuffle(genes, new Random(1));
+		boolean [] observedGenes = geneMapper.getDense(genes.subList(0, STUDY_SIZE));
+
+		if (rng.equals("xorshift")) rnd = new XorShiftRandom(1);
+		else rnd = new Random(1);
+
+		score = new FixedAlphaBetaScore(rnd, termLinks, observedGenes);
+		score.setAlpha(Double.NaN);
+		score.setBeta(Double.NaN);
+		score.setExpectedNumberOfTerms(Double.NaN);
+		currentScore = score.getScore();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@OperationsPerInvocation(STEPS)
+	@Warmup(iterations=5)
+	@Fork(value=1)
+	@Measurement(time=2,timeUnit=TimeUnit.SECONDS)
+	public double benchmarkMCMCSteps()
+	{
+		for (int t = 0; t < STEPS; t++)
+		{
+			long oldPossibilities = score.getNeighborhoodSize();
+			score.proposeNewState(rnd.nextLong());
+			double newScore = score.getScore();
+			long newPossibilities = score.getNeighborhoodSize();
+
+			double acceptProb = Math.exp(newScore - currentScore)*(double)oldPossibilities/(double)newPossibilities;
+			if (rnd.nextDouble() >= acceptProb) score.undoProposal();
+			else currentScore = newScore;
+
+			score.record();
+		}
+		return currentScore;
+	}
+}
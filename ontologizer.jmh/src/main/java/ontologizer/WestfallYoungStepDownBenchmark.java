@@ -0,0 +1,131 @@
+package ontologizer;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ontologizer.statistics.PValue;
+import ontologizer.statistics.WestfallYoungStepDownKernel;
+
+/**
+ * Measures the counting part of the Westfall-Young step-down procedure
+ * for 10000 p values and 1000 resamples, i.e., without calculating the
+ * resampled p values themselves.
+ */
+@State(Scope.Benchmark)
+public class WestfallYoungStepDownBenchmark
+{
+	private static final int M = 10000;
+	private static final int RESAMPLES = 1000;
+
+	private PValue [] rawP;
+	private PValue [][] randomRawP;
+
+	private static PValue [] draw(Random rnd)
+	{
+		PValue [] p = new PValue[M];
+		for (int i = 0; i < M; i++)
+		{
+			p[i] = new PValue();
+			p[i].p = rnd.nextDouble();
+		}
+		return p;
+	}
+
+	@Setup
+	public void setup()
+	{
+		Random rnd = new Random(1);
+		rawP = draw(rnd);
+		randomRawP = new PValue[RESAMPLES][];
+		for (int b = 0; b < RESAMPLES; b++)
+			randomRawP[b] = draw(rnd);
+	}
+
+	/**
+	 * Class models a double value entry and its index of
+	 * a source array.
+	 */
+	private static class Entry implements Comparable<Entry>
+	{
+		public double value;
+		public int index;
+
+		public int compareTo(Entry o)
+		{
+			if (value < o.value) return -1;
+			if (value == o.value) return 0;
+			return 1;
+		}
+	};
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations=5)
+	@Fork(value=1)
+	@Measurement(time=2,timeUnit=TimeUnit.SECONDS)
+	public PValue [] benchmarkPerResample()
+	{
+		int m = rawP.length;
+		double [] q = new double[m];
+		int [] count = new int[m];
+		int [] r = new int[m];
+
+		Entry [] sortedRawPValues = new Entry[m];
+		for (int i = 0; i < m; i++)
+		{
+			sortedRawPValues[i] = new Entry();
+			sortedRawPValues[i].value = rawP[i].p;
+			sortedRawPValues[i].index = i;
+		}
+		Arrays.sort(sortedRawPValues);
+		for (int i = 0; i < m; i++)
+			r[i] = sortedRawPValues[i].index;
+
+		for (PValue [] random : randomRawP)
+		{
+			q[m-1] = random[r[m-1]].p;
+			for (int i = m - 2; i >= 0; i--)
+				q[i] = Math.min(q[i+1], random[r[i]].p);
+			for (int i = 0; i < m; i++)
+			{
+				if (q[i] <= rawP[r[i]].p)
+					count[i]++;
+			}
+		}
+
+		int c = count[0];
+		for (int i = 1; i < m; i++)
+			c = count[i] = Math.max(1, Math.max(c, count[i]));
+		for (int i = 0; i < m; i++)
+			rawP[r[i]].p_adjusted = ((double)count[i]) / RESAMPLES;
+		return rawP;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations=5)
+	@Fork(value=1)
+	@Measurement(time=2,timeUnit=TimeUnit.SECONDS)
+	public PValue [] benchmarkKernel()
+	{
+		WestfallYoungStepDownKernel kernel = new WestfallYoungStepDownKernel(rawP);
+		for (PValue [] random : randomRawP)
+			kernel.add(random);
+		kernel.adjust(rawP);
+		return rawP;
+	}
+}
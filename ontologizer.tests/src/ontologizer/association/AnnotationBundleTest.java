@@ -0,0 +1,57 @@
+package ontologizer.association;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ontologizer.internal.InternalOntology;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.Term;
+import ontologizer.ontology.TermID;
+import ontologizer.types.ByteString;
+
+public class AnnotationBundleTest
+{
+	private static List<TermID> termIDs(Gene2Associations g2a)
+	{
+		List<TermID> tids = new ArrayList<TermID>();
+		for (Association a : g2a)
+			tids.add(a.getTermID());
+		return tids;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		InternalOntology internal = new InternalOntology();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AnnotationBundle.write(out, internal.graph, internal.assoc);
+		AnnotationBundle bundle = AnnotationBundle.read(new ByteArrayInputStream(out.toByteArray()));
+
+		Ontology ontology = bundle.getOntology();
+		AssociationContainer assoc = bundle.getAssociations();
+
+		for (Term t : ontology)
+		{
+			Term original = internal.graph.getTerm(t.getID());
+			assertNotNull(original);
+			assertEquals(original.getName(), t.getName());
+			assertEquals(internal.graph.getTermParents(t.getID()), ontology.getTermParents(t.getID()));
+		}
+
+		assertEquals(internal.assoc.getAllAnnotatedGenes(), assoc.getAllAnnotatedGenes());
+		for (ByteString gene : internal.assoc.getAllAnnotatedGenes())
+			assertEquals(termIDs(internal.assoc.get(gene)), termIDs(assoc.get(gene)));
+
+		for (ByteString synonym : internal.synonymMap.keySet())
+			assertEquals(internal.assoc.getMapping().mapSynonym(synonym), assoc.getMapping().mapSynonym(synonym));
+	}
+}
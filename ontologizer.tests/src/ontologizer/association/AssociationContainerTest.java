@@ -0,0 +1,176 @@
+package ontologizer.association;
+
+import static ontologizer.types.ByteString.b;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ontologizer.enumeration.TermEnumerator;
+import ontologizer.internal.InternalOntology;
+import ontologizer.ontology.TermID;
+import ontologizer.set.StudySet;
+import ontologizer.types.ByteString;
+
+public class AssociationContainerTest
+{
+	@Test
+	public void testColumns()
+	{
+		List<Association> list = new ArrayList<Association>();
+		list.add(new Association(b("A"), new TermID("GO:0000002")));
+		list.add(new Association(b("B"), new TermID("GO:0000001")));
+		list.add(new Association(b("A"), new TermID("GO:0000003")));
+		list.add(new Association(b("A"), new TermID("GO:0000002")));
+		list.add(new Association(b("B"), new TermID("GO:0000002")));
+		list.add(new Association(b("X"), new TermID("GO:0000002")));
+
+		AnnotationContext context = new AnnotationContext(Arrays.asList(b("A"), b("B"), b("C")),
+				new HashMap<ByteString,ByteString>(), new HashMap<ByteString,ByteString>());
+		AssociationContainer container = new AssociationContainer(list, context);
+
+		/* Duplicates and associations of unknown items are dropped */
+		assertEquals(4, container.getNumberOfAssociations());
+		assertEquals(3, container.getNumberOfTerms());
+
+		Gene2Associations a = container.get(b("A"));
+		assertEquals(b("A"), a.name());
+		assertEquals(Arrays.asList(new TermID("GO:0000002"), new TermID("GO:0000003")), a.getAssociations());
+
+		Gene2Associations bAssocs = container.get(b("B"));
+		assertEquals(2, bAssocs.size());
+		assertEquals(new TermID("GO:0000001"), bAssocs.getTermID(0));
+		assertEquals(a.getTermIndex(0), bAssocs.getTermIndex(1));
+
+		List<TermID> tids = new ArrayList<TermID>();
+		for (Association assoc : bAssocs)
+		{
+			assertEquals(b("B"), assoc.getObjectSymbol());
+			tids.add(assoc.getTermID());
+		}
+		assertEquals(bAssocs.getAssociations(), tids);
+
+		/* Items without associations */
+		assertNull(container.get(b("C")));
+		assertNull(container.get(b("X")));
+	}
+
+	private static Association association(String symbol, String term, String evidence)
+	{
+		return new Association(b(symbol), b(symbol), new TermID(term), evidence != null ? b(evidence) : null, b("P"), false, ByteString.EMPTY);
+	}
+
+	@Test
+	public void testEvidenceMasks()
+	{
+		InternalOntology internal = new InternalOntology();
+
+		List<Association> list = new ArrayList<Association>();
+		list.add(association("A", "GO:0000002", "IEA"));
+		list.add(association("A", "GO:0000003", "IDA"));
+		list.add(association("B", "GO:0000004", "IEA"));
+		list.add(association("C", "GO:0000005", null));
+
+		AnnotationContext context = new AnnotationContext(Arrays.asList(b("A"), b("B"), b("C")),
+				new HashMap<ByteString,ByteString>(), new HashMap<ByteString,ByteString>());
+		AssociationContainer container = new AssociationContainer(list, context);
+
+		assertEquals(2, container.getNumberOfEvidenceCodes());
+		assertEquals(0, container.getEvidenceMask(Arrays.asList(b("TAS"))));
+		assertEquals(2, container.getAllEvidenceCodes().get("IEA").intValue());
+
+		StudySet study = new StudySet();
+		study.addGenes(Arrays.asList(b("A"), b("B"), b("C")));
+
+		Set<ByteString> iea = new HashSet<ByteString>(Arrays.asList(b("IEA")));
+		TermEnumerator masked = study.enumerateTerms(internal.graph, container, container.getEvidenceMask(iea));
+		assertSame(masked, study.enumerateTerms(internal.graph, container, iea, null));
+		assertEquals(0, masked.getAnnotatedGenes(new TermID("GO:0000003")).directAnnotated.size());
+		assertEquals(1, masked.getAnnotatedGenes(new TermID("GO:0000004")).directAnnotated.size());
+
+		/* The mask based enumeration agrees with the set based one */
+		TermEnumerator unmasked = new TermEnumerator(internal.graph);
+		for (Gene2Associations g2a : container)
+			unmasked.push(g2a, iea);
+		assertEquals(unmasked.getAllAnnotatedTermsAsList(), masked.getAllAnnotatedTermsAsList());
+
+		/* All evidences including missing ones */
+		TermEnumerator all = study.enumerateTerms(internal.graph, container);
+		assertEquals(1, all.getAnnotatedGenes(new TermID("GO:0000005")).directAnnotated.size());
+		assertNotSame(all, masked);
+	}
+
+	/**
+	 * Creates a container in which each item G0, G1, ... has an association
+	 * with a distinct evidence code E0, E1, ... and item C has an association
+	 * without an evidence code.
+	 */
+	private static AssociationContainer containerWithEvidenceCodes(int numberOfCodes, Set<ByteString> evidences, StudySet study)
+	{
+		List<Association> list = new ArrayList<Association>();
+		List<ByteString> symbols = new ArrayList<ByteString>();
+		for (int i = 0; i < numberOfCodes; i++)
+		{
+			list.add(association("G" + i, "GO:0000004", "E" + i));
+			symbols.add(b("G" + i));
+			evidences.add(b("E" + i));
+		}
+		list.add(association("C", "GO:0000005", null));
+		symbols.add(b("C"));
+		study.addGenes(symbols);
+
+		AnnotationContext context = new AnnotationContext(symbols,
+				new HashMap<ByteString,ByteString>(), new HashMap<ByteString,ByteString>());
+		return new AssociationContainer(list, context);
+	}
+
+	@Test
+	public void testAllEvidenceCodesSelected()
+	{
+		InternalOntology internal = new InternalOntology();
+
+		for (int numberOfCodes = AssociationContainer.MAX_MASKABLE_EVIDENCE_CODES; numberOfCodes <= 64; numberOfCodes++)
+		{
+			Set<ByteString> evidences = new HashSet<ByteString>();
+			StudySet study = new StudySet();
+			AssociationContainer container = containerWithEvidenceCodes(numberOfCodes, evidences, study);
+			assertEquals(numberOfCodes, container.getNumberOfEvidenceCodes());
+
+			/* The association without evidence code must be filtered out even if all codes are selected */
+			TermEnumerator enumerator = study.enumerateTerms(internal.graph, container, evidences, null);
+			assertEquals(numberOfCodes, enumerator.getAnnotatedGenes(new TermID("GO:0000004")).directAnnotated.size());
+			assertEquals(0, enumerator.getAnnotatedGenes(new TermID("GO:0000005")).directAnnotated.size());
+
+			if (numberOfCodes <= AssociationContainer.MAX_MASKABLE_EVIDENCE_CODES)
+				assertTrue(container.getEvidenceMask(evidences) != AssociationContainer.ALL_EVIDENCES);
+		}
+	}
+
+	@Test
+	public void testMaskedEnumeratorsPerContainer()
+	{
+		InternalOntology internal = new InternalOntology();
+
+		StudySet study = new StudySet();
+		AssociationContainer first = containerWithEvidenceCodes(2, new HashSet<ByteString>(), study);
+		AssociationContainer second = containerWithEvidenceCodes(3, new HashSet<ByteString>(), study);
+
+		/* Both masks select E0, but in different containers */
+		TermEnumerator firstEnumerator = study.enumerateTerms(internal.graph, first, 3L);
+		TermEnumerator secondEnumerator = study.enumerateTerms(internal.graph, second, 3L);
+		assertNotSame(firstEnumerator, secondEnumerator);
+		assertEquals(2, firstEnumerator.getAnnotatedGenes(new TermID("GO:0000004")).directAnnotated.size());
+		assertEquals(2, secondEnumerator.getAnnotatedGenes(new TermID("GO:0000004")).directAnnotated.size());
+		assertSame(secondEnumerator, study.enumerateTerms(internal.graph, second, 3L));
+	}
+}
@@ -48,4 +48,41 @@ public class AssociationTest
 		assertEquals("AAC1", a.getObjectSymbol().toString());
 	}
 
+	@Test
+	public void testByteArrayLine()
+	{
+		byte [] buf = ("xx" + EXAMPLE + "yy").getBytes();
+		Association a = Association.createFromGAFLine(buf, 2, EXAMPLE.length(), null);
+
+		assertEquals("S000004660", a.getDB_Object().toString());
+		assertEquals(new TermID("GO:0015886"),a.getTermID());
+		assertEquals("IPI",a.getEvidence().toString());
+		assertEquals("P",a.getAspect().toString());
+		assertEquals("YMR056C", a.getSynonym().toString());
+		assertEquals("AAC1", a.getObjectSymbol().toString());
+		assertEquals(false, a.hasNotQualifier());
+
+		byte [] notBuf = EXAMPLE.replace("AAC1\t\t", "AAC1\tcontributes_to|NOT\t").getBytes();
+		assertEquals(true, Association.createFromGAFLine(notBuf, 0, notBuf.length, null).hasNotQualifier());
+
+		/* The field buffer can be reused */
+		int [] fields = new int[Association.FIELDS + 1];
+		assertEquals(true, Association.createFromGAFLine(notBuf, 0, notBuf.length, null, fields).hasNotQualifier());
+		a = Association.createFromGAFLine(buf, 2, EXAMPLE.length(), null, fields);
+		assertEquals("AAC1", a.getObjectSymbol().toString());
+		assertEquals(false, a.hasNotQualifier());
+	}
+
+	@Test
+	public void testSplit()
+	{
+		byte [] buf = EXAMPLE.getBytes();
+		int [] fields = new int[Association.FIELDS + 1];
+
+		/* The last field is not terminated by a tab */
+		assertEquals(14, Association.splitGAFLine(buf, 0, buf.length, fields));
+		assertEquals("AAC1", new String(buf, fields[2], fields[3] - 1 - fields[2]));
+		assertEquals(0, fields[4] - 1 - fields[3]);
+		assertEquals("20100308", new String(buf, fields[13], fields[14] - 1 - fields[13]));
+	}
 }
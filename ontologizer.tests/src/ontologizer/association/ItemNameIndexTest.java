@@ -0,0 +1,48 @@
+package ontologizer.association;
+
+import static ontologizer.types.ByteString.b;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import ontologizer.types.ByteString;
+
+public class ItemNameIndexTest
+{
+	private ItemNameIndex createIndex()
+	{
+		List<ByteString> symbols = Arrays.asList(b("CDC28"), b("cdc3"), b("ACT1"), b("Cdc42"));
+
+		HashMap<ByteString,ByteString> synonym2Item = new HashMap<ByteString,ByteString>();
+		synonym2Item.put(b("CDK1"), b("CDC28"));
+		synonym2Item.put(b("cdc28p"), b("CDC28"));
+
+		HashMap<ByteString,ByteString> objectId2Item = new HashMap<ByteString,ByteString>();
+		objectId2Item.put(b("S000000364"), b("CDC28"));
+		objectId2Item.put(b("ACT1"), b("ACT1"));
+
+		return new ItemNameIndex(new AnnotationContext(symbols, synonym2Item, objectId2Item));
+	}
+
+	@Test
+	public void testPrefix()
+	{
+		ItemNameIndex index = createIndex();
+
+		/* ACT1 is both, a symbol and an object id */
+		assertEquals(7, index.size());
+
+		assertEquals(Arrays.asList(b("CDC28"), b("cdc28p"), b("cdc3"), b("Cdc42")), index.findByPrefix("cdc", 10));
+		assertEquals(Arrays.asList(b("CDC28"), b("cdc28p")), index.findByPrefix("Cdc2", 10));
+		assertEquals(Arrays.asList(b("CDC28"), b("cdc28p")), index.findByPrefix("cdc", 2));
+		assertEquals(Arrays.asList(b("S000000364")), index.findByPrefix("s0", 10));
+		assertEquals(Arrays.asList(b("ACT1")), index.findByPrefix("a", 10));
+		assertEquals(0, index.findByPrefix("cdc5", 10).size());
+		assertEquals(0, index.findByPrefix("zzz", 10).size());
+		assertEquals(7, index.findByPrefix("", 10).size());
+	}
+}
@@ -0,0 +1,81 @@
+package ontologizer.calculation;
+
+import static ontologizer.ontology.TermID.tid;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import ontologizer.association.AssociationContainer;
+import ontologizer.calculation.b2g.B2GParam;
+import ontologizer.calculation.b2g.Bayes2GOBatch;
+import ontologizer.calculation.b2g.Bayes2GOCalculation;
+import ontologizer.calculation.b2g.Bayes2GOGOTermProperties;
+import ontologizer.internal.InternalOntology;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.TermID;
+import ontologizer.statistics.None;
+
+public class Bayes2GOBatchTest
+{
+	private static Bayes2GOCalculation createCalculation()
+	{
+		Bayes2GOCalculation calc = new Bayes2GOCalculation();
+		calc.setSeed(2);
+		calc.setMcmcSteps(100000);
+		calc.setAlpha(B2GParam.Type.MCMC);
+		calc.setBeta(B2GParam.Type.MCMC);
+		calc.setExpectedNumber(2);
+		return calc;
+	}
+
+	@Test
+	public void testBatch() throws InterruptedException
+	{
+		InternalOntology internalOntology = new InternalOntology();
+		AssociationContainer assoc = internalOntology.assoc;
+		Ontology ontology = internalOntology.graph;
+
+		HashMap<TermID,Double> wantedActiveTerms = new HashMap<TermID,Double>();
+		wantedActiveTerms.put(tid("GO:0000010"),0.10);
+		wantedActiveTerms.put(tid("GO:0000004"),0.10);
+
+		Random rnd = new Random(1);
+		List<SingleCalculationSetting> settings = new ArrayList<SingleCalculationSetting>();
+		for (int i = 0; i < 4; i++)
+			settings.add(SingleCalculationSetting.create(rnd, wantedActiveTerms, 0.25, ontology, assoc));
+
+		Bayes2GOBatch batch = new Bayes2GOBatch(ontology, assoc, settings.get(0).pop);
+
+		/* Results must be the same as the ones of the ordinary calculation */
+		for (SingleCalculationSetting scs : settings)
+		{
+			EnrichedGOTermsResult expected = createCalculation().calculateStudySet(ontology, assoc, scs.pop, scs.study, new None());
+			EnrichedGOTermsResult result = batch.calculateStudySet(createCalculation(), scs.study);
+			assertEquals(expected.getSize(), result.getSize());
+			for (AbstractGOTermProperties prop : expected)
+				assertEquals(((Bayes2GOGOTermProperties)prop).marg, ((Bayes2GOGOTermProperties)result.getGOTermProperties(prop.term)).marg, 1e-10);
+		}
+
+		/* Concurrent results must not depend on the scheduling */
+		List<boolean []> observed = new ArrayList<boolean []>();
+		for (SingleCalculationSetting scs : settings)
+			observed.add(batch.getObservedGenes(scs.study));
+
+		ExecutorService es = Executors.newFixedThreadPool(2);
+		List<double []> marginals = batch.calculate(createCalculation(), observed, es);
+		List<double []> marginals2 = batch.calculate(createCalculation(), observed, es);
+		es.shutdown();
+
+		assertEquals(observed.size(), marginals.size());
+		for (int i = 0; i < marginals.size(); i++)
+			assertArrayEquals(marginals.get(i), marginals2.get(i), 1e-10);
+	}
+}
@@ -0,0 +1,144 @@
+package ontologizer.calculation;
+
+import static ontologizer.calculation.CalculationTestUtils.createTermLinksSetting;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ontologizer.calculation.CalculationTestUtils.TermLinksSetting;
+import ontologizer.calculation.b2g.FixedAlphaBetaScore;
+
+public class Bayes2GOScoreTest
+{
+	@Test
+	public void testLazyActivationCounts()
+	{
+		TermLinksSetting tls = createTermLinksSetting(0.1, 0.1);
+		int [][] termLinks = tls.termLinks;
+		boolean [] observedGenes = tls.observedGenes;
+
+		Random rnd = new Random(1);
+		FixedAlphaBetaScore fabs = new FixedAlphaBetaScore(rnd, termLinks, observedGenes);
+
+		/* Counts determined by the eager approach, i.e., by visiting all active terms on each record */
+		int [] expectedCounts = new int[termLinks.length];
+
+		double score = fabs.getScore();
+		for (int t = 0; t < 20000; t++)
+		{
+			long oldPossibilities = fabs.getNeighborhoodSize();
+			fabs.proposeNewState(rnd.nextLong());
+			double newScore = fabs.getScore();
+			long newPossibilities = fabs.getNeighborhoodSize();
+
+			double acceptProb = Math.exp(newScore - score)*(double)oldPossibilities/(double)newPossibilities;
+			if (rnd.nextDouble() >= acceptProb) fabs.undoProposal();
+			else score = newScore;
+
+			if (t > 1000)
+			{
+				fabs.record();
+				for (int term : fabs.getActiveTerms())
+					expectedCounts[term]++;
+			}
+
+			/* Querying in between must not disturb the counting */
+			if (t % 5000 == 0)
+				Assert.assertArrayEquals(expectedCounts, fabs.getTermActivationCounts());
+		}
+
+		Assert.assertArrayEquals(expectedCounts, fabs.getTermActivationCounts());
+	}
+
+	@Test
+	public void testExchange()
+	{
+		TermLinksSetting tls = createTermLinksSetting(0.1, 0.1);
+		int [][] termLinks = tls.termLinks;
+		boolean [] observedGenes = tls.observedGenes;
+
+		FixedAlphaBetaScore exchanged = new FixedAlphaBetaScore(new Random(1), termLinks, observedGenes);
+		FixedAlphaBetaScore switched = new FixedAlphaBetaScore(new Random(1), termLinks, observedGenes);
+		exchanged.setAlpha(0.1);
+		exchanged.setBeta(0.2);
+		switched.setAlpha(0.1);
+		switched.setBeta(0.2);
+
+		Random rnd = new Random(2);
+		for (int i = 0; i < 3; i++)
+		{
+			int t = rnd.nextInt(termLinks.length);
+			if (exchanged.isActive(t))
+				continue;
+			exchanged.switchState(t);
+			switched.switchState(t);
+		}
+
+		for (int i = 0; i < 1000; i++)
+		{
+			int [] active = exchanged.getActiveTerms();
+			int t1 = active[rnd.nextInt(active.length)];
+			int t2 = rnd.nextInt(termLinks.length);
+			if (exchanged.isActive(t2))
+				continue;
+
+			exchanged.exchange(t1, t2);
+			switched.switchState(t1);
+			switched.switchState(t2);
+
+			Assert.assertArrayEquals(switched.getActiveTerms(), exchanged.getActiveTerms());
+			Assert.assertEquals(switched.getScore(), exchanged.getScore(), 1e-10);
+		}
+	}
+
+	/**
+	 * Runs a simple chain and returns a copy of the activation counts.
+	 */
+	private static int [] runChain(FixedAlphaBetaScore fabs, Random rnd, int steps)
+	{
+		double score = fabs.getScore();
+		for (int t = 0; t < steps; t++)
+		{
+			long oldPossibilities = fabs.getNeighborhoodSize();
+			fabs.proposeNewState(rnd.nextLong());
+			double newScore = fabs.getScore();
+			long newPossibilities = fabs.getNeighborhoodSize();
+
+			double acceptProb = Math.exp(newScore - score)*(double)oldPossibilities/(double)newPossibilities;
+			if (rnd.nextDouble() >= acceptProb) fabs.undoProposal();
+			else score = newScore;
+
+			fabs.record();
+		}
+		return fabs.getTermActivationCounts().clone();
+	}
+
+	@Test
+	public void testReset()
+	{
+		TermLinksSetting tls = createTermLinksSetting(0.1, 0.1);
+		int [][] termLinks = tls.termLinks;
+		boolean [] observedGenes = tls.observedGenes;
+		boolean [] otherObservedGenes = new boolean[observedGenes.length];
+		for (int i = 0; i < otherObservedGenes.length; i += 3)
+			otherObservedGenes[i] = true;
+
+		Random rnd = new Random(1);
+		FixedAlphaBetaScore fresh = new FixedAlphaBetaScore(rnd, termLinks, observedGenes);
+		int [] expectedCounts = runChain(fresh, rnd, 10000);
+
+		/* Use the score for another chain first, then reset it */
+		rnd = new Random(2);
+		FixedAlphaBetaScore reused = new FixedAlphaBetaScore(rnd, termLinks, otherObservedGenes);
+		runChain(reused, rnd, 10000);
+
+		rnd = new Random(1);
+		reused.reset(rnd, observedGenes);
+		Assert.assertEquals(new FixedAlphaBetaScore(rnd, termLinks, observedGenes).getScore(), reused.getScore(), 1e-10);
+		Assert.assertArrayEquals(expectedCounts, runChain(reused, rnd, 10000));
+		Assert.assertEquals(fresh.getAvgN10(), reused.getAvgN10(), 1e-10);
+		Assert.assertArrayEquals(fresh.getAlphaDistribution(), reused.getAlphaDistribution(), 1e-10);
+	}
+}
@@ -8,15 +8,61 @@ import java.util.HashMap;
 import java.util.Random;
 
 import ontologizer.association.AssociationContainer;
+import ontologizer.enumeration.TermEnumerator;
 import ontologizer.internal.InternalOntology;
 import ontologizer.ontology.Ontology;
 import ontologizer.ontology.Term;
 import ontologizer.ontology.TermID;
 import ontologizer.statistics.None;
+import ontologizer.types.ByteString;
 import sonumina.collections.IntMapper;
 
 public class CalculationTestUtils
 {
+	/**
+	 * A simulation setting on the internal ontology together with the
+	 * term links of the population as used by the MGSA scores.
+	 */
+	public static class TermLinksSetting
+	{
+		public Ontology ontology;
+		public AssociationContainer assoc;
+		public SingleCalculationSetting scs;
+		public IntMapper<TermID> termMapper;
+		public IntMapper<ByteString> geneMapper;
+		public int [][] termLinks;
+		public boolean [] observedGenes;
+	}
+
+	/**
+	 * Creates a simulation setting on the internal ontology, in which
+	 * GO:0000010 and GO:0000004 are active.
+	 *
+	 * @param beta the false negative rate of the active terms.
+	 * @param alpha the false positive rate of the study set.
+	 * @return the setting.
+	 */
+	public static TermLinksSetting createTermLinksSetting(double beta, double alpha)
+	{
+		InternalOntology internalOntology = new InternalOntology();
+
+		HashMap<TermID,Double> wantedActiveTerms = new HashMap<TermID,Double>(); /* Terms that are active */
+		wantedActiveTerms.put(tid("GO:0000010"),beta);
+		wantedActiveTerms.put(tid("GO:0000004"),beta);
+
+		TermLinksSetting tls = new TermLinksSetting();
+		tls.assoc = internalOntology.assoc;
+		tls.ontology = internalOntology.graph;
+		tls.scs = SingleCalculationSetting.create(new Random(1), wantedActiveTerms, alpha, tls.ontology, tls.assoc);
+
+		TermEnumerator popEnumerator = tls.scs.pop.enumerateTerms(tls.ontology, tls.assoc);
+		tls.termMapper = IntMapper.create(popEnumerator.getAllAnnotatedTermsAsList());
+		tls.geneMapper = IntMapper.create(popEnumerator.getGenesAsList());
+		tls.termLinks = CalculationUtils.makeTermLinks(popEnumerator, tls.termMapper, tls.geneMapper);
+		tls.observedGenes = tls.geneMapper.getDense(tls.scs.study.getAllGeneNames());
+		return tls;
+	}
+
 	@SuppressWarnings("unchecked")
 	public static <T> T prop(EnrichedGOTermsResult result, String id)
 	{
@@ -0,0 +1,94 @@
+package ontologizer.calculation;
+
+import static ontologizer.calculation.CalculationTestUtils.performTestCalculation;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import ontologizer.ontology.TermID;
+
+public class EnrichedGOTermsTableStreamWriterTest
+{
+	@Test
+	public void testTSV() throws IOException
+	{
+		EnrichedGOTermsResult r = performTestCalculation(new ParentChildCalculation());
+		EnrichedGOTermsTableStreamWriter writer = new EnrichedGOTermsTableStreamWriter();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.writeTable(out, r);
+		String [] lines = out.toString().split("\r?\n");
+		assertEquals(12, lines.length);
+		assertEquals(EnrichedGOTermsTableWriter.propHeaderToString(r.iterator().next()), lines[0] + "\n");
+
+		AbstractGOTermProperties first = r.getGOTermProperties(new TermID("GO:0000004"));
+		assertEquals(EnrichedGOTermsTableWriter.propLineToString(r.getGO(), first, 500, 57), lines[1]);
+
+		/* Buffers are reused, so writing a second time must give the same output */
+		ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+		writer.writeTable(out2, r);
+		assertEquals(out.toString(), out2.toString());
+	}
+
+	@Test
+	public void testGzippedBinary() throws IOException
+	{
+		EnrichedGOTermsResult r = performTestCalculation(new TermForTermCalculation());
+		EnrichedGOTermsTableStreamWriter writer = new EnrichedGOTermsTableStreamWriter(EnrichedGOTermsTableStreamWriter.Format.BINARY, true);
+		assertEquals(".bin.gz", writer.getSuffix());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.writeTable(out, r);
+
+		DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())));
+		assertEquals(EnrichedGOTermsTableStreamWriter.BINARY_MAGIC, in.readInt());
+		assertEquals(EnrichedGOTermsTableStreamWriter.BINARY_VERSION, in.readInt());
+		assertEquals(500, in.readInt());
+		assertEquals(57, in.readInt());
+		int n = in.readInt();
+		assertEquals(11, n);
+
+		TermID [] terms = new TermID[n];
+		for (int i = 0; i < n; i++)
+			terms[i] = new TermID(in.readUTF());
+		assertEquals(new TermID("GO:0000004"), terms[0]);
+		for (int i = 0; i < n; i++)
+			assertEquals(r.getGOTermProperties(terms[i]).annotatedPopulationGenes, in.readInt());
+		for (int i = 0; i < n; i++)
+			assertEquals(r.getGOTermProperties(terms[i]).annotatedStudyGenes, in.readInt());
+		for (int i = 0; i < n; i++)
+			assertEquals(r.getGOTermProperties(terms[i]).p, in.readDouble(), 0);
+	}
+
+	@Test
+	public void testEmptyResult() throws IOException
+	{
+		EnrichedGOTermsResult full = performTestCalculation(new TermForTermCalculation());
+		EnrichedGOTermsResult r = new EnrichedGOTermsResult(full.getGO(), full.getAssociations(), full.getStudySet(), full.getPopulationGeneCount());
+		assertEquals(0, r.getSize());
+
+		EnrichedGOTermsTableStreamWriter writer = new EnrichedGOTermsTableStreamWriter(EnrichedGOTermsTableStreamWriter.Format.BINARY, true);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.writeTable(out, r);
+
+		DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())));
+		assertEquals(EnrichedGOTermsTableStreamWriter.BINARY_MAGIC, in.readInt());
+		assertEquals(EnrichedGOTermsTableStreamWriter.BINARY_VERSION, in.readInt());
+		assertEquals(500, in.readInt());
+		assertEquals(57, in.readInt());
+		assertEquals(0, in.readInt());
+		assertEquals(-1, in.read());
+
+		/* The tab-separated table is empty, but still a valid gzip stream */
+		writer = new EnrichedGOTermsTableStreamWriter(EnrichedGOTermsTableStreamWriter.Format.TSV, true);
+		out = new ByteArrayOutputStream();
+		writer.writeTable(out, r);
+		assertEquals(-1, new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).read());
+	}
+}
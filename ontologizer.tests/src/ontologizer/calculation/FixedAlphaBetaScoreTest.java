@@ -1,6 +1,7 @@
 package ontologizer.calculation;
 
 import static ontologizer.calculation.CalculationTestUtils.asList;
+import static ontologizer.calculation.CalculationTestUtils.createTermLinksSetting;
 import static ontologizer.ontology.TermID.tid;
 
 import java.util.HashMap;
@@ -10,7 +11,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import ontologizer.association.AssociationContainer;
+import ontologizer.calculation.CalculationTestUtils.TermLinksSetting;
 import ontologizer.calculation.b2g.FixedAlphaBetaScore;
+import ontologizer.calculation.util.XorShiftRandom;
 import ontologizer.enumeration.TermEnumerator;
 import ontologizer.internal.InternalOntology;
 import ontologizer.ontology.Ontology;
@@ -103,4 +106,25 @@ public class FixedAlphaBetaScoreTest
 		Assert.assertEquals(expectedMax, foundMax, 1e-10);
 	}
 
+	@Test
+	public void testWithSampledParameter()
+	{
+		TermLinksSetting tls = createTermLinksSetting(0.0, 0.0);
+		int [][] termLinks = tls.termLinks;
+		boolean [] observedGenes = tls.observedGenes;
+
+		/* The score that uses the precomputed logarithms must agree with the score of fixed parameters */
+		FixedAlphaBetaScore sampled = new FixedAlphaBetaScore(new XorShiftRandom(1), termLinks, observedGenes);
+		sampled.setMaxAlpha(0.5);
+		FixedAlphaBetaScore fixed = new FixedAlphaBetaScore(new XorShiftRandom(1), termLinks, observedGenes);
+
+		for (int i=0; i < 1000; i++)
+		{
+			sampled.proposeNewState();
+			fixed.setAlpha(sampled.getAlpha());
+			fixed.setBeta(sampled.getBeta());
+			fixed.setExpectedNumberOfTerms(sampled.getP() * termLinks.length);
+			Assert.assertEquals(fixed.score(sampled.getActiveTerms()), sampled.getScore(), 1e-8);
+		}
+	}
 }
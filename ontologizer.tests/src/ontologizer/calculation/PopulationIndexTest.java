@@ -0,0 +1,48 @@
+package ontologizer.calculation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ontologizer.association.AssociationContainer;
+import ontologizer.internal.InternalOntology;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.TermID;
+
+public class PopulationIndexTest
+{
+	@Test
+	public void testSharedIndex()
+	{
+		InternalOntology internalOntology = new InternalOntology();
+		AssociationContainer assoc = internalOntology.assoc;
+		Ontology ontology = internalOntology.graph;
+
+		HashMap<TermID,Double> wantedActiveTerms = new HashMap<TermID,Double>();
+		wantedActiveTerms.put(new TermID("GO:0000004"),0.0);
+		SingleCalculationSetting scs = SingleCalculationSetting.create(new Random(1), wantedActiveTerms, 0.00, ontology, assoc, null);
+
+		PopulationIndex index = PopulationIndex.get(ontology, assoc, scs.pop);
+		assertSame(index, PopulationIndex.get(ontology, assoc, scs.pop));
+		assertEquals(500, index.getNumberOfItems());
+		assertEquals(scs.pop.enumerateTerms(ontology, assoc).getTotalNumberOfAnnotatedTerms(), index.getNumberOfTerms());
+
+		for (int i = 0; i < index.getNumberOfTerms(); i++)
+		{
+			assertEquals(i, index.getTermIndex(index.termIds[i]));
+			for (int j = 1; j < index.term2Items[i].length; j++)
+				assertTrue(index.term2Items[i][j - 1] < index.term2Items[i][j]);
+		}
+		assertEquals(Integer.MAX_VALUE, index.getTermIndex(new TermID("GO:9999999")));
+
+		/* An altered population gets a new index */
+		scs.pop.resetCounterAndEnumerator();
+		assertNotSame(index, PopulationIndex.get(ontology, assoc, scs.pop));
+	}
+}
@@ -0,0 +1,60 @@
+package ontologizer.calculation;
+
+import static ontologizer.calculation.CalculationTestUtils.createTermLinksSetting;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import ontologizer.association.AssociationContainer;
+import ontologizer.calculation.CalculationTestUtils.TermLinksSetting;
+import ontologizer.ontology.Ontology;
+import ontologizer.set.StudySet;
+import ontologizer.statistics.Hypergeometric;
+import ontologizer.statistics.PValue;
+
+public class PrimitivePValueCalculationTest
+{
+	/**
+	 * Checks that the primitive p values match the p value objects for a
+	 * couple of random study sets.
+	 */
+	private void checkPrimitive(AbstractPValueCalculation calc, SingleCalculationSetting scs)
+	{
+		int m = calc.getNumberOfPValues();
+		double [] p = new double[m];
+		double [] pWithoutFlags = new double[m];
+		boolean [] ignoreAtMTC = new boolean[m];
+
+		for (int i = 0; i < 20; i++)
+		{
+			StudySet studySet = scs.pop.generateRandomStudySet(scs.study.getGeneCount());
+			PValue [] expected = calc.calculatePValues(studySet, null);
+			calc.calculatePValues(studySet, p, ignoreAtMTC);
+
+			/* The ignore flags are optional */
+			calc.calculatePValues(studySet, pWithoutFlags, null);
+
+			assertEquals(m, expected.length);
+			for (int j = 0; j < m; j++)
+			{
+				assertEquals(expected[j].p, p[j], 0);
+				assertEquals(expected[j].p, pWithoutFlags[j], 0);
+				assertEquals(expected[j].ignoreAtMTC, ignoreAtMTC[j]);
+			}
+		}
+	}
+
+	@Test
+	public void testPrimitivePValues()
+	{
+		TermLinksSetting tls = createTermLinksSetting(0.1, 0.1);
+		AssociationContainer assoc = tls.assoc;
+		Ontology ontology = tls.ontology;
+		SingleCalculationSetting scs = tls.scs;
+
+		Hypergeometric hyperg = new Hypergeometric();
+		checkPrimitive(new TermForTermPValueCalculation(ontology, assoc, scs.pop, scs.study, hyperg), scs);
+		checkPrimitive(new ParentChildUnionPValueCalculation(ontology, assoc, scs.pop, scs.study, hyperg), scs);
+		checkPrimitive(new ParentChildIntersectionPValueCalculation(ontology, assoc, scs.pop, scs.study, hyperg), scs);
+	}
+}
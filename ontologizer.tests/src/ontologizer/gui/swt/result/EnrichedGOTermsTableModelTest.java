@@ -0,0 +1,41 @@
+package ontologizer.gui.swt.result;
+
+import static ontologizer.calculation.CalculationTestUtils.performTestCalculation;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import ontologizer.calculation.AbstractGOTermProperties;
+import ontologizer.calculation.EnrichedGOTermsResult;
+import ontologizer.calculation.TermForTermCalculation;
+
+public class EnrichedGOTermsTableModelTest
+{
+	@Test
+	public void testRankOrder()
+	{
+		EnrichedGOTermsResult r = performTestCalculation(new TermForTermCalculation());
+		ArrayList<AbstractGOTermProperties> list = new ArrayList<AbstractGOTermProperties>();
+		for (AbstractGOTermProperties prop : r)
+			list.add(prop);
+		AbstractGOTermProperties [] props = list.toArray(new AbstractGOTermProperties[list.size()]);
+
+		EnrichedGOTermsTableModel model = new EnrichedGOTermsTableModel(r.getGO(), props);
+		int [] order = model.rankOrder();
+		assertEquals(props.length, order.length);
+
+		for (int i = 0; i < order.length; i++)
+		{
+			assertEquals(i + 1, model.getRank(order[i]));
+			if (i > 0)
+			{
+				AbstractGOTermProperties prev = props[order[i - 1]];
+				AbstractGOTermProperties cur = props[order[i]];
+				assertTrue(prev.p_adjusted < cur.p_adjusted || (prev.p_adjusted == cur.p_adjusted && prev.p <= cur.p));
+			}
+		}
+	}
+}
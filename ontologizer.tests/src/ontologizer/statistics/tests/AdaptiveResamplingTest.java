@@ -0,0 +1,175 @@
+package ontologizer.statistics.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ontologizer.statistics.AbstractResamplingTestCorrection;
+import ontologizer.statistics.IPValueCalculation;
+import ontologizer.statistics.IPValueCalculationProgress;
+import ontologizer.statistics.IResampling;
+import ontologizer.statistics.PValue;
+import ontologizer.statistics.WestfallYoungSingleStep;
+import ontologizer.statistics.WestfallYoungSingleStepApproximate;
+import ontologizer.statistics.WestfallYoungStepDown;
+
+public class AdaptiveResamplingTest
+{
+	/**
+	 * One clearly significant p value, the others are clearly not
+	 * significant. The adjusted p value of the second one depends on
+	 * the actual samples. Resampled p values are uniform.
+	 */
+	private static class ClearPValueCalculation implements IPValueCalculation
+	{
+		private static final int M = 20;
+
+		private int studySetSize;
+		private Random rnd;
+
+		public ClearPValueCalculation()
+		{
+			this(10);
+		}
+
+		public ClearPValueCalculation(int studySetSize)
+		{
+			this.studySetSize = studySetSize;
+			this.rnd = new Random(studySetSize);
+		}
+
+		public PValue[] calculateRawPValues(IPValueCalculationProgress progress)
+		{
+			PValue [] p = new PValue[M];
+			for (int i = 0; i < M; i++)
+			{
+				p[i] = new PValue();
+				p[i].p = i == 0 ? 1e-8 : (i == 1 ? 0.01 : 0.5 + i / (2.0 * M));
+			}
+			return p;
+		}
+
+		public PValue[] calculateRandomPValues(IPValueCalculationProgress progress)
+		{
+			PValue [] p = new PValue[M];
+			for (int i = 0; i < M; i++)
+			{
+				p[i] = new PValue();
+				p[i].p = rnd.nextDouble();
+			}
+			return p;
+		}
+
+		public int currentStudySetSize()
+		{
+			return studySetSize;
+		}
+
+		public int getNumberOfPValues()
+		{
+			return M;
+		}
+	}
+
+	private void checkAdaptive(AbstractResamplingTestCorrection mtc)
+	{
+		mtc.setNumberOfResamplingSteps(1000);
+
+		mtc.resetCache();
+		mtc.setAdaptiveThreshold(Double.NaN);
+		mtc.adjustPValues(new ClearPValueCalculation(), null);
+		assertEquals(1000, mtc.getNumberOfUsedResamplingSteps());
+
+		mtc.resetCache();
+		mtc.setAdaptiveThreshold(0.05);
+		PValue [] p = mtc.adjustPValues(new ClearPValueCalculation(), null);
+		int used = mtc.getNumberOfUsedResamplingSteps();
+		assertTrue(used < 1000);
+		assertEquals(0, used % 32);
+
+		assertTrue(p[0].p_adjusted < 0.05);
+		for (int i = 1; i < p.length; i++)
+			assertTrue(p[i].p_adjusted > 0.05);
+
+		mtc.setAdaptiveThreshold(Double.NaN);
+	}
+
+	@Test
+	public void testStepDown()
+	{
+		checkAdaptive(new WestfallYoungStepDown());
+	}
+
+	@Test
+	public void testSingleStep()
+	{
+		checkAdaptive(new WestfallYoungSingleStep());
+	}
+
+	@Test
+	public void testSingleStepApproximate()
+	{
+		checkAdaptive(new WestfallYoungSingleStepApproximate());
+	}
+
+	@Test
+	public void testSingleStepExtendsCache()
+	{
+		WestfallYoungSingleStep mtc = new WestfallYoungSingleStep();
+
+		/* Too few samples to settle the decisions */
+		mtc.setNumberOfResamplingSteps(64);
+		mtc.adjustPValues(new ClearPValueCalculation(), null);
+		assertEquals(64, mtc.getNumberOfUsedResamplingSteps());
+
+		/* The cached samples are extended until the decisions are settled */
+		mtc.setNumberOfResamplingSteps(1000);
+		mtc.setAdaptiveThreshold(0.05);
+		mtc.adjustPValues(new ClearPValueCalculation(), null);
+		int used = mtc.getNumberOfUsedResamplingSteps();
+		assertTrue(used > 64 && used < 1000);
+
+		/* Without the adaptive mode, the cached samples are extended to the full number */
+		mtc.setAdaptiveThreshold(Double.NaN);
+		mtc.adjustPValues(new ClearPValueCalculation(), null);
+		assertEquals(1000, mtc.getNumberOfUsedResamplingSteps());
+
+		/* Now, the cached samples suffice */
+		mtc.adjustPValues(new ClearPValueCalculation(), null);
+		assertEquals(1000, mtc.getNumberOfUsedResamplingSteps());
+	}
+
+	@Test
+	public void testSingleStepDoesNotExtendApproximateHits()
+	{
+		WestfallYoungSingleStep fresh = new WestfallYoungSingleStep();
+		fresh.setNumberOfResamplingSteps(1000);
+		fresh.setAdaptiveThreshold(0.05);
+		PValue [] expected = fresh.adjustPValues(new ClearPValueCalculation(11), null);
+
+		WestfallYoungSingleStep mtc = new WestfallYoungSingleStep();
+		mtc.setSizeTolerance(20);
+		mtc.setNumberOfResamplingSteps(64);
+		mtc.adjustPValues(new ClearPValueCalculation(10), null);
+
+		/* The samples of size 10 don't settle the decisions, so size 11 is sampled from scratch */
+		mtc.setNumberOfResamplingSteps(1000);
+		mtc.setAdaptiveThreshold(0.05);
+		PValue [] p = mtc.adjustPValues(new ClearPValueCalculation(11), null);
+		assertEquals(fresh.getNumberOfUsedResamplingSteps(), mtc.getNumberOfUsedResamplingSteps());
+		for (int i = 0; i < p.length; i++)
+			assertEquals(expected[i].p_adjusted, p[i].p_adjusted, 0);
+
+		/* Now there are samples made for size 11 */
+		mtc.adjustPValues(new ClearPValueCalculation(11), null);
+
+		/* The approximate hit counts as a miss, as new samples were made */
+		IResampling resampling = mtc;
+		assertEquals(1, resampling.getCacheHits());
+		assertEquals(0, resampling.getCacheApproximateHits());
+		assertEquals(2, resampling.getCacheMisses());
+	}
+}
@@ -0,0 +1,220 @@
+package ontologizer.statistics.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ontologizer.statistics.FDRBySteffen;
+import ontologizer.statistics.FDRBySteffenKernel;
+import ontologizer.statistics.IPValueCalculation;
+import ontologizer.statistics.IPValueCalculationProgress;
+import ontologizer.statistics.PValue;
+
+public class FDRBySteffenTest
+{
+	/**
+	 * Provides p values with many ties that are drawn from a seeded
+	 * source.
+	 */
+	private static class RandomPValueCalculation implements IPValueCalculation
+	{
+		private Random rnd;
+		private int m;
+
+		public RandomPValueCalculation(long seed, int m)
+		{
+			this.rnd = new Random(seed);
+			this.m = m;
+		}
+
+		private PValue [] draw()
+		{
+			PValue [] p = new PValue[m];
+			for (int i = 0; i < m; i++)
+			{
+				p[i] = new PValue();
+				p[i].p = rnd.nextInt(40) / 40.0;
+			}
+
+			/* The previous implementation reads beyond the resampled p values
+			 * if all of them are smaller than a raw p value, which a p value
+			 * of 1 in each resample prevents */
+			p[rnd.nextInt(m)].p = 1.0;
+			return p;
+		}
+
+		public PValue[] calculateRawPValues(IPValueCalculationProgress progress)
+		{
+			return draw();
+		}
+
+		public PValue[] calculateRandomPValues(IPValueCalculationProgress progress)
+		{
+			return draw();
+		}
+
+		public int currentStudySetSize()
+		{
+			return 0;
+		}
+
+		public int getNumberOfPValues()
+		{
+			return m;
+		}
+	}
+
+	/**
+	 * The previous implementation that keeps all sorted resampled p
+	 * values. The adjustment loop is taken unchanged from the previous
+	 * FDRBySteffen.adjustPValues().
+	 */
+	private static PValue [] adjust(IPValueCalculation pvalues, int numberOfResamplingSteps)
+	{
+		int i;
+
+		/* Calculate raw P-values  and sort them*/
+		PValue [] rawP = pvalues.calculateRawPValues(null);
+		Arrays.sort(rawP);
+
+		int m = rawP.length;
+
+		/* this will hold the sorted resampled p-values*/
+		double [][] pValues = new double[numberOfResamplingSteps][m];
+
+		/* create them */
+		for (int b=0; b < numberOfResamplingSteps; b++)
+		{
+			/* Compute raw p values of "permuted" data */
+			PValue [] randomRawP = pvalues.calculateRandomPValues(null);
+			Arrays.sort(randomRawP);
+
+			assert(randomRawP.length == m);
+
+			for (i=0;i<m;i++)
+				pValues[b][i] = randomRawP[i].p;
+		}
+
+		/* For every P-value determine the adjusted P-value */
+
+		// we go along the sorted p-values
+		int lastObservedRejections = 0;
+		double lastPValue = rawP[0].p;
+
+		/* This will hold the number of rejected tests in the samples at the current level.
+		 * We assume that sampled p-values are sorted! */
+		int [] lastSampleRejects = new int[numberOfResamplingSteps];
+		int lastTotalSampleRejects = 0;
+		// initializing
+		for (int b=0; b < numberOfResamplingSteps; b++) {
+			lastSampleRejects[b] = 0;
+			while (pValues[b][lastSampleRejects[b]] < lastPValue) {
+				lastSampleRejects[b]++;
+			}
+			lastTotalSampleRejects += lastSampleRejects[b];
+		}
+
+		double lastFDR = 0.0;
+		for (int b=0; b < numberOfResamplingSteps; b++) {
+			lastFDR +=
+				((double)lastSampleRejects[b])/(lastSampleRejects[b] + lastObservedRejections - ((double)lastTotalSampleRejects)/numberOfResamplingSteps);
+		}
+		if (Double.isNaN(lastFDR)) lastFDR = 0;
+		else lastFDR /= numberOfResamplingSteps;
+
+
+		i=0;
+
+		while (i < m) // we increment i++ in the loop
+		{
+			// we take old values until something happens
+			int lc = 0;
+			while (i < m && rawP[i].p <= lastPValue)
+			{
+				rawP[i].p_adjusted = lastFDR;
+				lc++;
+				i++;
+			}
+
+			// we need an emergency exit...
+			if (i == m) break;
+
+			// update p-value
+			lastPValue = rawP[i].p;
+
+			// update counts
+			lastObservedRejections += lc;
+			lastTotalSampleRejects = 0;
+			for (int b=0; b < numberOfResamplingSteps; b++) {
+				while (pValues[b][lastSampleRejects[b]] < lastPValue) {
+					lastSampleRejects[b]++;
+				}
+				lastTotalSampleRejects += lastSampleRejects[b];
+			}
+
+			// update FDR
+			lastFDR = 0.0;
+			for (int b=0; b < numberOfResamplingSteps; b++) {
+				lastFDR +=
+					(double)lastSampleRejects[b]/(lastSampleRejects[b] + lastObservedRejections - (double)lastTotalSampleRejects/numberOfResamplingSteps);
+			}
+			if (Double.isNaN(lastFDR)) lastFDR = 0;
+			else lastFDR /= numberOfResamplingSteps;
+		}
+
+		return rawP;
+	}
+
+	@Test
+	public void testAgainstStoredResamples()
+	{
+		for (int m : new int[]{1, 5, 100, 500})
+		{
+			PValue [] expected = adjust(new RandomPValueCalculation(m, m), 100);
+
+			FDRBySteffen fdr = new FDRBySteffen();
+			fdr.setNumberOfResamplingSteps(100);
+			PValue [] actual = fdr.adjustPValues(new RandomPValueCalculation(m, m), null);
+
+			assertEquals(expected.length, actual.length);
+			for (int i = 0; i < expected.length; i++)
+			{
+				assertEquals(expected[i].p, actual[i].p, 0);
+				assertEquals(expected[i].p_adjusted, actual[i].p_adjusted, 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testOrderOfResamples()
+	{
+		RandomPValueCalculation calc = new RandomPValueCalculation(1, 200);
+		PValue [] rawP = calc.calculateRawPValues(null);
+
+		FDRBySteffenKernel kernel = new FDRBySteffenKernel(rawP);
+		FDRBySteffenKernel reversedKernel = new FDRBySteffenKernel(rawP);
+
+		int [][] rejections = new int[50][];
+		for (int b = 0; b < rejections.length; b++)
+		{
+			rejections[b] = kernel.rejections(calc.calculateRandomPValues(null));
+			kernel.add(rejections[b]);
+		}
+		Collections.reverse(Arrays.asList(rejections));
+		for (int [] r : rejections)
+			reversedKernel.add(r);
+
+		kernel.adjust(rawP);
+		double [] expected = new double[rawP.length];
+		for (int i = 0; i < rawP.length; i++)
+			expected[i] = rawP[i].p_adjusted;
+
+		reversedKernel.adjust(rawP);
+		for (int i = 0; i < rawP.length; i++)
+			assertEquals(expected[i], rawP[i].p_adjusted, 0);
+	}
+}
@@ -40,4 +40,50 @@ public class HypergeometricTest
 		// drawing more white than available in total
 		assertTrue(hyper.phyper(10,8,5,12,false) == 0);
 	}
+
+	/**
+	 * The direct summation as done before the upper tails were kept.
+	 */
+	private double phypergeometricDirect(int n, double p, int k, int r)
+	{
+		if (k >= n) return 1.0;
+		if (r < 1) return 1.0;
+
+		int np = (int)Math.round(n * p);
+		int nq = (int)Math.round(n * (1.0 - p));
+		double log_n_choose_k = hyper.lNchooseK(n, k);
+		int top = Math.min(k, np);
+		double lfoo = hyper.lNchooseK(np, top) + hyper.lNchooseK(nq, k - top);
+		double sum = 0.0;
+		for (int i = top; i >= r; --i)
+		{
+			sum += Math.exp(lfoo - log_n_choose_k);
+			if (i > r)
+				lfoo = lfoo + Math.log((double)i / (double)(np - i + 1)) + Math.log((double)(nq - k + i) / (double)(k - i + 1));
+		}
+		return sum;
+	}
+
+	@Test
+	public void testPhypergeometricUpperTails()
+	{
+		int [] populations = new int[]{10, 100, 1526, 6000};
+		for (int n : populations)
+		{
+			for (int k : new int[]{1, 3, 9, 50, 190})
+			{
+				for (int np = 0; np <= n; np += 1 + n / 40)
+				{
+					double p = (double)np / n;
+					for (int r = 0; r <= Math.min(k, np) + 1; r++)
+					{
+						/* Query twice, the second one is served by the kept tail */
+						assertEquals(phypergeometricDirect(n, p, k, r), hyper.phypergeometric(n, p, k, r), 0);
+						assertEquals(phypergeometricDirect(n, p, k, r), hyper.phypergeometric(n, p, k, r), 0);
+					}
+				}
+			}
+		}
+		assertEquals(hyper.phyper(1,1526,4,190,false), hyper.phypergeometric(1526, 4 / 1526.0, 190, 2), 1e-10);
+	}
 }
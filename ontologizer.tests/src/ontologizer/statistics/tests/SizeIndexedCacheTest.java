@@ -0,0 +1,60 @@
+package ontologizer.statistics.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import ontologizer.statistics.SizeIndexedCache;
+
+public class SizeIndexedCacheTest
+{
+	@Test
+	public void testExact()
+	{
+		SizeIndexedCache<String> cache = new SizeIndexedCache<String>(0);
+		cache.put(100, "100");
+
+		assertEquals("100", cache.get(100));
+		assertNull(cache.get(101));
+		assertEquals(1, cache.getHits());
+		assertEquals(0, cache.getApproximateHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void testTolerance()
+	{
+		SizeIndexedCache<String> cache = new SizeIndexedCache<String>(10);
+		cache.put(100, "100");
+		cache.put(120, "120");
+
+		assertEquals("100", cache.get(100));
+		assertEquals("100", cache.get(105));
+		assertEquals("100", cache.get(109));
+		assertEquals("120", cache.get(110));
+		assertEquals("120", cache.get(131));
+		assertNull(cache.get(133));
+		assertNull(cache.get(90));
+		assertEquals("100", cache.get(91));
+
+		assertEquals(1, cache.getHits());
+		assertEquals(5, cache.getApproximateHits());
+		assertEquals(2, cache.getMisses());
+
+		/* An exact entry is preferred */
+		cache.put(110, "110");
+		assertEquals("110", cache.get(110));
+		assertEquals(2, cache.getHits());
+
+		/* A rejected approximate hit counts as a miss */
+		assertEquals("110", cache.get(112));
+		cache.rejectApproximateHit();
+		assertEquals(5, cache.getApproximateHits());
+		assertEquals(3, cache.getMisses());
+
+		cache.clear();
+		assertNull(cache.get(110));
+		assertEquals(4, cache.getMisses());
+	}
+}
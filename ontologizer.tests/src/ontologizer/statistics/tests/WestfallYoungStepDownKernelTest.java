@@ -0,0 +1,94 @@
+package ontologizer.statistics.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import ontologizer.statistics.WestfallYoungStepDownKernel;
+
+public class WestfallYoungStepDownKernelTest
+{
+	/**
+	 * The straightforward implementation of the step-down procedure, one
+	 * resample after another.
+	 */
+	private static double [] adjust(double [] rawP, double [][] randomRawP)
+	{
+		int m = rawP.length;
+
+		/* Stable selection sort of the indices */
+		int [] r = new int[m];
+		boolean [] used = new boolean[m];
+		for (int i = 0; i < m; i++)
+		{
+			int best = -1;
+			for (int j = 0; j < m; j++)
+			{
+				if (!used[j] && (best == -1 || rawP[j] < rawP[best]))
+					best = j;
+			}
+			used[best] = true;
+			r[i] = best;
+		}
+
+		int [] count = new int[m];
+		double [] q = new double[m];
+		for (double [] random : randomRawP)
+		{
+			q[m-1] = random[r[m-1]];
+			for (int i = m - 2; i >= 0; i--)
+				q[i] = Math.min(q[i+1], random[r[i]]);
+			for (int i = 0; i < m; i++)
+			{
+				if (q[i] <= rawP[r[i]])
+					count[i]++;
+			}
+		}
+
+		int c = count[0];
+		for (int i = 1; i < m; i++)
+			c = count[i] = Math.max(1, Math.max(c, count[i]));
+
+		double [] adjusted = new double[m];
+		for (int i = 0; i < m; i++)
+			adjusted[r[i]] = (double)count[i] / randomRawP.length;
+		return adjusted;
+	}
+
+	private static double [] draw(Random rnd, int m)
+	{
+		double [] p = new double[m];
+		for (int i = 0; i < m; i++)
+		{
+			/* Coarse values, so ties are common */
+			p[i] = rnd.nextInt(50) / 50.0;
+		}
+		return p;
+	}
+
+	@Test
+	public void testAgainstReference()
+	{
+		Random rnd = new Random(1);
+		int [] resamples = new int[]{1, 15, 16, 17, 100};
+
+		for (int m : new int[]{1, 2, 31, 200})
+		{
+			for (int n : resamples)
+			{
+				double [] rawP = draw(rnd, m);
+				double [][] randomRawP = new double[n][];
+				WestfallYoungStepDownKernel kernel = new WestfallYoungStepDownKernel(rawP);
+				for (int b = 0; b < n; b++)
+				{
+					randomRawP[b] = draw(rnd, m);
+					kernel.add(randomRawP[b]);
+				}
+
+				assertArrayEquals(adjust(rawP, randomRawP), kernel.getAdjustedPValues(), 0);
+			}
+		}
+	}
+}
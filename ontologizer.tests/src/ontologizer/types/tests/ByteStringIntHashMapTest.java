@@ -0,0 +1,93 @@
+package ontologizer.types.tests;
+
+import static ontologizer.types.ByteString.b;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import ontologizer.types.ByteString;
+import ontologizer.types.ByteStringIntHashMap;
+import sonumina.collections.ObjectIntHashMap.ObjectIntProcedure;
+
+public class ByteStringIntHashMapTest
+{
+	@Test
+	public void testPutAndGet()
+	{
+		ByteStringIntHashMap map = new ByteStringIntHashMap();
+		map.put(b("CDC28"), 1);
+		map.put(b("ACT1"), 2);
+		map.put(b(""), 3);
+		map.put(b("CDC28"), 4);
+
+		assertEquals(3, map.size());
+		assertEquals(4, map.get(b("CDC28")));
+		assertEquals(2, map.get(b("ACT1")));
+		assertEquals(3, map.get(b("")));
+		assertEquals(ByteStringIntHashMap.EMPTY_VALUE, map.get(b("ACT")));
+		assertEquals(-1, map.getIfAbsent(b("ACT11"), -1));
+		assertTrue(map.containsKey(b("ACT1")));
+		assertFalse(map.containsKey(b("act1")));
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(b("ACT1")));
+	}
+
+	@Test
+	public void testGetIfAbsentPut()
+	{
+		ByteStringIntHashMap map = new ByteStringIntHashMap();
+		assertEquals(1, map.getIfAbsentPut(b("CDC28"), 1));
+		assertEquals(1, map.getIfAbsentPut(b("CDC28"), 2));
+		assertEquals(3, map.getIfAbsentPut(b("ACT1"), 3));
+		assertEquals(2, map.size());
+		assertEquals(1, map.get(b("CDC28")));
+	}
+
+	@Test
+	public void testSlices()
+	{
+		ByteStringIntHashMap map = new ByteStringIntHashMap();
+		byte [] line = "SGD\tS000000364\tCDC28\t\tGO:0000082".getBytes();
+
+		map.put(line, 4, 10, 1);
+		assertEquals(1, map.get(b("S000000364")));
+		assertEquals(1, map.getIfAbsent(line, 4, 10, -1));
+		assertEquals(-1, map.getIfAbsent(line, 15, 5, -1));
+		assertTrue(map.containsKey(line, 4, 10));
+		assertFalse(map.containsKey(line, 4, 9));
+
+		map.put(b("CDC28"), 2);
+		assertEquals(2, map.getIfAbsent(line, 15, 5, -1));
+		assertEquals(b("CDC28").hashCode(), ByteString.hashCode(line, 15, 5));
+	}
+
+	@Test
+	public void testMany()
+	{
+		ByteStringIntHashMap map = new ByteStringIntHashMap(1);
+		for (int i = 0; i < 100000; i++)
+			map.put(b("S" + i), i);
+		assertEquals(100000, map.size());
+		for (int i = 0; i < 100000; i++)
+			assertEquals(i, map.getIfAbsent(b("S" + i), -1));
+		assertEquals(-1, map.getIfAbsent(b("S100000"), -1));
+
+		final HashMap<ByteString,Integer> all = new HashMap<ByteString,Integer>();
+		map.forEachKeyValue(new ObjectIntProcedure<ByteString>()
+		{
+			@Override
+			public void keyValue(ByteString key, int value)
+			{
+				all.put(key, value);
+			}
+		});
+		assertEquals(100000, all.size());
+		assertEquals(12345, (int)all.get(b("S12345")));
+	}
+}
@@ -0,0 +1,51 @@
+package ontologizer.types.tests;
+
+import static ontologizer.types.ByteString.b;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import ontologizer.types.ByteString;
+import ontologizer.types.ByteStringPool;
+
+public class ByteStringPoolTest
+{
+	@Test
+	public void testInternSlices()
+	{
+		ByteStringPool pool = new ByteStringPool();
+		byte [] line = "IDA\tP\tIDA\tP".getBytes();
+
+		ByteString ida = pool.intern(line, 0, 3);
+		assertEquals(b("IDA"), ida);
+		assertSame(ida, pool.intern(line, 6, 9));
+		ByteString p = pool.intern(line, 4, 5);
+		assertEquals(b("P"), p);
+		assertSame(p, pool.intern(line, 10, 11));
+
+		assertEquals(2, pool.size());
+		assertEquals(4, pool.getNumberOfRequests());
+	}
+
+	@Test
+	public void testInternInstances()
+	{
+		ByteStringPool pool = new ByteStringPool();
+		ByteString first = b("CDC28");
+		ByteString second = b("CDC28");
+		assertNotSame(first, second);
+
+		assertSame(first, pool.intern(first));
+		assertSame(first, pool.intern(second));
+		assertSame(first, pool.intern("xCDC28".getBytes(), 1, 6));
+		assertEquals(1, pool.size());
+		assertEquals(3, pool.getNumberOfRequests());
+
+		/* Interning the unique instance again doesn't save anything */
+		long saved = pool.getSavedBytes();
+		pool.intern(first);
+		assertEquals(saved, pool.getSavedBytes());
+	}
+}
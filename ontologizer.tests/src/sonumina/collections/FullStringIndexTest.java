@@ -42,4 +42,41 @@ public class FullStringIndexTest
 
 		assertEquals(0, size(fsi.contains("A")));
 	}
+
+	@Test
+	public void testLongQueries()
+	{
+		FullStringIndex<Integer> fsi = new FullStringIndex<Integer>();
+		fsi.add("Mitochondrial membrane", 1);
+		fsi.add("GO:0031966", 1);
+		fsi.add("Nuclear membrane", 2);
+		fsi.add("GO:0031965", 2);
+		fsi.add("membrane", 3);
+		fsi.add("Nucleus", 4);
+
+		assertEquals(3, size(fsi.contains("membrane")));
+		assertEquals(2, size(fsi.contains("nuc")));
+		assertEquals(2, size(fsi.contains("nucl")));
+		assertEquals(1, size(fsi.contains("nucleus")));
+		assertEquals(0, size(fsi.contains("nucleusx")));
+		assertEquals(2, size(fsi.contains("0031")));
+		assertEquals(1, size(fsi.contains("31966")));
+		assertEquals(1, size(fsi.contains("go:0031966")));
+		assertEquals(6, size(fsi.contains("")));
+
+		/* The query is refined character by character */
+		assertEquals(3, size(fsi.contains("ane")));
+		assertEquals(3, size(fsi.contains("rane")));
+		assertEquals(1, size(fsi.contains("r membrane")));
+		assertEquals(1, size(fsi.contains("ar membrane")));
+		assertEquals(0, size(fsi.contains("ar membranes")));
+
+		Iterator<Integer> iter = fsi.contains("ial mem").iterator();
+		assertEquals(1, (int)iter.next());
+
+		/* Adding a string invalidates the previous result */
+		assertEquals(1, size(fsi.contains("nucleus")));
+		fsi.add("Nucleus envelope", 5);
+		assertEquals(2, size(fsi.contains("nucleus")));
+	}
 }
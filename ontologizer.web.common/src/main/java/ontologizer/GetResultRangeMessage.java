@@ -0,0 +1,28 @@
+package ontologizer;
+
+import org.teavm.jso.JSProperty;
+
+/**
+ * Message to request a range of the results, ordered by rank. Optionally,
+ * only results whose id or name contain a given filter string are considered.
+ */
+public abstract class GetResultRangeMessage extends ReplyableWorkerMessage<ResultRange>
+{
+	@JSProperty
+	public abstract void setOffset(int offset);
+
+	@JSProperty
+	public abstract int getOffset();
+
+	@JSProperty
+	public abstract void setLimit(int limit);
+
+	@JSProperty
+	public abstract int getLimit();
+
+	@JSProperty
+	public abstract void setFilter(String filter);
+
+	@JSProperty
+	public abstract String getFilter();
+}
@@ -0,0 +1,52 @@
+package ontologizer;
+
+import org.teavm.jso.JSBody;
+import org.teavm.jso.JSObject;
+import org.teavm.jso.JSProperty;
+import org.teavm.jso.core.JSArray;
+import org.teavm.jso.core.JSString;
+import org.teavm.jso.typedarrays.Float64Array;
+
+/**
+ * A range of results in columnar form. The i-th entry of each column
+ * belongs to the result of rank offset + i among all results that passed
+ * the filter.
+ */
+public abstract class ResultRange implements JSObject
+{
+	/**
+	 * @return the total number of results that passed the filter.
+	 */
+	@JSProperty
+	public abstract int getTotal();
+
+	@JSProperty
+	public abstract void setTotal(int total);
+
+	@JSProperty
+	public abstract int getOffset();
+
+	@JSProperty
+	public abstract void setOffset(int offset);
+
+	@JSProperty
+	public abstract JSArray<JSString> getIDs();
+
+	@JSProperty
+	public abstract void setIDs(JSArray<JSString> ids);
+
+	@JSProperty
+	public abstract JSArray<JSString> getNames();
+
+	@JSProperty
+	public abstract void setNames(JSArray<JSString> names);
+
+	@JSProperty
+	public abstract Float64Array getAdjP();
+
+	@JSProperty
+	public abstract void setAdjP(Float64Array adjP);
+
+	@JSBody(script="return {}", params = {})
+	public static native ResultRange createResultRange();
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 
 import org.teavm.jso.dom.events.EventListener;
 
+import ontologizer.association.AnnotationBundle;
 import ontologizer.association.AssociationContainer;
 import ontologizer.association.AssociationParser;
 import ontologizer.association.IAssociationParserProgress;
@@ -146,7 +147,50 @@ public class DatafilesLoader
 		}
 	}
 
+	/**
+	 * Parse the given input as annotation bundle.
+	 *
+	 * @param input the input to be parsed
+	 * @return true if successful, otherwise false
+	 */
+	private boolean parseBundle(ByteArrayParserInput input)
+	{
+		try
+		{
+			AnnotationBundle bundle = AnnotationBundle.read(input.inputStream());
+			ontology = bundle.getOntology();
+			annotation = bundle.getAssociations();
+			return true;
+		} catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		return false;
+	}
+
+	/**
+	 * Load the data. The pre-indexed bundle of the association file is tried
+	 * first. Only if it is not available, the obo and association files are
+	 * loaded and parsed.
+	 */
 	public void load(Runnable done, final DownloadProgress downloadProgress, final OBOProgress oboProgess, final AssociationProgess associationProgess)
+	{
+		final String bundleName = AnnotationBundle.getBundleName(associationFilename);
+		final ArrayBufferHttpRequest bundleRequest = ArrayBufferHttpRequest.create("GET", bundleName);
+		bundleRequest.addEventListener("progress", new ProgressForwarder(downloadProgress, bundleName));
+		bundleRequest.onComplete(() ->
+		{
+			if (bundleRequest.getStatus() == 200 && parseBundle(new ByteArrayParserInput(bundleRequest.getResponseBytes())))
+			{
+				done.run();
+				return;
+			}
+			loadDatafiles(done, downloadProgress, oboProgess, associationProgess);
+		});
+		bundleRequest.send();
+	}
+
+	private void loadDatafiles(Runnable done, final DownloadProgress downloadProgress, final OBOProgress oboProgess, final AssociationProgess associationProgess)
 	{
 		/* Load obo file */
 		final String oboName = "go-basic.obo.gz";
@@ -3,21 +3,25 @@ package ontologizer;
 import static ontologizer.ProgressMessage.createProgressMessage;
 import static ontologizer.WorkerMessage.createWorkerMessage;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.logging.Logger;
 
 import org.teavm.jso.core.JSArray;
 import org.teavm.jso.core.JSNumber;
 import org.teavm.jso.core.JSString;
+import org.teavm.jso.typedarrays.Float64Array;
 
 import ontologizer.association.AssociationContainer;
+import ontologizer.association.ItemNameIndex;
 import ontologizer.calculation.AbstractGOTermProperties;
 import ontologizer.calculation.EnrichedGOTermsResult;
 import ontologizer.calculation.ICalculation;
 import ontologizer.calculation.ICalculationProgress;
 import ontologizer.calculation.IProgressFeedback;
+import ontologizer.calculation.PopulationIndex;
 import ontologizer.calculation.TermForTermCalculation;
 import ontologizer.calculation.b2g.Bayes2GOCalculation;
 import ontologizer.calculation.b2g.Bayes2GOEnrichedGOTermsResult;
@@ -36,12 +40,34 @@ public class OntologizerWorkerClient
 {
 	private static Logger logger = Logger.getLogger(OntologizerWorkerClient.class.getName());
 
+	/** The maximum number of suggestions that are returned for an auto completion request */
+	private static final int MAX_AUTO_COMPLETE_RESULTS = 100;
+
 	public static DatafilesLoader loader;
 	public static Ontology ontology;
 	public static AssociationContainer associations;
+	public static ItemNameIndex itemNameIndex;
+
+	/**
+	 * The population, i.e., all annotated items. It is created once after the
+	 * data has been loaded, so its term enumeration and index are shared by
+	 * all subsequent calculations.
+	 */
+	public static PopulationSet population;
 	public static EnrichedGOTermsResult result;
 	public static AbstractGOTermProperties [] props;
 
+	/** The ids and names of the terms of props, converted once per result */
+	private static String [] propIDs;
+	private static String [] propNames;
+
+	/** Lower case variants of id and name used for filtering, created lazily */
+	private static String [] propFilterStrings;
+
+	/** The last filter and the positions of the props that passed it */
+	private static String lastFilter;
+	private static int [] lastFilterPositions;
+
 	public static ICalculation [] supportedCalculations;
 
 	public static void main(String[] args)
@@ -73,6 +99,11 @@ public class OntologizerWorkerClient
 			{
 				ontology = loader.getOntology();
 				associations = loader.getAnnotation();
+				itemNameIndex = new ItemNameIndex(associations.getMapping());
+
+				population = new PopulationSet();
+				population.addGenes(associations.getAllAnnotatedGenes());
+				PopulationIndex.get(ontology, associations, population);
 
 				createWorkerMessage(HideProgressMessage.class).post(Worker.current());
 			},
@@ -114,9 +145,13 @@ public class OntologizerWorkerClient
 				return;
 			}
 
+			if (population == null)
+			{
+				/* Data is not loaded yet */
+				return;
+			}
+
 			ICalculation calculation = supportedCalculations[om.getCalculationType()];
-			PopulationSet population = new PopulationSet();
-			population.addGenes(associations.getAllAnnotatedGenes());
 			StudySet study = new StudySet();
 			for (String s : om.getItems())
 				study.addGene(new ByteString(s), "");
@@ -162,6 +197,17 @@ public class OntologizerWorkerClient
 				props[i++] = p;
 			Arrays.sort(props, Comparator.comparingDouble(p -> p.p * orderMult));
 
+			propIDs = new String[props.length];
+			propNames = new String[props.length];
+			for (i = 0; i < props.length; i++)
+			{
+				propIDs[i] = props[i].term.toString();
+				propNames[i] = ontology.getTerm(props[i].term).getName().toString();
+			}
+			propFilterStrings = null;
+			lastFilter = null;
+			lastFilterPositions = null;
+
 			createProgressMessage().withTitle("Ontologizing").withCurrent(3).withMax(3).post(Worker.current());
 
 			Worker.current().postSimpleMessage(HideProgressMessage.class);
@@ -178,41 +224,107 @@ public class OntologizerWorkerClient
 		Worker.current().listenMessage2(GetResultMessage.class, gm ->
 		{
 			ResultEntry re = ResultEntry.createResultEntry();
-			AbstractGOTermProperties prop = props[gm.getRank()];
-			/* FIXME: Avoid the useless conversions */
-			re.setName(ontology.getTerm(prop.term).getName().toString());
-			re.setID(prop.term.toString());
-			re.setAdjP(prop.p_adjusted);
+			int rank = gm.getRank();
+			re.setName(propNames[rank]);
+			re.setID(propIDs[rank]);
+			re.setAdjP(props[rank].p_adjusted);
 			return re;
 		});
 
+		Worker.current().listenMessage2(GetResultRangeMessage.class, grm ->
+		{
+			ResultRange rr = ResultRange.createResultRange();
+			int [] positions = filterResults(grm.getFilter());
+			int offset = Math.max(0, Math.min(grm.getOffset(), positions.length));
+			int length = Math.max(0, Math.min(grm.getLimit(), positions.length - offset));
+
+			JSArray<JSString> ids = JSArray.create(length);
+			JSArray<JSString> names = JSArray.create(length);
+			Float64Array adjP = Float64Array.create(length);
+			for (int i = 0; i < length; i++)
+			{
+				int pos = positions[offset + i];
+				ids.set(i, JSString.valueOf(propIDs[pos]));
+				names.set(i, JSString.valueOf(propNames[pos]));
+				adjP.set(i, props[pos].p_adjusted);
+			}
+
+			rr.setTotal(positions.length);
+			rr.setOffset(offset);
+			rr.setIDs(ids);
+			rr.setNames(names);
+			rr.setAdjP(adjP);
+			return rr;
+		});
+
 		Worker.current().listenMessage2(AutoCompleteMessage.class, acm -> {
 			AutoCompleteResults acr = Utils.createObject();
-			ArrayList<String> resultList = new ArrayList<>();
+			List<ByteString> resultList = Collections.emptyList();
 
-			if (associations != null)
+			if (itemNameIndex != null)
 			{
-				String prefix = acm.getPrefix();
-				for (ByteString item : associations.getAllAnnotatedGenes())
-				{
-					if (item.startsWithIgnoreCase(prefix))
-					{
-						resultList.add(item.toString());
-					}
-				}
+				/* Results are already sorted */
+				resultList = itemNameIndex.findByPrefix(acm.getPrefix(), MAX_AUTO_COMPLETE_RESULTS);
 			}
 			JSArray<JSString> results = JSArray.create(resultList.size());
-			if (resultList.size() > 0)
+			for (int i=0; i < resultList.size(); i++)
 			{
-				for (int i=0; i < resultList.size(); i++)
-				{
-					results.set(i, JSString.valueOf(resultList.get(i)));
-				}
-				results.sort();
+				results.set(i, JSString.valueOf(resultList.get(i).toString()));
 			}
 
 			acr.setResults(results);
 			return acr;
 		});
 	}
+
+	/**
+	 * Determine the positions of the results whose id or name contains the
+	 * given filter string, ignoring the case. If the filter extends the
+	 * filter of the previous call, only the previous positions are checked.
+	 *
+	 * @param filter the filter, may be null or empty.
+	 * @return the positions in ascending order.
+	 */
+	private static int [] filterResults(String filter)
+	{
+		if (props == null)
+			return new int[0];
+
+		if (filter == null || filter.length() == 0)
+		{
+			int [] positions = new int[props.length];
+			for (int i = 0; i < positions.length; i++)
+				positions[i] = i;
+			return positions;
+		}
+
+		filter = filter.toLowerCase();
+		if (filter.equals(lastFilter))
+			return lastFilterPositions;
+
+		if (propFilterStrings == null)
+		{
+			propFilterStrings = new String[props.length];
+			for (int i = 0; i < props.length; i++)
+				propFilterStrings[i] = (propIDs[i] + " " + propNames[i]).toLowerCase();
+		}
+
+		int [] positions = new int[props.length];
+		int n = 0;
+		if (lastFilter != null && filter.contains(lastFilter))
+		{
+			for (int pos : lastFilterPositions)
+				if (propFilterStrings[pos].contains(filter))
+					positions[n++] = pos;
+		} else
+		{
+			for (int pos = 0; pos < props.length; pos++)
+				if (propFilterStrings[pos].contains(filter))
+					positions[n++] = pos;
+		}
+
+		lastFilter = filter;
+		lastFilterPositions = Arrays.copyOf(positions, n);
+		return lastFilterPositions;
+	}
 }
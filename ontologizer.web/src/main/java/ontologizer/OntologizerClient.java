@@ -9,7 +9,6 @@ import java.util.TreeMap;
 
 import org.teavm.jso.browser.Window;
 import org.teavm.jso.core.JSArray;
-import org.teavm.jso.core.JSNumber;
 import org.teavm.jso.core.JSString;
 import org.teavm.jso.dom.html.HTMLBodyElement;
 import org.teavm.jso.dom.html.HTMLButtonElement;
@@ -143,24 +142,21 @@ public class OntologizerClient
 
 		worker.listenMessage(OntologizeDoneMessage.class, (OntologizeDoneMessage odm) ->
 		{
-			GetNumberOfResultsMessage rnrm = createWorkerMessage(GetNumberOfResultsMessage.class);
-			worker.postMessage(GetNumberOfResultsMessage.class, rnrm, (JSNumber num) ->
+			GetResultRangeMessage rrm = createWorkerMessage(GetResultRangeMessage.class);
+			rrm.setOffset(0);
+			rrm.setLimit(30);
+			worker.postMessage(GetResultRangeMessage.class, rrm, (ResultRange range) ->
 			{
-				int numberOfTerms = num.intValue();
 				resultsBody.clear();
-				for (int i=0; i < Math.min(30, numberOfTerms); i++)
+				for (int i=0; i < range.getIDs().getLength(); i++)
 				{
-					GetResultMessage rm = createWorkerMessage(GetResultMessage.class);
-					rm.setRank(i);
-					worker.postMessage(GetResultMessage.class, rm, result ->
+					final int row = i;
+					document.createElement("tr", tr ->
 					{
-						document.createElement("tr", tr ->
-						{
-							createCell(tr, result.getID());
-							createCell(tr, result.getName());
-							createCell(tr, result.getAdjP() + "");
-							resultsBody.appendChild(tr);
-						});
+						createCell(tr, range.getIDs().get(row).stringValue());
+						createCell(tr, range.getNames().get(row).stringValue());
+						createCell(tr, range.getAdjP().get(row) + "");
+						resultsBody.appendChild(tr);
 					});
 				}
 			});
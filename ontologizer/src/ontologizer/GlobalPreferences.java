@@ -10,6 +10,7 @@ public final class GlobalPreferences
 {
 	private static String dotPath = "dot";
 	private static int numberOfPermutations = 500;
+	private static double adaptiveThreshold = Double.NaN;
 	private static String proxyHost;
 	private static int proxyPort;
 	private static int wrapColumn = 30;
@@ -82,6 +83,25 @@ public final class GlobalPreferences
 		GlobalPreferences.numberOfPermutations = numberOfPermutations;
 	}
 
+	/**
+	 * @return the threshold at which resampling based procedures stop
+	 *  early, or NaN if they always perform all resampling steps.
+	 */
+	static public double getAdaptiveThreshold()
+	{
+		return adaptiveThreshold;
+	}
+
+	/**
+	 * Sets the threshold at which resampling based procedures stop early.
+	 *
+	 * @param adaptiveThreshold the threshold or NaN to disable stopping early.
+	 */
+	static public void setAdaptiveThreshold(double adaptiveThreshold)
+	{
+		GlobalPreferences.adaptiveThreshold = adaptiveThreshold;
+	}
+
 	/**
 	 * Sets the proxy server.
 	 *
@@ -21,6 +21,7 @@ import ontologizer.set.PopulationSet;
 import ontologizer.set.StudySet;
 import ontologizer.set.StudySetFactory;
 import ontologizer.set.StudySetList;
+import ontologizer.statistics.AbstractResamplingTestCorrection;
 import ontologizer.statistics.AbstractTestCorrection;
 import ontologizer.statistics.IResampling;
 import ontologizer.statistics.TestCorrectionRegistry;
@@ -72,6 +73,12 @@ public class OntologizerCore
 		 */
 		public int resamplingSteps;
 
+		/**
+		 * Threshold at which resampling based mtc procedures may stop
+		 * early, NaN if they should always perform all resampling steps
+		 */
+		public double adaptiveThreshold = Double.NaN;
+
 		/**
 		 * Tolerance in percent for Westfall-Young-Approximate
 		 */
@@ -153,6 +160,9 @@ public class OntologizerCore
 				resampling.setSizeTolerance(args.sizeTolerance);
 			}
 		}
+		if (testCorrection instanceof AbstractResamplingTestCorrection) {
+			((AbstractResamplingTestCorrection)testCorrection).setAdaptiveThreshold(args.adaptiveThreshold);
+		}
 
 		/* Parse the gene_ontology.obo file to get information about all terms.
 		 * Transfer the information to a TermContainer object.
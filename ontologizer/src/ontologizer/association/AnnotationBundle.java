@@ -0,0 +1,516 @@
+package ontologizer.association;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import ontologizer.ontology.Namespace;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.ParentTermID;
+import ontologizer.ontology.Prefix;
+import ontologizer.ontology.Term;
+import ontologizer.ontology.TermContainer;
+import ontologizer.ontology.TermID;
+import ontologizer.ontology.TermRelation;
+import ontologizer.types.ByteString;
+import ontologizer.types.ByteStringIntHashMap;
+
+/**
+ * A compact binary representation of an ontology together with the
+ * annotations of a species. A bundle can be loaded without any text
+ * parsing, which makes it suitable for environments in which parsing
+ * the original OBO and GAF files is expensive, e.g., the browser.
+ *
+ * The ontology is pruned to the annotated terms and their ancestors.
+ * Terms and items are identified by dense integer ids, annotations and
+ * parent relations are stored in compressed sparse row (CSR) form, and all
+ * strings are stored once in a string table. Columns are written one after
+ * another, which lets the bundle compress well.
+ */
+public class AnnotationBundle
+{
+	/** Magic number of the bundle format ("OBDL") */
+	public static final int MAGIC = 0x4f42444c;
+
+	/** Version of the bundle format */
+	public static final int VERSION = 1;
+
+	private Ontology ontology;
+	private AssociationContainer associations;
+
+	private AnnotationBundle(Ontology ontology, AssociationContainer associations)
+	{
+		this.ontology = ontology;
+		this.associations = associations;
+	}
+
+	/**
+	 * @return the ontology of the bundle.
+	 */
+	public Ontology getOntology()
+	{
+		return ontology;
+	}
+
+	/**
+	 * @return the associations of the bundle.
+	 */
+	public AssociationContainer getAssociations()
+	{
+		return associations;
+	}
+
+	/**
+	 * Returns the name of the bundle that corresponds to the given
+	 * association file, e.g., "gene_association.sgd.bundle" for
+	 * "gene_association.sgd.gz".
+	 *
+	 * @param associationFilename
+	 * @return the name of the bundle.
+	 */
+	public static String getBundleName(String associationFilename)
+	{
+		if (associationFilename.endsWith(".gz"))
+			associationFilename = associationFilename.substring(0, associationFilename.length() - 3);
+		return associationFilename + ".bundle";
+	}
+
+	/**
+	 * The table of all strings of a bundle.
+	 */
+	private static class StringTable
+	{
+		private HashMap<ByteString,Integer> string2Index = new HashMap<ByteString,Integer>();
+		private List<ByteString> strings = new ArrayList<ByteString>();
+
+		/**
+		 * Returns the index of the given string, adding it if necessary.
+		 *
+		 * @param str the string, may be null.
+		 * @return the index or -1 if str is null.
+		 */
+		public int index(ByteString str)
+		{
+			if (str == null)
+				return -1;
+
+			Integer index = string2Index.get(str);
+			if (index == null)
+			{
+				index = strings.size();
+				strings.add(str);
+				string2Index.put(str, index);
+			}
+			return index;
+		}
+
+		public void write(DataOutputStream out) throws IOException
+		{
+			int [] offsets = new int[strings.size() + 1];
+			for (int i = 0; i < strings.size(); i++)
+				offsets[i + 1] = offsets[i] + strings.get(i).length();
+			out.writeInt(strings.size());
+			writeInts(out, offsets);
+
+			byte [] buf = new byte[0];
+			for (ByteString str : strings)
+			{
+				if (buf.length < str.length())
+					buf = new byte[str.length()];
+				str.copyTo(0, str.length(), buf, 0);
+				out.write(buf, 0, str.length());
+			}
+		}
+
+		public static ByteString [] read(DataInputStream in) throws IOException
+		{
+			int n = in.readInt();
+			int [] offsets = readInts(in, n + 1);
+			byte [] data = new byte[offsets[n]];
+			in.readFully(data);
+
+			ByteString [] strings = new ByteString[n];
+			for (int i = 0; i < n; i++)
+				strings[i] = new ByteString(data, offsets[i], offsets[i + 1]);
+			return strings;
+		}
+	}
+
+	/**
+	 * Writes a bundle that consists of the given ontology and associations.
+	 * The stream is flushed but not closed.
+	 *
+	 * @param os the stream to which the bundle is written.
+	 * @param ontology the ontology.
+	 * @param associations the associations.
+	 * @throws IOException
+	 */
+	public static void write(OutputStream os, Ontology ontology, AssociationContainer associations) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+		AnnotationContext mapping = associations.getMapping();
+		ByteString [] symbols = mapping.getSymbols();
+		ByteString [] objectIds = mapping.getObjectIds();
+
+		/* Determine the terms that are annotated or ancestors of annotated terms */
+		HashMap<TermID,Integer> term2Index = new HashMap<TermID,Integer>();
+		List<Term> terms = new ArrayList<Term>();
+		LinkedList<TermID> queue = new LinkedList<TermID>();
+		for (int i = 0; i < symbols.length; i++)
+		{
+			Gene2Associations g2a = associations.getItemAssociations(i);
+			if (g2a == null) continue;
+			for (Association a : g2a)
+				queue.add(a.getTermID());
+		}
+		while (!queue.isEmpty())
+		{
+			TermID tid = queue.removeFirst();
+			if (term2Index.containsKey(tid))
+				continue;
+			Term term = ontology.getTermMap().get(tid);
+			if (term == null)
+				continue;
+			term2Index.put(tid, terms.size());
+			terms.add(term);
+			for (ParentTermID p : term.getParents())
+				queue.add(p.termid);
+		}
+
+		StringTable strings = new StringTable();
+		HashMap<Prefix,Integer> prefix2Index = new HashMap<Prefix,Integer>();
+		List<Prefix> prefixes = new ArrayList<Prefix>();
+		HashMap<Namespace,Integer> namespace2Index = new HashMap<Namespace,Integer>();
+		List<Namespace> namespaces = new ArrayList<Namespace>();
+
+		int n = terms.size();
+		int [] termPrefixes = new int[n];
+		int [] termIds = new int[n];
+		int [] termNames = new int[n];
+		int [] termNamespaces = new int[n];
+		int [] parentOffsets = new int[n + 1];
+		List<ParentTermID> parents = new ArrayList<ParentTermID>();
+
+		for (int i = 0; i < n; i++)
+		{
+			Term t = terms.get(i);
+
+			Prefix prefix = t.getID().getPrefix();
+			Integer prefixIndex = prefix2Index.get(prefix);
+			if (prefixIndex == null)
+			{
+				prefixIndex = prefixes.size();
+				prefixes.add(prefix);
+				prefix2Index.put(prefix, prefixIndex);
+			}
+
+			Namespace namespace = t.getNamespace();
+			Integer namespaceIndex = -1;
+			if (namespace != null)
+			{
+				namespaceIndex = namespace2Index.get(namespace);
+				if (namespaceIndex == null)
+				{
+					namespaceIndex = namespaces.size();
+					namespaces.add(namespace);
+					namespace2Index.put(namespace, namespaceIndex);
+				}
+			}
+
+			termPrefixes[i] = prefixIndex;
+			termIds[i] = t.getID().id;
+			termNames[i] = strings.index(t.getName());
+			termNamespaces[i] = namespaceIndex;
+
+			for (ParentTermID p : t.getParents())
+			{
+				if (term2Index.containsKey(p.termid))
+					parents.add(p);
+			}
+			parentOffsets[i + 1] = parents.size();
+		}
+
+		/* Items */
+		int numItems = symbols.length;
+		int [] itemSymbols = new int[numItems];
+		int [] itemObjectIds = new int[numItems];
+		for (int i = 0; i < numItems; i++)
+		{
+			itemSymbols[i] = strings.index(symbols[i]);
+			itemObjectIds[i] = strings.index(objectIds[i]);
+		}
+
+		/* Annotations */
+		int [] annotationOffsets = new int[numItems + 1];
+		List<Association> annotations = new ArrayList<Association>();
+		for (int i = 0; i < numItems; i++)
+		{
+			Gene2Associations g2a = associations.getItemAssociations(i);
+			if (g2a != null)
+			{
+				for (Association a : g2a)
+				{
+					if (term2Index.containsKey(a.getTermID()))
+						annotations.add(a);
+				}
+			}
+			annotationOffsets[i + 1] = annotations.size();
+		}
+
+		int [] annotationTerms = new int[annotations.size()];
+		int [] annotationEvidences = new int[annotations.size()];
+		int [] annotationAspects = new int[annotations.size()];
+		int [] annotationObjects = new int[annotations.size()];
+		int [] annotationSynonyms = new int[annotations.size()];
+		for (int i = 0; i < annotations.size(); i++)
+		{
+			Association a = annotations.get(i);
+			annotationTerms[i] = term2Index.get(a.getTermID());
+			annotationEvidences[i] = strings.index(a.getEvidence());
+			annotationAspects[i] = strings.index(a.getAspect());
+			annotationObjects[i] = strings.index(a.getDB_Object());
+			annotationSynonyms[i] = strings.index(a.getSynonym());
+		}
+
+		/* Synonyms and object ids */
+		HashMap<ByteString,ByteString> synonym2Symbol = mapping.getSynonym2Symbol();
+		HashMap<ByteString,ByteString> objectId2Symbol = mapping.getDbObjectID2Symbol();
+
+		int [] synonymStrings = new int[synonym2Symbol.size()];
+		int [] synonymItems = new int[synonym2Symbol.size()];
+		int j = 0;
+		for (Entry<ByteString,ByteString> e : synonym2Symbol.entrySet())
+		{
+			synonymStrings[j] = strings.index(e.getKey());
+			synonymItems[j] = mapping.mapSymbol(e.getValue());
+			j++;
+		}
+
+		int [] objectIdStrings = new int[objectId2Symbol.size()];
+		int [] objectIdItems = new int[objectId2Symbol.size()];
+		j = 0;
+		for (Entry<ByteString,ByteString> e : objectId2Symbol.entrySet())
+		{
+			objectIdStrings[j] = strings.index(e.getKey());
+			objectIdItems[j] = mapping.mapSymbol(e.getValue());
+			j++;
+		}
+
+		int formatVersion = -1;
+		int date = -1;
+		if (ontology.getTermMap() instanceof TermContainer)
+		{
+			TermContainer tc = (TermContainer)ontology.getTermMap();
+			formatVersion = strings.index(tc.getFormatVersion());
+			date = strings.index(tc.getDate());
+		}
+
+		int [] prefixStrings = new int[prefixes.size()];
+		for (int i = 0; i < prefixStrings.length; i++)
+			prefixStrings[i] = strings.index(prefixes.get(i).getByteString());
+		int [] namespaceStrings = new int[namespaces.size()];
+		for (int i = 0; i < namespaceStrings.length; i++)
+			namespaceStrings[i] = strings.index(namespaces.get(i).getName());
+
+		/* Now write everything */
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		strings.write(out);
+		out.writeInt(formatVersion);
+		out.writeInt(date);
+		writeInts(out, prefixStrings);
+		writeInts(out, namespaceStrings);
+
+		out.writeInt(n);
+		writeInts(out, termPrefixes);
+		writeInts(out, termIds);
+		writeInts(out, termNames);
+		writeInts(out, termNamespaces);
+		writeInts(out, parentOffsets);
+		int [] parentTerms = new int[parents.size()];
+		for (int i = 0; i < parentTerms.length; i++)
+			parentTerms[i] = term2Index.get(parents.get(i).termid);
+		writeInts(out, parentTerms);
+		for (ParentTermID p : parents)
+			out.writeByte(p.relation.ordinal());
+
+		out.writeInt(numItems);
+		writeInts(out, itemSymbols);
+		writeInts(out, itemObjectIds);
+		writeInts(out, synonymStrings);
+		writeInts(out, synonymItems);
+		writeInts(out, objectIdStrings);
+		writeInts(out, objectIdItems);
+
+		writeInts(out, annotationOffsets);
+		writeInts(out, annotationTerms);
+		writeInts(out, annotationEvidences);
+		writeInts(out, annotationAspects);
+		writeInts(out, annotationObjects);
+		writeInts(out, annotationSynonyms);
+		for (Association a : annotations)
+			out.writeBoolean(a.hasNotQualifier());
+
+		out.flush();
+	}
+
+	/**
+	 * Reads a bundle from the given stream.
+	 *
+	 * @param is the stream from which the bundle is read.
+	 * @return the bundle.
+	 * @throws IOException if the stream couldn't be read or doesn't contain
+	 *  a valid bundle.
+	 */
+	public static AnnotationBundle read(InputStream is) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+
+		if (in.readInt() != MAGIC)
+			throw new IOException("Input is not a bundle");
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException("Bundle version " + version + " is not supported");
+
+		ByteString [] strings = StringTable.read(in);
+		ByteString formatVersion = string(strings, in.readInt());
+		ByteString date = string(strings, in.readInt());
+
+		int [] prefixStrings = readInts(in);
+		Prefix [] prefixes = new Prefix[prefixStrings.length];
+		for (int i = 0; i < prefixes.length; i++)
+			prefixes[i] = new Prefix(strings[prefixStrings[i]]);
+
+		int [] namespaceStrings = readInts(in);
+		Namespace [] namespaces = new Namespace[namespaceStrings.length];
+		for (int i = 0; i < namespaces.length; i++)
+			namespaces[i] = new Namespace(strings[namespaceStrings[i]]);
+
+		/* Terms */
+		int n = in.readInt();
+		int [] termPrefixes = readInts(in, n);
+		int [] termIds = readInts(in, n);
+		int [] termNames = readInts(in, n);
+		int [] termNamespaces = readInts(in, n);
+		int [] parentOffsets = readInts(in, n + 1);
+		int [] parents = readInts(in, parentOffsets[n]);
+		byte [] relations = new byte[parentOffsets[n]];
+		in.readFully(relations);
+
+		TermRelation [] allRelations = TermRelation.values();
+		TermID [] tids = new TermID[n];
+		for (int i = 0; i < n; i++)
+			tids[i] = new TermID(prefixes[termPrefixes[i]], termIds[i]);
+
+		List<Term> terms = new ArrayList<Term>(n);
+		for (int i = 0; i < n; i++)
+		{
+			ParentTermID [] termParents = new ParentTermID[parentOffsets[i + 1] - parentOffsets[i]];
+			for (int k = parentOffsets[i]; k < parentOffsets[i + 1]; k++)
+				termParents[k - parentOffsets[i]] = new ParentTermID(tids[parents[k]], allRelations[relations[k]]);
+			Namespace namespace = termNamespaces[i] != -1 ? namespaces[termNamespaces[i]] : Namespace.UNKOWN_NAMESPACE;
+			terms.add(new Term(tids[i], strings[termNames[i]], namespace, Arrays.asList(termParents)));
+		}
+		TermContainer termContainer = new TermContainer(terms, formatVersion, date);
+		Ontology ontology = Ontology.create(termContainer);
+
+		/* Items */
+		int numItems = in.readInt();
+		int [] itemSymbols = readInts(in, numItems);
+		int [] itemObjectIds = readInts(in, numItems);
+		int [] synonymStrings = readInts(in);
+		int [] synonymItems = readInts(in);
+		int [] objectIdStrings = readInts(in);
+		int [] objectIdItems = readInts(in);
+
+		List<ByteString> symbols = new ArrayList<ByteString>(numItems);
+		List<ByteString> objectIds = new ArrayList<ByteString>(numItems);
+		ByteStringIntHashMap objectSymbolMap = new ByteStringIntHashMap(numItems);
+		for (int i = 0; i < numItems; i++)
+		{
+			symbols.add(strings[itemSymbols[i]]);
+			objectIds.add(string(strings, itemObjectIds[i]));
+			objectSymbolMap.put(strings[itemSymbols[i]], i);
+		}
+		ByteStringIntHashMap synonymMap = new ByteStringIntHashMap(synonymStrings.length);
+		for (int i = 0; i < synonymStrings.length; i++)
+			synonymMap.put(strings[synonymStrings[i]], synonymItems[i]);
+		ByteStringIntHashMap objectIdMap = new ByteStringIntHashMap(objectIdStrings.length);
+		for (int i = 0; i < objectIdStrings.length; i++)
+			objectIdMap.put(strings[objectIdStrings[i]], objectIdItems[i]);
+
+		AnnotationContext mapping = new AnnotationContext(symbols, objectIds, objectSymbolMap, objectIdMap, synonymMap);
+
+		/* Annotations */
+		int [] annotationOffsets = readInts(in, numItems + 1);
+		int numAnnotations = annotationOffsets[numItems];
+		int [] annotationTerms = readInts(in, numAnnotations);
+		int [] annotationEvidences = readInts(in, numAnnotations);
+		int [] annotationAspects = readInts(in, numAnnotations);
+		int [] annotationObjects = readInts(in, numAnnotations);
+		int [] annotationSynonyms = readInts(in, numAnnotations);
+
+		List<Association> associations = new ArrayList<Association>(numAnnotations);
+		for (int i = 0; i < numItems; i++)
+		{
+			for (int k = annotationOffsets[i]; k < annotationOffsets[i + 1]; k++)
+			{
+				associations.add(new Association(string(strings, annotationObjects[k]), symbols.get(i),
+						tids[annotationTerms[k]], string(strings, annotationEvidences[k]),
+						string(strings, annotationAspects[k]), in.readBoolean(),
+						string(strings, annotationSynonyms[k])));
+			}
+		}
+
+		return new AnnotationBundle(ontology, new AssociationContainer(associations, mapping));
+	}
+
+	private static ByteString string(ByteString [] strings, int index)
+	{
+		if (index == -1)
+			return null;
+		return strings[index];
+	}
+
+	/**
+	 * Writes the length of the array followed by its elements.
+	 */
+	private static void writeInts(DataOutputStream out, int [] values) throws IOException
+	{
+		out.writeInt(values.length);
+		for (int v : values)
+			out.writeInt(v);
+	}
+
+	/**
+	 * Reads an array that has been written by {@link #writeInts(DataOutputStream, int[])}.
+	 */
+	private static int [] readInts(DataInputStream in) throws IOException
+	{
+		int [] values = new int[in.readInt()];
+		for (int i = 0; i < values.length; i++)
+			values[i] = in.readInt();
+		return values;
+	}
+
+	/**
+	 * Reads an array whose length is expected to be the given one.
+	 */
+	private static int [] readInts(DataInputStream in, int n) throws IOException
+	{
+		int [] values = readInts(in);
+		if (values.length != n)
+			throw new IOException("Bundle is corrupt");
+		return values;
+	}
+}
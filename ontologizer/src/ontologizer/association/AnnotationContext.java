@@ -8,7 +8,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import ontologizer.types.ByteString;
-import sonumina.collections.ObjectIntHashMap;
+import ontologizer.types.ByteStringIntHashMap;
 import sonumina.collections.ObjectIntHashMap.ObjectIntProcedure;
 
 public class AnnotationContext
@@ -20,15 +20,15 @@ public class AnnotationContext
 	private ByteString[] objectIds;
 
 	/** Maps object symbols to item indices within the items list */
-	private ObjectIntHashMap<ByteString> objectSymbolMap;
+	private ByteStringIntHashMap objectSymbolMap;
 
 	/** Maps object ids to item indices within the items list */
-	private ObjectIntHashMap<ByteString> objectIdMap;
+	private ByteStringIntHashMap objectIdMap;
 
 	/** Maps synonyms to item indices within the items list */
-	private ObjectIntHashMap<ByteString> synonymMap;
+	private ByteStringIntHashMap synonymMap;
 
-	public AnnotationContext(Collection<ByteString> symbols, List<ByteString> objectIds, ObjectIntHashMap<ByteString> objectSymbolMap, ObjectIntHashMap<ByteString> objectIdMap, ObjectIntHashMap<ByteString> synonymMap)
+	public AnnotationContext(Collection<ByteString> symbols, List<ByteString> objectIds, ByteStringIntHashMap objectSymbolMap, ByteStringIntHashMap objectIdMap, ByteStringIntHashMap synonymMap)
 	{
 		if (symbols.size() != objectIds.size()) throw new IllegalArgumentException("Symbols and object ids size must match");
 
@@ -55,7 +55,7 @@ public class AnnotationContext
 		int initialSynonymMapSize = 32;
 		int initialObjectIdMapSize = 32;
 
-		objectSymbolMap = new ObjectIntHashMap<ByteString>();
+		objectSymbolMap = new ByteStringIntHashMap(symbols.size());
 		Set<ByteString> allSymbols = new HashSet<ByteString>(symbols);
 
 		if (synonym2Item != null)
@@ -74,8 +74,8 @@ public class AnnotationContext
 
 		this.symbols = new ByteString[allSymbols.size()];
 		this.objectIds = new ByteString[allSymbols.size()];
-		this.synonymMap = new ObjectIntHashMap<ByteString>(initialSynonymMapSize);
-		this.objectIdMap = new ObjectIntHashMap<ByteString>(initialObjectIdMapSize);
+		this.synonymMap = new ByteStringIntHashMap(initialSynonymMapSize);
+		this.objectIdMap = new ByteStringIntHashMap(initialObjectIdMapSize);
 		int i = 0;
 		for (ByteString symbol : allSymbols)
 		{
@@ -155,6 +155,17 @@ public class AnnotationContext
 		return symbols;
 	}
 
+	/**
+	 * Return the array of object ids. The object id of a symbol has the
+	 * same index as the symbol. Entries may be null.
+	 *
+	 * @return array of object ids.
+	 */
+	public ByteString [] getObjectIds()
+	{
+		return objectIds;
+	}
+
 	/**
 	 * Map the given symbol to the unique id.
 	 *
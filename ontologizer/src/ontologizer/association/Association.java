@@ -1,6 +1,5 @@
 package ontologizer.association;
 
-import static ontologizer.types.ByteString.b;
 import static ontologizer.types.ByteString.EMPTY;
 
 import java.util.regex.*;
@@ -81,30 +80,30 @@ public class Association
 	private final static String DELIM = "\t";
 
 	/** Number of fields in each gene_association.*** line */
-	private final static int FIELDS = 15;
+	final static int FIELDS = 15;
 
 	/** Index of dbObject field */
-	private final static int DBOBJECTFIELD = 1;
+	final static int DBOBJECTFIELD = 1;
 
 	/** Index of dbObjectSymbol field */
-	private final static int DBOBJECTSYMBOLFIELD = 2;
+	final static int DBOBJECTSYMBOLFIELD = 2;
 
 	/** Index of NOT field */
-	private final static int QUALIFIERFIELD = 3;
+	final static int QUALIFIERFIELD = 3;
 //	private final static String QUALIFIERVALS[] =
 //		new String[] {"", "NOT", "contributes_to", "colocalizes_with"};
 
 	/** Index of GO:id field */
-	private final static int GOFIELD = 4;
+	final static int GOFIELD = 4;
 
 	/** Index of evidence field */
-	private final static int EVIDENCEFIELD = 6;
+	final static int EVIDENCEFIELD = 6;
 
 	/** Index of aspect field */
-	private final static int ASPECTFIELD = 8;
+	final static int ASPECTFIELD = 8;
 
 	/** Index of synonym field */
-	private final static int SYNONYMFIELD = 10;
+	final static int SYNONYMFIELD = 10;
 
 	/** Index fo dbObjectType field */
 	@SuppressWarnings("unused")
@@ -115,8 +114,6 @@ public class Association
 
 	private static final ByteString emptyString = EMPTY;
 
-	private static final ByteString notString = b("NOT");
-
 	/**
 	 * @param line :
 	 *            line from a gene_association file
@@ -171,6 +168,21 @@ public class Association
 		termID = new TermID(term);
 	}
 
+	/**
+	 * Constructs a new association object with all fields that are
+	 * represented by this class.
+	 */
+	Association(ByteString db_object, ByteString db_object_symbol, TermID termID, ByteString evidence, ByteString aspect, boolean notQualifier, ByteString synonym)
+	{
+		DB_Object = db_object;
+		DB_Object_Symbol = db_object_symbol;
+		this.termID = termID;
+		this.evidence = evidence;
+		this.aspect = aspect;
+		this.notQualifier = notQualifier;
+		this.synonym = synonym;
+	}
+
 	private Association() {};
 
 	/**
@@ -341,7 +353,54 @@ public class Association
 	}
 
 	/**
-	 * Create an association from a byte array.
+	 * Splits a GAF line into its fields without allocating any objects. Only
+	 * fields that are terminated by a tab are considered. Field i spans the
+	 * bytes from fields[i] (inclusive) to fields[i+1] - 1 (exclusive), i.e.,
+	 * fields[i+1] - 1 is the position of the terminating tab.
+	 *
+	 * @param byteBuf the buffer containing the line
+	 * @param offset the offset of the first byte of the line
+	 * @param len the length of the line
+	 * @param fields the array that receives the field boundaries. It needs to
+	 *  have at least FIELDS + 1 elements.
+	 * @return the number of fields that have been found, at most FIELDS.
+	 */
+	static int splitGAFLine(byte [] byteBuf, int offset, int len, int [] fields)
+	{
+		int fieldNo = 0;
+		fields[0] = offset;
+
+		for (int p = offset; p < offset + len && fieldNo < FIELDS; p++)
+		{
+			if (byteBuf[p] == '\t')
+				fields[++fieldNo] = p + 1;
+		}
+		return fieldNo;
+	}
+
+	/**
+	 * Determines whether the given qualifier field contains a NOT.
+	 *
+	 * @param byteBuf the buffer containing the field
+	 * @param from the first position of the field (inclusive)
+	 * @param to the last position of the field (exclusive)
+	 * @return whether a NOT was found.
+	 */
+	static boolean isNotQualifier(byte [] byteBuf, int from, int to)
+	{
+		for (int i = from; i + 3 <= to; i++)
+		{
+			if (byteBuf[i] == 'N' && byteBuf[i + 1] == 'O' && byteBuf[i + 2] == 'T')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Create an association from a byte array. Use
+	 * {@link #createFromGAFLine(byte[], int, int, PrefixPool, int[])} when
+	 * creating many associations, as this method allocates the field
+	 * boundaries for each call.
 	 *
 	 * @param byteBuf the byteBuf
 	 * @param offset the offset of the first byte to be considered
@@ -350,35 +409,44 @@ public class Association
 	 * @return the created association
 	 */
 	public static Association createFromGAFLine(byte[] byteBuf, int offset, int len, PrefixPool prefixPool)
+	{
+		return createFromGAFLine(byteBuf, offset, len, prefixPool, new int[FIELDS + 1]);
+	}
+
+	/**
+	 * Create an association from a byte array using the given buffer for the
+	 * field boundaries, which can be reused for all lines.
+	 *
+	 * @param byteBuf the byteBuf
+	 * @param offset the offset of the first byte to be considered
+	 * @param len number of bytes to be considered
+	 * @param prefixPool the prefix pool that should be used.
+	 * @param fields the buffer for the field boundaries. It needs to have at
+	 *  least FIELDS + 1 elements.
+	 * @return the created association
+	 */
+	public static Association createFromGAFLine(byte[] byteBuf, int offset, int len, PrefixPool prefixPool, int [] fields)
 	{
 		Association a = new Association();
 		a.DB_Object = a.DB_Object_Symbol = a.synonym = emptyString;
 
-		int fieldOffset = offset;
-		int p = offset;
-		int fieldNo = 0;
+		int numFields = splitGAFLine(byteBuf, offset, len, fields);
 
-		while (p < offset + len)
+		for (int fieldNo = 0; fieldNo < numFields; fieldNo++)
 		{
-			if (byteBuf[p] == '\t')
+			int from = fields[fieldNo];
+			int to = fields[fieldNo + 1] - 1;
+
+			switch (fieldNo)
 			{
-				/* New field */
-				switch (fieldNo)
-				{
-					case 	DBOBJECTFIELD: 	a.DB_Object = new ByteString(byteBuf,fieldOffset,p); break;
-					case	DBOBJECTSYMBOLFIELD:	a.DB_Object_Symbol = new ByteString(byteBuf,fieldOffset,p); break;
-					case	EVIDENCEFIELD:	a.evidence = new ByteString(byteBuf,fieldOffset,p); break;
-					case	ASPECTFIELD:	a.aspect = new ByteString(byteBuf,fieldOffset,p); break;
-					case	QUALIFIERFIELD: a.notQualifier = new ByteString(byteBuf,fieldOffset,p).indexOf(notString) != -1; break;
-					case	SYNONYMFIELD:	a.synonym = new ByteString(byteBuf,fieldOffset,p); break;
-					case	GOFIELD:		a.termID = new TermID(new ByteString(byteBuf,fieldOffset,p),prefixPool); break;
-
-				}
-
-				fieldOffset = p + 1;
-				fieldNo++;
+				case 	DBOBJECTFIELD: 	a.DB_Object = new ByteString(byteBuf,from,to); break;
+				case	DBOBJECTSYMBOLFIELD:	a.DB_Object_Symbol = new ByteString(byteBuf,from,to); break;
+				case	EVIDENCEFIELD:	a.evidence = new ByteString(byteBuf,from,to); break;
+				case	ASPECTFIELD:	a.aspect = new ByteString(byteBuf,from,to); break;
+				case	QUALIFIERFIELD: a.notQualifier = isNotQualifier(byteBuf,from,to); break;
+				case	SYNONYMFIELD:	a.synonym = new ByteString(byteBuf,from,to); break;
+				case	GOFIELD:		a.termID = new TermID(new ByteString(byteBuf,from,to),prefixPool); break;
 			}
-			p++;
 		}
 		return a;
 	}
@@ -1,5 +1,9 @@
 package ontologizer.association;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -7,22 +11,70 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import ontologizer.ontology.TermID;
 import ontologizer.types.ByteString;
+import ontologizer.types.ByteStringIntHashMap;
+import sonumina.collections.ObjectIntHashMap;
 
 /**
  * After AssociationParser was used to parse the gene_association.XXX file, this
  * class is used to store and process the information about Associations.
+ *
+ * The associations are stored column-wise in parallel primitive arrays that
+ * are sorted by the item (gene). The associations of item i are found at
+ * positions offsets[i] to offsets[i+1] - 1. Terms and strings are stored
+ * as indices into tables of unique instances. Gene2Associations objects
+ * and Association objects are light-weight views that are created on demand.
  */
 public class AssociationContainer implements Iterable<Gene2Associations>
 {
-	/** Associations keys by the unique id */
-	private Gene2Associations [] associations;
+	/**
+	 * The maximum number of distinct evidence codes for which evidence masks
+	 * are supported. The highest bit is reserved, so no mask of evidence
+	 * codes is equal to {@link #ALL_EVIDENCES}.
+	 */
+	public static final int MAX_MASKABLE_EVIDENCE_CODES = 63;
+
+	/**
+	 * The evidence mask that matches all associations, including those
+	 * without evidence codes. It is never returned by
+	 * {@link #getEvidenceMask(Collection)}.
+	 */
+	public static final long ALL_EVIDENCES = -1L;
+
+	/** The first association of each item, has one more element than there are items */
+	private int [] offsets;
+
+	/** The term of each association as index into termTable */
+	private int [] termIndices;
+
+	/** The unique term ids */
+	private TermID [] termTable;
+
+	/** The evidence code of each association as index into evidenceTable, or -1 */
+	private int [] evidenceCodes;
+
+	/** The unique evidence codes */
+	private ByteString [] evidenceTable;
+
+	/** The aspects, objects and synonyms of each association as index into stringTable, or -1 */
+	private int [] aspectIndices;
+	private int [] objectIndices;
+	private int [] synonymIndices;
+
+	/** The unique strings */
+	private ByteString [] stringTable;
+
+	/** Which associations have the NOT qualifier */
+	private BitSet notQualifiers = new BitSet();
 
 	/** Mapping */
 	private AnnotationContext annotationMapping;
 
 	/**
 	 * Constructs the container using a list of association and an annotation mapping created from it.
+	 * Associations whose object symbol is not known to the mapping are ignored. For each item,
+	 * only the first association to a given term is retained.
 	 *
 	 * @param assocs
 	 * @param annotationMapping
@@ -30,31 +82,281 @@ public class AssociationContainer implements Iterable<Gene2Associations>
 	public AssociationContainer(List<Association> assocs, AnnotationContext annotationMapping)
 	{
 		this.annotationMapping = annotationMapping;
-		associations = new Gene2Associations[annotationMapping.getSymbols().length];
-		for (Association a : assocs)
-			addAssociation(a);
+
+		int numItems = annotationMapping.getSymbols().length;
+		int numAssocs = assocs.size();
+
+		/* Determine the item of each association and sort the associations by item.
+		 * The sort is stable, so the order within an item is retained. */
+		int [] items = new int[numAssocs];
+		offsets = new int[numItems + 1];
+		for (int i = 0; i < numAssocs; i++)
+		{
+			int index = annotationMapping.mapSymbol(assocs.get(i).getObjectSymbol());
+			if (index == Integer.MAX_VALUE)
+				index = -1;
+			else
+				offsets[index + 1]++;
+			items[i] = index;
+		}
+		for (int i = 0; i < numItems; i++)
+			offsets[i + 1] += offsets[i];
+
+		int [] fill = Arrays.copyOf(offsets, numItems);
+		Association [] sorted = new Association[offsets[numItems]];
+		for (int i = 0; i < numAssocs; i++)
+		{
+			if (items[i] != -1)
+				sorted[fill[items[i]]++] = assocs.get(i);
+		}
+
+		/* Now build the columns while skipping associations of an item to an already seen term */
+		ObjectIntHashMap<TermID> term2Index = new ObjectIntHashMap<TermID>();
+		List<TermID> terms = new ArrayList<TermID>();
+		ByteStringIntHashMap string2Index = new ByteStringIntHashMap();
+		List<ByteString> strings = new ArrayList<ByteString>();
+		ByteStringIntHashMap evidence2Code = new ByteStringIntHashMap();
+		List<ByteString> evidences = new ArrayList<ByteString>();
+
+		/* The last item that has been annotated to a term, indexed by term */
+		IntArrayList lastItemOfTerm = new IntArrayList();
+
+		termIndices = new int[sorted.length];
+		evidenceCodes = new int[sorted.length];
+		aspectIndices = new int[sorted.length];
+		objectIndices = new int[sorted.length];
+		synonymIndices = new int[sorted.length];
+
+		int n = 0;
+		for (int item = 0; item < numItems; item++)
+		{
+			int from = offsets[item];
+			int to = offsets[item + 1];
+			offsets[item] = n;
+
+			for (int j = from; j < to; j++)
+			{
+				Association a = sorted[j];
+				int termIndex = term2Index.getIfAbsentPut(a.getTermID(), terms.size());
+				if (termIndex == terms.size())
+				{
+					terms.add(a.getTermID());
+					lastItemOfTerm.add(-1);
+				}
+
+				if (lastItemOfTerm.get(termIndex) == item)
+					continue;
+				lastItemOfTerm.set(termIndex, item);
+
+				termIndices[n] = termIndex;
+				evidenceCodes[n] = stringIndex(a.getEvidence(), evidence2Code, evidences);
+				aspectIndices[n] = stringIndex(a.getAspect(), string2Index, strings);
+				objectIndices[n] = stringIndex(a.getDB_Object(), string2Index, strings);
+				synonymIndices[n] = stringIndex(a.getSynonym(), string2Index, strings);
+				if (a.hasNotQualifier())
+					notQualifiers.set(n);
+				n++;
+			}
+		}
+		offsets[numItems] = n;
+
+		if (n != termIndices.length)
+		{
+			termIndices = Arrays.copyOf(termIndices, n);
+			evidenceCodes = Arrays.copyOf(evidenceCodes, n);
+			aspectIndices = Arrays.copyOf(aspectIndices, n);
+			objectIndices = Arrays.copyOf(objectIndices, n);
+			synonymIndices = Arrays.copyOf(synonymIndices, n);
+		}
+		termTable = terms.toArray(new TermID[terms.size()]);
+		stringTable = strings.toArray(new ByteString[strings.size()]);
+		evidenceTable = evidences.toArray(new ByteString[evidences.size()]);
 	}
 
 	/**
-	 * Adds a new association. Note that this will not read out synonyms or any other field
-	 * than the object symbol.
+	 * Returns the index of the given string within the table that is
+	 * currently built, adding the string if necessary.
 	 *
-	 * @param a the associated to be added
+	 * @return the index or -1 if str is null.
 	 */
-	private void addAssociation(Association a)
+	private static int stringIndex(ByteString str, ByteStringIntHashMap string2Index, List<ByteString> strings)
 	{
-		ByteString symbol = a.getObjectSymbol();
-		int index = annotationMapping.mapSymbol(a.getObjectSymbol());
-		if (index == Integer.MAX_VALUE)
-			return;
+		if (str == null)
+			return -1;
+
+		int index = string2Index.getIfAbsent(str, -1);
+		if (index == -1)
+		{
+			index = strings.size();
+			strings.add(str);
+			string2Index.put(str, index);
+		}
+		return index;
+	}
+
+	/**
+	 * A growable list of ints.
+	 */
+	private static class IntArrayList
+	{
+		private int [] data = new int[16];
+		private int size;
+
+		public void add(int v)
+		{
+			if (size == data.length)
+				data = Arrays.copyOf(data, size * 2);
+			data[size++] = v;
+		}
+
+		public int get(int i)
+		{
+			return data[i];
+		}
+
+		public void set(int i, int v)
+		{
+			data[i] = v;
+		}
+	}
+
+	private ByteString string(int index)
+	{
+		if (index == -1)
+			return null;
+		return stringTable[index];
+	}
+
+	/**
+	 * @return the number of associations.
+	 */
+	public int getNumberOfAssociations()
+	{
+		return termIndices.length;
+	}
 
-		Gene2Associations g2a = associations[index];
-		if (g2a == null)
+	/**
+	 * @return the number of distinct terms that are annotated.
+	 */
+	public int getNumberOfTerms()
+	{
+		return termTable.length;
+	}
+
+	/**
+	 * Returns the id of the term with the given index. Term indices
+	 * are as returned by {@link #getTermIndex(int)}.
+	 *
+	 * @param termIndex
+	 * @return the term id.
+	 */
+	public TermID getTermID(int termIndex)
+	{
+		return termTable[termIndex];
+	}
+
+	/**
+	 * Returns the first association of the given item. The associations of an
+	 * item i are the associations ranging from getFirstAssociation(i) to
+	 * getFirstAssociation(i+1) - 1.
+	 *
+	 * @param item the index of the item, may be equal to the number of items.
+	 * @return the index of the first association.
+	 */
+	public int getFirstAssociation(int item)
+	{
+		return offsets[item];
+	}
+
+	/**
+	 * @param assoc the index of the association.
+	 * @return the index of the term of the association.
+	 */
+	public int getTermIndex(int assoc)
+	{
+		return termIndices[assoc];
+	}
+
+	/**
+	 * @param assoc the index of the association.
+	 * @return the evidence of the given association.
+	 */
+	public ByteString getEvidence(int assoc)
+	{
+		int code = evidenceCodes[assoc];
+		if (code == -1)
+			return null;
+		return evidenceTable[code];
+	}
+
+	/**
+	 * @return the number of distinct evidence codes.
+	 */
+	public int getNumberOfEvidenceCodes()
+	{
+		return evidenceTable.length;
+	}
+
+	/**
+	 * Returns the bit of the evidence code of the given association. The bit
+	 * is 0 if the association has no evidence code or if there are more than
+	 * {@link #MAX_MASKABLE_EVIDENCE_CODES} evidence codes.
+	 *
+	 * @param assoc the index of the association.
+	 * @return the evidence bit.
+	 */
+	public long getEvidenceBit(int assoc)
+	{
+		int code = evidenceCodes[assoc];
+		if (code == -1 || code >= MAX_MASKABLE_EVIDENCE_CODES)
+			return 0;
+		return 1L << code;
+	}
+
+	/**
+	 * Returns the mask of the given evidence codes, i.e., the union of the bits
+	 * of these codes. Codes that are not used by any association are ignored.
+	 *
+	 * @param evidences the evidence codes.
+	 * @return the mask.
+	 * @throws IllegalStateException if the container has more than
+	 *  {@link #MAX_MASKABLE_EVIDENCE_CODES} evidence codes.
+	 */
+	public long getEvidenceMask(Collection<ByteString> evidences)
+	{
+		if (evidenceTable.length > MAX_MASKABLE_EVIDENCE_CODES)
+			throw new IllegalStateException("Too many evidence codes for evidence masks");
+
+		long mask = 0;
+		for (int code = 0; code < evidenceTable.length; code++)
 		{
-			g2a = new Gene2Associations(symbol);
-			associations[index] = g2a;
+			if (evidences.contains(evidenceTable[code]))
+				mask |= 1L << code;
 		}
-		g2a.add(a);
+		return mask;
+	}
+
+	/**
+	 * @param assoc the index of the association.
+	 * @return whether the given association has a NOT qualifier.
+	 */
+	public boolean hasNotQualifier(int assoc)
+	{
+		return notQualifiers.get(assoc);
+	}
+
+	/**
+	 * Creates an Association object for the given association.
+	 *
+	 * @param assoc the index of the association.
+	 * @param item the item of the association.
+	 * @return the association object.
+	 */
+	Association createAssociation(int assoc, int item)
+	{
+		return new Association(string(objectIndices[assoc]), annotationMapping.getSymbols()[item],
+				termTable[termIndices[assoc]], getEvidence(assoc), string(aspectIndices[assoc]),
+				notQualifiers.get(assoc), string(synonymIndices[assoc]));
 	}
 
 	/**
@@ -83,7 +385,7 @@ public class AssociationContainer implements Iterable<Gene2Associations>
 		if (index == Integer.MAX_VALUE)
 			return null;
 
-		return associations[index];
+		return getItemAssociations(index);
 	}
 
 	/**
@@ -147,7 +449,7 @@ public class AssociationContainer implements Iterable<Gene2Associations>
 			@Override
 			public boolean hasNext()
 			{
-				if (current == associations.length)
+				if (current == offsets.length - 1)
 					return false;
 				return true;
 			}
@@ -155,7 +457,7 @@ public class AssociationContainer implements Iterable<Gene2Associations>
 			@Override
 			public Gene2Associations next()
 			{
-				Gene2Associations value = associations[current];
+				Gene2Associations value = getItemAssociations(current);
 				current++;
 				return value;
 			}
@@ -173,30 +475,31 @@ public class AssociationContainer implements Iterable<Gene2Associations>
 	 */
 	public Map<String,Integer> getAllEvidenceCodes()
 	{
-		Map<String,Integer> evidenceCounts = new HashMap<String, Integer>();
-		for (Gene2Associations g2a : associations)
+		int [] counts = new int[evidenceTable.length];
+		for (int code : evidenceCodes)
 		{
-			for (Association a : g2a)
-			{
-				String ev = a.getEvidence().toString();
-				int count;
-
-				if (evidenceCounts.containsKey(ev)) count = evidenceCounts.get(ev) + 1;
-				else count = 1;
+			if (code != -1)
+				counts[code]++;
+		}
 
-				evidenceCounts.put(ev, count);
-			}
+		Map<String,Integer> evidenceCounts = new HashMap<String, Integer>();
+		for (int i = 0; i < counts.length; i++)
+		{
+			if (counts[i] != 0)
+				evidenceCounts.put(evidenceTable[i].toString(), counts[i]);
 		}
 		return evidenceCounts;
 	}
 
 	/**
 	 * @param i index
-	 * @return the i'th Gene2Association
+	 * @return the i'th Gene2Association or null if the item has no associations
 	 */
 	public Gene2Associations getItemAssociations(int i)
 	{
-		return associations[i];
+		if (offsets[i] == offsets[i + 1])
+			return null;
+		return new Gene2Associations(this, i);
 	}
 
 	/**
@@ -17,6 +17,7 @@ import ontologizer.ontology.IParserInput;
 import ontologizer.ontology.TermID;
 import ontologizer.ontology.TermMap;
 import ontologizer.types.ByteString;
+import ontologizer.types.ByteStringPool;
 
 /**
  * This class is responsible for parsing GO association files. One object is
@@ -245,6 +246,7 @@ public class AssociationParser
 		try
 		{
 			BufferedReader is = new BufferedReader(new InputStreamReader(input.inputStream()));
+			ByteStringPool stringPool = new ByteStringPool();
 			String line;
 
 			while ((line = is.readLine()) != null)
@@ -274,7 +276,7 @@ public class AssociationParser
 
 					if (terms.get(tid) != null)
 					{
-						Association assoc = new Association(new ByteString(fields[0]),tid.toString());
+						Association assoc = new Association(stringPool.intern(new ByteString(fields[0])),tid.toString());
 						associations.add(assoc);
 					} else
 					{
@@ -325,7 +327,10 @@ public class AssociationParser
 		if (progress != null)
 			progress.init(input.getSize());
 
-		GAFByteLineScanner ls = new GAFByteLineScanner(input, head, names, terms,getByteStringSetFromStringCollection(evidences), progress);
+		/* The pool is needed only while parsing, afterwards the associations
+		 * simply keep the shared instances */
+		ByteStringPool stringPool = new ByteStringPool();
+		GAFByteLineScanner ls = new GAFByteLineScanner(input, head, names, terms,getByteStringSetFromStringCollection(evidences), stringPool, progress);
 		ls.scan();
 
 		if (progress != null)
@@ -343,6 +348,8 @@ public class AssociationParser
 		logger.log(Level.INFO, "A total of " + ls.getNumberOfUsedTerms()
 				+ " terms are directly associated to " + ls.getAnnotationContext().getSymbols().length
 				+ " items.");
+		logger.log(Level.INFO, "Shared " + stringPool.getNumberOfRequests() + " strings by " + stringPool.size()
+				+ " unique instances, which saved about " + (stringPool.getSavedBytes() / 1024) + " KiB");
 
 		associations = ls.getAssociations();
 		annotationMapping = ls.getAnnotationContext();
@@ -14,7 +14,8 @@ import ontologizer.ontology.Term;
 import ontologizer.ontology.TermID;
 import ontologizer.ontology.TermMap;
 import ontologizer.types.ByteString;
-import sonumina.collections.ObjectIntHashMap;
+import ontologizer.types.ByteStringIntHashMap;
+import ontologizer.types.ByteStringPool;
 
 /**
  * A GAF Line scanner.
@@ -61,6 +62,24 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 	private HashMap<TermID, Term> altTermID2Term = null;
 	private HashSet<TermID> usedGoTerms = new HashSet<TermID>();
 
+	/** The boundaries of the fields of the current line, see Association.splitGAFLine() */
+	private int [] fields = new int[Association.FIELDS + 1];
+
+	/** Maps the raw contents of term fields to indices within resolvedTerms */
+	private ByteStringIntHashMap termField2Index = new ByteStringIntHashMap();
+
+	/** The resolved terms, null if the term is not known */
+	private ArrayList<Term> resolvedTerms = new ArrayList<Term>();
+
+	/** The pool used to share equal strings */
+	private ByteStringPool stringPool;
+
+	/** The names of interest as map for lookups of slices, or null */
+	private ByteStringIntHashMap namesMap;
+
+	/** The evidences of interest as map for lookups of slices, or null */
+	private ByteStringIntHashMap evidencesMap;
+
 	/**********************************************************************/
 
 	/** Unique list of items seen so far */
@@ -70,15 +89,18 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 	private List<ByteString> objectIds = new ArrayList<ByteString>();
 
 	/** Maps object symbols to item indices within the items list */
-	private ObjectIntHashMap<ByteString> objectSymbolMap = new ObjectIntHashMap<ByteString>();
+	private ByteStringIntHashMap objectSymbolMap = new ByteStringIntHashMap();
 
 	/** Maps object ids to item indices within the items list */
-	private ObjectIntHashMap<ByteString> objectIdMap = new ObjectIntHashMap<ByteString>();
+	private ByteStringIntHashMap objectIdMap = new ByteStringIntHashMap();
 
 	/** Maps synonyms to item indices within the items list */
-	private ObjectIntHashMap<ByteString> synonymMap = new ObjectIntHashMap<ByteString>();
+	private ByteStringIntHashMap synonymMap = new ByteStringIntHashMap();
+
+	/** The annotation context, created on demand */
+	private AnnotationContext annotationContext;
 
-	public GAFByteLineScanner(IParserInput input, byte [] head, Set<ByteString> names, TermMap terms, Set<ByteString> evidences, IAssociationParserProgress progress)
+	public GAFByteLineScanner(IParserInput input, byte [] head, Set<ByteString> names, TermMap terms, Set<ByteString> evidences, ByteStringPool stringPool, IAssociationParserProgress progress)
 	{
 		super(input.inputStream());
 
@@ -88,7 +110,88 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 		this.names = names;
 		this.terms = terms;
 		this.evidences = evidences;
+		this.stringPool = stringPool;
 		this.progress = progress;
+
+		if (names != null)
+			namesMap = toMap(names);
+		if (evidences != null)
+			evidencesMap = toMap(evidences);
+	}
+
+	private static ByteStringIntHashMap toMap(Set<ByteString> set)
+	{
+		ByteStringIntHashMap map = new ByteStringIntHashMap(set.size());
+		for (ByteString str : set)
+			map.put(str, 1);
+		return map;
+	}
+
+	/**
+	 * @return the given field of the current line as string, for diagnostic purposes.
+	 */
+	private String fieldToString(byte [] buf, int numFields, int field)
+	{
+		if (field >= numFields)
+			return "";
+		return new ByteString(buf, fields[field], fields[field + 1] - 1).toString();
+	}
+
+	/**
+	 * Returns the term that is referenced by the given term field. Terms are
+	 * resolved only once per distinct term field.
+	 *
+	 * @return the term or null if the term is not known.
+	 */
+	private Term resolveTerm(byte [] buf, int from, int to)
+	{
+		int index = termField2Index.getIfAbsent(buf, from, to - from, -1);
+		if (index != -1)
+			return resolvedTerms.get(index);
+
+		TermID termID = new TermID(new ByteString(buf, from, to), prefixPool);
+		Term term = terms.get(termID);
+		if (term == null)
+		{
+			if (altTermID2Term == null)
+			{
+				/* Create the alternative ID to Term map */
+				altTermID2Term = new HashMap<TermID, Term>();
+
+				for (Term t : terms)
+					for (TermID altID : t.getAlternatives())
+						altTermID2Term.put(altID, t);
+			}
+
+			/* Try to find the term among the alternative terms before giving up. */
+			term = altTermID2Term.get(termID);
+		}
+
+		termField2Index.put(buf, from, to - from, resolvedTerms.size());
+		resolvedTerms.add(term);
+		return term;
+	}
+
+	/**
+	 * Determines whether the given field is not empty and is a name of
+	 * interest. Multiple names within the field are separated by pipes.
+	 */
+	private boolean containsName(byte [] buf, int from, int to, boolean split)
+	{
+		if (!split)
+			return namesMap.containsKey(buf, from, to - from);
+
+		int nameFrom = from;
+		for (int i = from; i <= to; i++)
+		{
+			if (i == to || buf[i] == '|')
+			{
+				if (namesMap.containsKey(buf, nameFrom, i - nameFrom))
+					return true;
+				nameFrom = i + 1;
+			}
+		}
+		return false;
 	}
 
 	@Override
@@ -111,15 +214,14 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 		if (len < 1 || buf[start]=='!')
 			return true;
 
-		Association assoc = Association.createFromGAFLine(buf,start,len,prefixPool);
-
-		TermID currentTermID = assoc.getTermID();
-
-		Term currentTerm;
+		/* Filters are evaluated on the raw fields, objects are created only
+		 * for lines that are kept */
+		int numFields = Association.splitGAFLine(buf, start, len, fields);
 
 		good++;
 
-		if (assoc.hasNotQualifier())
+		if (numFields > Association.QUALIFIERFIELD &&
+			Association.isNotQualifier(buf, fields[Association.QUALIFIERFIELD], fields[Association.QUALIFIERFIELD + 1] - 1))
 		{
 			skipped++;
 			nots++;
@@ -132,7 +234,8 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 			 * Skip if evidence of the annotation was not supplied as
 			 * argument
 			 */
-			if (!evidences.contains(assoc.getEvidence()))
+			if (numFields <= Association.EVIDENCEFIELD || !evidencesMap.containsKey(buf,
+					fields[Association.EVIDENCEFIELD], fields[Association.EVIDENCEFIELD + 1] - 1 - fields[Association.EVIDENCEFIELD]))
 			{
 				skipped++;
 				evidenceMismatch++;
@@ -140,80 +243,62 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 			}
 		}
 
-		currentTerm = terms.get(currentTermID);
-		if (currentTerm == null)
-		{
-			if (altTermID2Term == null)
-			{
-				/* Create the alternative ID to Term map */
-				altTermID2Term = new HashMap<TermID, Term>();
+		Term currentTerm = null;
+		if (numFields > Association.GOFIELD)
+			currentTerm = resolveTerm(buf, fields[Association.GOFIELD], fields[Association.GOFIELD + 1] - 1);
 
-				for (Term t : terms)
-					for (TermID altID : t.getAlternatives())
-						altTermID2Term.put(altID, t);
-			}
-
-			/* Try to find the term among the alternative terms before giving up. */
-			currentTerm = altTermID2Term.get(currentTermID);
-			if (currentTerm == null)
-			{
-				System.err.println("Skipping association of item \"" + assoc.getObjectSymbol() + "\" to " + currentTermID + " because the term was not found!");
-				System.err.println("(Are the obo file and the association " + "file both up-to-date?)");
-				skipped++;
-				return true;
-			} else
-			{
-				/* Okay, found, so set the new attributes */
-				currentTermID = currentTerm.getID();
-				assoc.setTermID(currentTermID);
-			}
-		} else
+		if (currentTerm == null)
 		{
-			/* Reset the term id so a unique id is used */
-			currentTermID = currentTerm.getID();
-			assoc.setTermID(currentTermID);
+			System.err.println("Skipping association of item \"" + fieldToString(buf, numFields, Association.DBOBJECTSYMBOLFIELD) + "\" to " + fieldToString(buf, numFields, Association.GOFIELD) + " because the term was not found!");
+			System.err.println("(Are the obo file and the association " + "file both up-to-date?)");
+			skipped++;
+			return true;
 		}
 
+		/* Use the term id of the term, so a unique id is used */
+		TermID currentTermID = currentTerm.getID();
+
 		usedGoTerms.add(currentTermID);
 
 		if (currentTerm.isObsolete())
 		{
-			System.err.println("Skipping association of item \"" + assoc.getObjectSymbol() + "\" to " + currentTermID + " because term is obsolete!");
+			System.err.println("Skipping association of item \"" + fieldToString(buf, numFields, Association.DBOBJECTSYMBOLFIELD) + "\" to " + currentTermID + " because term is obsolete!");
 			System.err.println("(Are the obo file and the association file in sync?)");
 			skipped++;
 			obsolete++;
 			return true;
 		}
 
-		ByteString[] synonyms;
+		int objectFrom = 0, objectTo = 0;
+		if (numFields > Association.DBOBJECTFIELD)
+		{
+			objectFrom = fields[Association.DBOBJECTFIELD];
+			objectTo = fields[Association.DBOBJECTFIELD + 1] - 1;
+		}
 
-		/* populate synonym string field */
-		if (assoc.getSynonym() != null && assoc.getSynonym().length() > 2)
+		int symbolFrom = 0, symbolTo = 0;
+		if (numFields > Association.DBOBJECTSYMBOLFIELD)
 		{
-			/* Note that there can be multiple synonyms, separated by a pipe */
-			synonyms = assoc.getSynonym().splitBySingleChar('|');
-		} else
-			synonyms = null;
+			symbolFrom = fields[Association.DBOBJECTSYMBOLFIELD];
+			symbolTo = fields[Association.DBOBJECTSYMBOLFIELD + 1] - 1;
+		}
+
+		/* Synonyms are considered only if the field is longer than two characters.
+		 * Note that there can be multiple synonyms, separated by a pipe */
+		int synonymFrom = 0, synonymTo = 0;
+		if (numFields > Association.SYNONYMFIELD)
+		{
+			synonymFrom = fields[Association.SYNONYMFIELD];
+			synonymTo = fields[Association.SYNONYMFIELD + 1] - 1;
+		}
+		boolean hasSynonyms = synonymTo - synonymFrom > 2;
 
 		if (names != null)
 		{
 			/* We are only interested in associations to given genes */
-			boolean keep = false;
-
-			/* Check if synonyms are contained */
-			if (synonyms != null)
-			{
-				for (int i = 0; i < synonyms.length; i++)
-				{
-					if (names.contains(synonyms[i]))
-					{
-						keep = true;
-						break;
-					}
-				}
-			}
-
-			if (keep || names.contains(assoc.getObjectSymbol()) || names.contains(assoc.getDB_Object()))
+			if ((hasSynonyms && containsName(buf, synonymFrom, synonymTo, true)) ||
+				containsName(buf, symbolFrom, symbolTo, false) ||
+				containsName(buf, objectFrom, objectTo, false))
 			{
 				kept++;
 			} else
@@ -226,33 +311,39 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 			kept++;
 		}
 
-		/* Add the Association to ArrayList */
-		associations.add(assoc);
-
-		/* And throw them in item buckets */
-		ByteString objectSymbol = assoc.getObjectSymbol();
+		/* Now create the objects, reusing already known instances */
+		ByteString objectSymbol;
+		ByteString dbObject;
 
-		/* New code */
 		int potentialObjectIndex = items.size();
-		int objectIndex = objectSymbolMap.getIfAbsentPut(objectSymbol, potentialObjectIndex);
-		if (objectIndex == potentialObjectIndex)
+		int objectIndex = objectSymbolMap.getIfAbsent(buf, symbolFrom, symbolTo - symbolFrom, -1);
+		if (objectIndex == -1)
 		{
 			/* Object symbol was not seen before */
+			objectIndex = potentialObjectIndex;
+			objectSymbol = stringPool.intern(buf, symbolFrom, symbolTo);
+			dbObject = stringPool.intern(buf, objectFrom, objectTo);
+			objectSymbolMap.put(objectSymbol, objectIndex);
 			items.add(objectSymbol);
-			objectIds.add(assoc.getDB_Object());
+			objectIds.add(dbObject);
 		} else
 		{
 			/* Object symbol was seen before */
-			if (!assoc.getDB_Object().equals(objectIds.get(objectIndex)))
+			objectSymbol = items.get(objectIndex);
+			dbObject = objectIds.get(objectIndex);
+
+			if (!equals(dbObject, buf, objectFrom, objectTo))
 			{
+				dbObject = stringPool.intern(buf, objectFrom, objectTo);
+
 				/* Record this as a synonym now */
-				synonymMap.put(assoc.getDB_Object(), objectIndex);
+				synonymMap.put(dbObject, objectIndex);
 
 				/* Warn about that the same symbol is used with at least two object ids */
 				dbObjectWarnings++;
 				if (dbObjectWarnings < 1000)
 				{
-					String warning = "Line " + lineno + ": Expected that symbol \"" + assoc.getObjectSymbol() + "\" maps to \"" + objectIds.get(objectIndex) + "\" but it maps to \"" + assoc.getDB_Object() + "\"";
+					String warning = "Line " + lineno + ": Expected that symbol \"" + objectSymbol + "\" maps to \"" + objectIds.get(objectIndex) + "\" but it maps to \"" + dbObject + "\"";
 					if (progress != null)
 						progress.warning(warning);
 					logger.warning(warning);
@@ -260,25 +351,55 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 			}
 		}
 
+		ByteString synonym = ByteString.EMPTY;
+		if (numFields > Association.SYNONYMFIELD)
+			synonym = stringPool.intern(buf, synonymFrom, synonymTo);
+
+		ByteString evidence = null;
+		if (numFields > Association.EVIDENCEFIELD)
+			evidence = stringPool.intern(buf, fields[Association.EVIDENCEFIELD], fields[Association.EVIDENCEFIELD + 1] - 1);
+
+		ByteString aspect = null;
+		if (numFields > Association.ASPECTFIELD)
+			aspect = stringPool.intern(buf, fields[Association.ASPECTFIELD], fields[Association.ASPECTFIELD + 1] - 1);
+
+		/* Add the Association to ArrayList */
+		associations.add(new Association(dbObject, objectSymbol, currentTermID, evidence, aspect, false, synonym));
+
 		/* Get how the object id is mapped to our id space */
-		int objectIdIndex = objectIdMap.getIfAbsentPut(assoc.getDB_Object(), objectIndex);
+		int objectIdIndex = objectIdMap.getIfAbsentPut(dbObject, objectIndex);
 		if (objectIdIndex != objectIndex)
 		{
 			/* The same object id is is used for two object symbols, warn about it */
 			symbolWarnings++;
 			if (symbolWarnings < 1000)
 			{
-				String warning = "Line " + lineno + ": Expected that dbObject \"" + assoc.getDB_Object() + "\" maps to symbol \"" + items.get(objectIdIndex) + "\" but it maps to \"" + assoc.getObjectSymbol() + "\"";
+				String warning = "Line " + lineno + ": Expected that dbObject \"" + dbObject + "\" maps to symbol \"" + items.get(objectIdIndex) + "\" but it maps to \"" + objectSymbol + "\"";
 				if (progress != null)
 					progress.warning(warning);
 				logger.warning(warning);
 			}
 		}
 
-		if (synonyms != null)
+		if (hasSynonyms)
 		{
-			for (ByteString synonym : synonyms)
-				synonymMap.put(synonym, objectIndex);
+			for (ByteString s : synonym.splitBySingleChar('|'))
+				synonymMap.put(stringPool.intern(s), objectIndex);
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the given string with the given slice.
+	 */
+	private static boolean equals(ByteString str, byte [] buf, int from, int to)
+	{
+		if (str.length() != to - from)
+			return false;
+		for (int i = 0; i < str.length(); i++)
+		{
+			if (str.byteAt(i) != buf[from + i])
+				return false;
 		}
 		return true;
 	}
@@ -301,7 +422,11 @@ class GAFByteLineScanner extends AbstractByteLineScanner
 	 */
 	public AnnotationContext getAnnotationContext()
 	{
-		return new AnnotationContext(items, objectIds, objectSymbolMap, objectIdMap, synonymMap);
+		if (annotationContext == null)
+		{
+			annotationContext = new AnnotationContext(items, objectIds, objectSymbolMap, objectIdMap, synonymMap);
+		}
+		return annotationContext;
 	}
 };
 
@@ -12,67 +12,118 @@ import ontologizer.types.ByteString;
  * </P>
  * <P>
  * Note that duplicate entries are possible in the association files. For this
- * reason, we make sure there is only one entry for each GO:id number. We do
- * this by storing a list of all goIDs seen in the arrayList goIDs.
+ * reason, the container makes sure there is only one entry for each GO:id number.
  * </P>
  * <P>
  * This class implements the Iterable interface, so you easly can iterate
  * over the associations to this gene.
+ * </P>
+ * <P>
+ * Objects of this class are light-weight views on the columns of an
+ * AssociationContainer. Association objects are created on the fly when
+ * they are iterated, so code that is only interested in the terms should
+ * use {@link #size()}, {@link #getTermIndex(int)} or {@link #getTermID(int)}.
+ * </P>
  *
  * @author Peter Robinson, Sebastian Bauer
  */
 
 public class Gene2Associations implements Iterable<Association>
 {
-	/** Name of the gene for which this object stores 0 - n associations */
-	private ByteString gene;
+	/** The container whose data is viewed */
+	private AssociationContainer container;
+
+	/** The index of the gene within the container */
+	private int item;
+
+	/** The first association of the gene within the container */
+	private int first;
 
-	/** List of GO functional annotations */
-	private ArrayList<Association> associations;
+	/** The number of associations */
+	private int size;
 
-	public Gene2Associations(ByteString name)
+	Gene2Associations(AssociationContainer container, int item)
+	{
+		this.container = container;
+		this.item = item;
+		this.first = container.getFirstAssociation(item);
+		this.size = container.getFirstAssociation(item + 1) - first;
+	}
+
+	public ByteString name()
 	{
-		associations = new ArrayList<Association>();
-		gene = name;
+		return container.getMapping().getSymbols()[item];
 	}
 
 	/**
-	 * Add a new association to the gene.
+	 * @return the number of associations of this gene.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the index of the term of the i'th association. The index
+	 * refers to the container, see {@link AssociationContainer#getTermID(int)}.
 	 *
-	 * @param a defines the association to be added.
+	 * @param i
+	 * @return the term index
 	 */
-	public void add(Association a)
+	public int getTermIndex(int i)
 	{
-		/* Only add, if association is really associated with the gene */
-		if (gene.equals(a.getObjectSymbol()))
-		{
-			if (containsID(a.getTermID()))
-				return;
+		return container.getTermIndex(first + i);
+	}
 
-			associations.add(a);
-		}
+	/**
+	 * @param i
+	 * @return the term id of the i'th association.
+	 */
+	public TermID getTermID(int i)
+	{
+		return container.getTermID(container.getTermIndex(first + i));
 	}
 
-	public ByteString name()
+	/**
+	 * @param i
+	 * @return the evidence of the i'th association.
+	 */
+	public ByteString getEvidence(int i)
 	{
-		return gene;
+		return container.getEvidence(first + i);
 	}
 
 	/**
-	 * Get an arraylist of all GO Ids to which this gene is directly
-	 * annotated by extracting the information from the Association object(s)
-	 * belonging to the gene.
+	 * @param i
+	 * @return the evidence bit of the i'th association, see {@link AssociationContainer#getEvidenceBit(int)}.
 	 */
-	public ArrayList<TermID> getAssociations()
+	public long getEvidenceBit(int i)
 	{
-		ArrayList<TermID> a = new ArrayList<TermID>();
-		Iterator<Association> it = associations.iterator();
-		while (it.hasNext())
+		return container.getEvidenceBit(first + i);
+	}
+
+	/**
+	 * Get a list of all GO Ids to which this gene is directly annotated.
+	 * The list is an unmodifiable view, no data is copied.
+	 */
+	public List<TermID> getAssociations()
+	{
+		return new AbstractList<TermID>()
 		{
-			Association assoc = it.next();
-			a.add(assoc.getTermID());
-		}
-		return a;
+			@Override
+			public TermID get(int index)
+			{
+				if (index < 0 || index >= size)
+					throw new IndexOutOfBoundsException();
+				return getTermID(index);
+			}
+
+			@Override
+			public int size()
+			{
+				return size;
+			}
+		};
 	}
 
 	/**
@@ -80,7 +131,30 @@ public class Gene2Associations implements Iterable<Association>
 	 */
 	public Iterator<Association> iterator()
 	{
-		return associations.iterator();
+		return new Iterator<Association>()
+		{
+			private int i;
+
+			@Override
+			public boolean hasNext()
+			{
+				return i < size;
+			}
+
+			@Override
+			public Association next()
+			{
+				if (i >= size)
+					throw new NoSuchElementException();
+				return container.createAssociation(first + i++, item);
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 
 	/**
@@ -91,9 +165,9 @@ public class Gene2Associations implements Iterable<Association>
 	 */
 	public boolean containsID(TermID tid)
 	{
-		for (Association assoc : associations)
+		for (int i = 0; i < size; i++)
 		{
-			if (assoc.getTermID().equals(tid))
+			if (getTermID(i).equals(tid))
 				return true;
 		}
 		return false;
@@ -0,0 +1,169 @@
+package ontologizer.association;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import ontologizer.types.ByteString;
+
+/**
+ * A prefix index over all names of the items of an annotation context,
+ * i.e., the symbols, the object ids and the synonyms. Names are compared
+ * in a case-insensitive manner.
+ *
+ * The index is a sorted array of the case-folded names, so a prefix query
+ * is answered by a binary search followed by a linear scan over the k
+ * matching names, which are already in order.
+ */
+public class ItemNameIndex
+{
+	/** The case-folded names in ascending order */
+	private byte [][] keys;
+
+	/** The original names, in the same order as keys */
+	private ByteString [] names;
+
+	/**
+	 * Constructs the index for the given annotation context.
+	 *
+	 * @param context the context whose names shall be indexed.
+	 */
+	public ItemNameIndex(AnnotationContext context)
+	{
+		List<ByteString> allNames = new ArrayList<ByteString>();
+		for (ByteString symbol : context.getSymbols())
+			allNames.add(symbol);
+		allNames.addAll(context.getDbObjectID2Symbol().keySet());
+		allNames.addAll(context.getSynonym2Symbol().keySet());
+
+		int n = allNames.size();
+		final byte [][] allKeys = new byte[n][];
+		Integer [] order = new Integer[n];
+		for (int i = 0; i < n; i++)
+		{
+			allKeys[i] = fold(allNames.get(i).toString());
+			order[i] = i;
+		}
+
+		final ByteString [] nameArray = allNames.toArray(new ByteString[n]);
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer o1, Integer o2)
+			{
+				int c = compareKeys(allKeys[o1], allKeys[o2]);
+				if (c != 0) return c;
+				return nameArray[o1].compareTo(nameArray[o2]);
+			}
+		});
+
+		/* Copy in sorted order while skipping names that occur more than once */
+		keys = new byte[n][];
+		names = new ByteString[n];
+		int m = 0;
+		for (int i = 0; i < n; i++)
+		{
+			ByteString name = nameArray[order[i]];
+			if (m > 0 && names[m - 1].equals(name))
+				continue;
+			keys[m] = allKeys[order[i]];
+			names[m] = name;
+			m++;
+		}
+		if (m != n)
+		{
+			keys = Arrays.copyOf(keys, m);
+			names = Arrays.copyOf(names, m);
+		}
+	}
+
+	/**
+	 * @return the number of distinct names within the index.
+	 */
+	public int size()
+	{
+		return names.length;
+	}
+
+	/**
+	 * Returns the names that start with the given prefix, ignoring the case.
+	 * The names are returned in case-insensitive lexicographical order.
+	 *
+	 * @param prefix the prefix.
+	 * @param limit the maximum number of names that are returned.
+	 * @return the matching names.
+	 */
+	public List<ByteString> findByPrefix(String prefix, int limit)
+	{
+		byte [] foldedPrefix = fold(prefix);
+		List<ByteString> result = new ArrayList<ByteString>();
+
+		for (int i = lowerBound(foldedPrefix); i < keys.length && result.size() < limit; i++)
+		{
+			if (!isPrefix(foldedPrefix, keys[i]))
+				break;
+			result.add(names[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the position of the first key that is not smaller than
+	 * the given key.
+	 *
+	 * @param key
+	 * @return the position.
+	 */
+	private int lowerBound(byte [] key)
+	{
+		int lo = 0;
+		int hi = keys.length;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (compareKeys(keys[mid], key) < 0) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	private static boolean isPrefix(byte [] prefix, byte [] key)
+	{
+		if (prefix.length > key.length)
+			return false;
+		for (int i = 0; i < prefix.length; i++)
+		{
+			if (prefix[i] != key[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Compares the given byte arrays lexicographically, treating the
+	 * bytes as unsigned.
+	 */
+	private static int compareKeys(byte [] a, byte [] b)
+	{
+		int l = Math.min(a.length, b.length);
+		for (int i = 0; i < l; i++)
+		{
+			int c = (a[i] & 0xff) - (b[i] & 0xff);
+			if (c != 0) return c;
+		}
+		return a.length - b.length;
+	}
+
+	/**
+	 * Case folds the given string in the same way as
+	 * {@link ByteString#startsWithIgnoreCase(String)} does.
+	 */
+	private static byte [] fold(String str)
+	{
+		byte [] folded = new byte[str.length()];
+		for (int i = 0; i < folded.length; i++)
+			folded[i] = (byte)Character.toLowerCase(str.charAt(i) & 0xff);
+		return folded;
+	}
+}
@@ -46,6 +46,27 @@ public abstract class AbstractGOTermProperties extends PValue
 	 */
 	public abstract String getProperty(int propNumber);
 
+	/**
+	 * Append the specified property of the term represented by the object
+	 * to the given string builder. The default implementation simply
+	 * delegates to {@link #getProperty(int)}. Subclasses may override this
+	 * in order to avoid the creation of temporary strings when writing
+	 * large tables.
+	 *
+	 * @param propNumber
+	 * @param sb the string builder to which the property is appended.
+	 * @return whether the property was available. If false, nothing has
+	 *         been appended.
+	 */
+	public boolean appendProperty(int propNumber, StringBuilder sb)
+	{
+		String prop = getProperty(propNumber);
+		if (prop == null)
+			return false;
+		sb.append(prop);
+		return true;
+	}
+
 	/**
 	 * Sometimes it is convenient to store the population gene count
 	 * (e.g. within a table). However, since this information does
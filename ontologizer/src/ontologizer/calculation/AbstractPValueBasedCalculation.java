@@ -4,6 +4,7 @@ import ontologizer.association.AssociationContainer;
 import ontologizer.ontology.Ontology;
 import ontologizer.set.PopulationSet;
 import ontologizer.set.StudySet;
+import ontologizer.statistics.AbstractResamplingTestCorrection;
 import ontologizer.statistics.AbstractTestCorrection;
 import ontologizer.statistics.Hypergeometric;
 import ontologizer.statistics.IPValueCalculation;
@@ -47,6 +48,8 @@ public abstract class AbstractPValueBasedCalculation extends AbstractHypergeomet
 
 		IPValueCalculation pValueCalculation = newPValueCalculation(graph, associations, populationSet, studySet, hyperg);
 		PValue p[] = testCorrection.adjustPValues(pValueCalculation, CalculationProgress2TestCorrectionProgress.createUnlessNull(calculationProgress));
+		if (testCorrection instanceof AbstractResamplingTestCorrection)
+			studySetResult.setNumberOfResamplingSteps(((AbstractResamplingTestCorrection)testCorrection).getNumberOfUsedResamplingSteps());
 
 		/* Add the results to the result list and filter out terms
 		 * with no annotated genes.
@@ -1,24 +1,21 @@
 package ontologizer.calculation;
 
 import java.util.Arrays;
-import java.util.List;
 
 import ontologizer.association.AssociationContainer;
 import ontologizer.association.Gene2Associations;
-import ontologizer.enumeration.TermEnumerator;
-import ontologizer.enumeration.TermEnumerator.TermAnnotatedGenes;
 import ontologizer.ontology.Ontology;
 import ontologizer.ontology.TermID;
 import ontologizer.set.PopulationSet;
 import ontologizer.set.StudySet;
 import ontologizer.statistics.Hypergeometric;
-import ontologizer.statistics.IPValueCalculation;
 import ontologizer.statistics.IPValueCalculationProgress;
+import ontologizer.statistics.IPrimitivePValueCalculation;
 import ontologizer.statistics.PValue;
 import ontologizer.types.ByteString;
-import sonumina.collections.ObjectIntHashMap;
+import ontologizer.types.ByteStringIntHashMap;
 
-public abstract class AbstractPValueCalculation implements IPValueCalculation
+public abstract class AbstractPValueCalculation implements IPrimitivePValueCalculation
 {
 	protected final Ontology graph;
 	protected final AssociationContainer associations;
@@ -26,12 +23,10 @@ public abstract class AbstractPValueCalculation implements IPValueCalculation
 	protected final StudySet observedStudySet;
 	protected final Hypergeometric hyperg;
 
-	private int totalNumberOfAnnotatedTerms;
-
-	protected ObjectIntHashMap<ByteString> item2Index;
-	protected TermID [] termIds;
-	private ObjectIntHashMap<TermID> termId2Index;
-	protected int [][] term2Items;
+	protected final PopulationIndex populationIndex;
+	protected final ByteStringIntHashMap item2Index;
+	protected final TermID [] termIds;
+	protected final int [][] term2Items;
 
 	public AbstractPValueCalculation(Ontology graph,
 			AssociationContainer goAssociations, PopulationSet populationSet,
@@ -43,50 +38,16 @@ public abstract class AbstractPValueCalculation implements IPValueCalculation
 		this.observedStudySet = studySet;
 		this.hyperg = hyperg;
 
-		initCalculationContext(graph, goAssociations, populationSet);
-	}
-
-	private void initCalculationContext(Ontology graph, AssociationContainer goAssociations, StudySet populationSet)
-	{
-		TermEnumerator populationTermEnumerator = populationSet.enumerateTerms(graph, goAssociations);
-		totalNumberOfAnnotatedTerms = populationTermEnumerator.getTotalNumberOfAnnotatedTerms();
-
-		List<ByteString> itemList = populationTermEnumerator.getGenesAsList();
-		item2Index = new ObjectIntHashMap<ByteString>(itemList.size()*3/2);
-		int itemId = 0;
-		for (ByteString item : itemList)
-		{
-			item2Index.put(item, itemId++);
-		}
-
-		termIds = new TermID[totalNumberOfAnnotatedTerms];
-		term2Items = new int[totalNumberOfAnnotatedTerms][];
-
-		int i = 0;
-
-		for (TermID term : populationTermEnumerator)
-		{
-			TermAnnotatedGenes tag = populationTermEnumerator.getAnnotatedGenes(term);
-			int nTermItems = tag.totalAnnotated.size();
-
-			term2Items[i] = new int[nTermItems];
-
-			int j = 0;
-			for (ByteString item : tag.totalAnnotated)
-			{
-				term2Items[i][j++] = item2Index.get(item);
-			}
-
-			Arrays.sort(term2Items[i]);
-
-			termIds[i] = term;
-			i++;
-		}
+		/* The index is shared among all calculations on the same population */
+		populationIndex = PopulationIndex.get(graph, goAssociations, populationSet);
+		item2Index = populationIndex.item2Index;
+		termIds = populationIndex.termIds;
+		term2Items = populationIndex.term2Items;
 	}
 
 	protected final int getTotalNumberOfAnnotatedTerms()
 	{
-		return totalNumberOfAnnotatedTerms;
+		return termIds.length;
 	}
 
 	public final int currentStudySetSize()
@@ -119,6 +80,30 @@ public abstract class AbstractPValueCalculation implements IPValueCalculation
 		return calculatePValues(populationSet.generateRandomStudySet(observedStudySet.getGeneCount()), progress);
 	}
 
+	/**
+	 * Calculate the p-values for the given study set, but store only the
+	 * p-values and the ignore flags in the given arrays. Subclasses should
+	 * override this to avoid creating the p-value objects.
+	 *
+	 * @param studySet the studyset.
+	 * @param p receives the p-values.
+	 * @param ignoreAtMTC receives the ignore flags, may be null.
+	 */
+	protected void calculatePValues(StudySet studySet, double [] p, boolean [] ignoreAtMTC)
+	{
+		PValue [] pvals = calculatePValues(studySet, null);
+		for (int i = 0; i < pvals.length; i++)
+		{
+			p[i] = pvals[i].p;
+			if (ignoreAtMTC != null) ignoreAtMTC[i] = pvals[i].ignoreAtMTC;
+		}
+	}
+
+	public final void calculateRandomPValues(double [] p, boolean [] ignoreAtMTC)
+	{
+		calculatePValues(populationSet.generateRandomStudySet(observedStudySet.getGeneCount()), p, ignoreAtMTC);
+	}
+
 
 	/**
 	 * Get a unique id representation of the given study set.
@@ -167,12 +152,6 @@ public abstract class AbstractPValueCalculation implements IPValueCalculation
 	 */
 	protected final int getIndex(TermID tid)
 	{
-		if (termId2Index == null)
-		{
-			termId2Index = new ObjectIntHashMap<TermID>(termIds.length);
-			for (int i = 0; i < termIds.length; i++)
-				termId2Index.put(termIds[i], i);
-		}
-		return termId2Index.getIfAbsentPut(tid, Integer.MAX_VALUE);
+		return populationIndex.getTermIndex(tid);
 	}
 }
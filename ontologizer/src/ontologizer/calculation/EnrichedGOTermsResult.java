@@ -36,6 +36,7 @@ public class EnrichedGOTermsResult extends AbstractGOTermsResult
 
 	private String calculationName;
 	private String correctionName;
+	private int numberOfResamplingSteps;
 
 	/**
 	 *
@@ -87,6 +88,20 @@ public class EnrichedGOTermsResult extends AbstractGOTermsResult
 		this.correctionName = correctionName;
 	}
 
+	/**
+	 * @return the number of resampling steps that were performed by the
+	 *  multiple test correction, or 0 if it is not resampling based.
+	 */
+	public int getNumberOfResamplingSteps()
+	{
+		return numberOfResamplingSteps;
+	}
+
+	public void setNumberOfResamplingSteps(int numberOfResamplingSteps)
+	{
+		this.numberOfResamplingSteps = numberOfResamplingSteps;
+	}
+
 	/**
 	 * Returns the set of terms for which the all-subset minimal p-value is
 	 * below the given cutoff. Those are the "good" terms.
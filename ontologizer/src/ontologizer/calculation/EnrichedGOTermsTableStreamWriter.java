@@ -0,0 +1,251 @@
+package ontologizer.calculation;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import ontologizer.ontology.Ontology;
+
+/**
+ * A reusable writer for enrichment result tables. In contrast to the static
+ * methods of {@link EnrichedGOTermsTableWriter}, an instance of this class keeps
+ * its line and sort buffers between several tables, and writes each row directly
+ * into a buffered stream rather than creating one string per term. This makes
+ * it suitable for batch analyses, in which a result is written as soon as its
+ * calculation has been finished and can be discarded afterwards.
+ *
+ * Besides the tab-separated format that is also produced by
+ * {@link EnrichedGOTermsTableWriter}, the writer supports a compact columnar
+ * binary format (see {@link Format#BINARY}). Both formats can be optionally
+ * gzip compressed.
+ */
+public class EnrichedGOTermsTableStreamWriter
+{
+	private static Logger logger = Logger.getLogger(EnrichedGOTermsTableStreamWriter.class.getName());
+
+	/** Magic number of the binary format ("OTBL") */
+	public static final int BINARY_MAGIC = 0x4f54424c;
+
+	/** Version of the binary format */
+	public static final int BINARY_VERSION = 1;
+
+	/** Size of the buffers used for the streams */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/** The line separator of the rows, as written by PrintWriter.println() before */
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	/**
+	 * The supported output formats.
+	 */
+	public static enum Format
+	{
+		/** The tab-separated format, one row per term, sorted by p value */
+		TSV,
+
+		/**
+		 * A columnar binary format, written via {@link DataOutputStream}.
+		 * The layout is as follows: the magic int {@link #BINARY_MAGIC}, the
+		 * version int, the population gene count (int), the study gene count
+		 * (int) and the number of rows n (int). This is followed by the
+		 * columns, each holding n values: term ids (UTF), annotated population
+		 * genes (int), annotated study genes (int), p (double), adjusted p
+		 * (double), minimal p (double) and the ignoreAtMTC flags (boolean).
+		 * Rows are sorted by p value.
+		 */
+		BINARY
+	};
+
+	private final Format format;
+	private final boolean gzip;
+
+	/** The buffer for a single line, reused for all lines */
+	private StringBuilder line = new StringBuilder(256);
+
+	/** The characters of the line, reused for all lines */
+	private char [] lineChars = new char[256];
+
+	/** The buffer that is used for sorting, reused for all tables */
+	private AbstractGOTermProperties [] props = new AbstractGOTermProperties[0];
+
+	/**
+	 * Constructs a writer for uncompressed tab-separated tables.
+	 */
+	public EnrichedGOTermsTableStreamWriter()
+	{
+		this(Format.TSV, false);
+	}
+
+	/**
+	 * Constructs a writer.
+	 *
+	 * @param format the format of the tables.
+	 * @param gzip whether the tables should be gzip compressed.
+	 */
+	public EnrichedGOTermsTableStreamWriter(Format format, boolean gzip)
+	{
+		this.format = format;
+		this.gzip = gzip;
+	}
+
+	/**
+	 * @return the format of the tables written by this writer.
+	 */
+	public Format getFormat()
+	{
+		return format;
+	}
+
+	/**
+	 * @return whether the tables are gzip compressed.
+	 */
+	public boolean isGzip()
+	{
+		return gzip;
+	}
+
+	/**
+	 * Returns the suffix that is appropriate for tables written by this
+	 * writer, e.g., ".txt" or ".txt.gz".
+	 *
+	 * @return the suffix including the leading dot.
+	 */
+	public String getSuffix()
+	{
+		String suffix = format == Format.TSV ? ".txt" : ".bin";
+		if (gzip) suffix += ".gz";
+		return suffix;
+	}
+
+	/**
+	 * Write the results to the given file.
+	 *
+	 * @param file the file that should be written.
+	 * @param result the results to save.
+	 * @throws IOException
+	 */
+	public void writeTable(File file, EnrichedGOTermsResult result) throws IOException
+	{
+		logger.log(Level.INFO, "Writing to \"" + file.getCanonicalPath() + "\".");
+
+		OutputStream out = new FileOutputStream(file);
+		try
+		{
+			writeTable(out, result);
+		} finally
+		{
+			out.close();
+		}
+
+		logger.log(Level.INFO, "\"" + file.getCanonicalPath() + "\"" + " successfully written.");
+	}
+
+	/**
+	 * Write the results to the given output stream. The stream is flushed
+	 * but not closed. An empty result yields a binary table without rows,
+	 * or a tab-separated table without a header, as the columns depend on
+	 * the type of the properties.
+	 *
+	 * @param os the stream in which the data is written to.
+	 * @param result the results to save.
+	 * @throws IOException
+	 */
+	public void writeTable(OutputStream os, EnrichedGOTermsResult result) throws IOException
+	{
+		int n = sortedProps(result);
+
+		GZIPOutputStream gzipOut = null;
+		if (gzip)
+			os = gzipOut = new GZIPOutputStream(os, BUFFER_SIZE);
+
+		switch (format)
+		{
+			case TSV: writeTSV(os, result, n); break;
+			case BINARY: writeBinary(os, result, n); break;
+		}
+
+		if (gzipOut != null)
+			gzipOut.finish();
+		os.flush();
+	}
+
+	/**
+	 * Place the properties of the result into the sort buffer and sort them.
+	 *
+	 * @param result
+	 * @return the number of valid entries within the buffer.
+	 */
+	private int sortedProps(EnrichedGOTermsResult result)
+	{
+		int n = result.getSize();
+		if (props.length < n)
+			props = new AbstractGOTermProperties[n];
+
+		int i = 0;
+		for (AbstractGOTermProperties p : result)
+			props[i++] = p;
+		Arrays.sort(props, 0, n);
+		return n;
+	}
+
+	private void writeTSV(OutputStream os, EnrichedGOTermsResult result, int n) throws IOException
+	{
+		Writer out = new BufferedWriter(new OutputStreamWriter(os), BUFFER_SIZE);
+		Ontology o = result.getGO();
+		int populationGeneCount = result.getPopulationGeneCount();
+		int studyGeneCount = result.getStudyGeneCount();
+
+		if (n > 0)
+			out.write(EnrichedGOTermsTableWriter.propHeaderToString(props[0]));
+
+		for (int i = 0; i < n; i++)
+		{
+			line.setLength(0);
+			EnrichedGOTermsTableWriter.appendPropLine(line, o, props[i], populationGeneCount, studyGeneCount);
+			line.append(LINE_SEPARATOR);
+
+			int len = line.length();
+			if (lineChars.length < len)
+				lineChars = new char[Math.max(len, lineChars.length * 2)];
+			line.getChars(0, len, lineChars, 0);
+			out.write(lineChars, 0, len);
+			props[i] = null;
+		}
+		out.flush();
+	}
+
+	private void writeBinary(OutputStream os, EnrichedGOTermsResult result, int n) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, BUFFER_SIZE));
+		int i;
+
+		out.writeInt(BINARY_MAGIC);
+		out.writeInt(BINARY_VERSION);
+		out.writeInt(result.getPopulationGeneCount());
+		out.writeInt(result.getStudyGeneCount());
+		out.writeInt(n);
+
+		for (i = 0; i < n; i++) out.writeUTF(props[i].term.toString());
+		for (i = 0; i < n; i++) out.writeInt(props[i].annotatedPopulationGenes);
+		for (i = 0; i < n; i++) out.writeInt(props[i].annotatedStudyGenes);
+		for (i = 0; i < n; i++) out.writeDouble(props[i].p);
+		for (i = 0; i < n; i++) out.writeDouble(props[i].p_adjusted);
+		for (i = 0; i < n; i++) out.writeDouble(props[i].p_min);
+		for (i = 0; i < n; i++)
+		{
+			out.writeBoolean(props[i].ignoreAtMTC);
+			props[i] = null;
+		}
+		out.flush();
+	}
+}
@@ -4,9 +4,6 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,22 +38,38 @@ public class EnrichedGOTermsTableWriter
 	//TODO: Solve the passing of StudySet related data differently
 
 	public static String propLineToString(Ontology o, AbstractGOTermProperties p, int populationGeneCount, int studyGeneCount)
+	{
+		StringBuilder locstr = new StringBuilder();
+		appendPropLine(locstr, o, p, populationGeneCount, studyGeneCount);
+		return locstr.toString();
+	}
+
+	/**
+	 * Appends a line giving the data in the object to the given builder.
+	 * This is the same as {@link #propLineToString(Ontology, AbstractGOTermProperties, int, int)}
+	 * but allows the caller to reuse the builder for many lines.
+	 *
+	 * @param locstr the builder to which the line is appended (without
+	 *        a terminating newline)
+	 * @param o
+	 * @param p
+	 * @param populationGeneCount
+	 * @param studyGeneCount
+	 */
+	public static void appendPropLine(StringBuilder locstr, Ontology o, AbstractGOTermProperties p, int populationGeneCount, int studyGeneCount)
 	{
 		int i;
 		int columns;
-		StringBuilder locstr = new StringBuilder();
 		columns = p.getNumberOfProperties();
 
 		for (i=0;i<columns;i++)
 		{
-			String prop = p.getProperty(i);
-			if (prop == null)
+			if (!p.appendProperty(i, locstr))
 			{
-				if (p.isPropertyPopulationGeneCount(i)) prop = Integer.toString(populationGeneCount);
-				else if (p.isPropertyStudyGeneCount(i)) prop = Integer.toString(studyGeneCount);
+				if (p.isPropertyPopulationGeneCount(i)) locstr.append(populationGeneCount);
+				else if (p.isPropertyStudyGeneCount(i)) locstr.append(studyGeneCount);
+				else locstr.append((String)null);
 			}
-
-			locstr.append(prop);
 			locstr.append("\t");
 		}
 		Term t = o.getTerm(p.term);
@@ -64,8 +77,6 @@ public class EnrichedGOTermsTableWriter
 			locstr.append(t.getName());
 		else
 			locstr.append("Unknown");
-
-		return locstr.toString();
 	}
 
 	/**
@@ -101,29 +112,13 @@ public class EnrichedGOTermsTableWriter
 	 */
 	public static void writeTable(OutputStream os, EnrichedGOTermsResult result)
 	{
-		PrintWriter out = new PrintWriter(os);
-
-		if (!result.iterator().hasNext())
-			return;
-
-		AbstractGOTermProperties first = result.iterator().next();
-
-		/* Write out the table header */
-
-		out.write(propHeaderToString(first));
-
-		/* Place the result into an own list, so we can sort the results */
-		ArrayList<AbstractGOTermProperties> propsList = new ArrayList<AbstractGOTermProperties>();
-		for (AbstractGOTermProperties props : result)
-			propsList.add(props);
-		Collections.sort(propsList);
-
-		/* Write out table contents */
-		for (AbstractGOTermProperties props : propsList)
+		try
 		{
-			out.println(propLineToString(result.go, props, result.getPopulationGeneCount(), result.getStudyGeneCount()));
+			new EnrichedGOTermsTableStreamWriter().writeTable(os, result);
+		} catch (IOException e)
+		{
+			logger.log(Level.SEVERE, "Exception occured when writing the table.", e);
 		}
-		out.flush();
 	}
 
 	/**
@@ -48,6 +48,24 @@ public class ParentChildGOTermProperties extends AbstractGOTermProperties
 		return null;
 	}
 
+	@Override
+	public boolean appendProperty(int propNumber, StringBuilder sb)
+	{
+		switch (propNumber)
+		{
+			case	2: sb.append(annotatedPopulationGenes); return true;
+			case 	4: sb.append(annotatedStudyGenes); return true;
+			case	5: sb.append(popFamilyGenes); return true;
+			case	6: sb.append(studyFamilyGenes); return true;
+			case	7: sb.append(nparents); return true;
+			case	8: sb.append(ignoreAtMTC); return true;
+			case	9: sb.append(p); return true;
+			case	10: sb.append(p_adjusted); return true;
+			case	11: sb.append(p_min); return true;
+		}
+		return super.appendProperty(propNumber, sb);
+	}
+
 	public boolean isPropertyPopulationGeneCount(int propNumber)
 	{
 		return propNumber == 1;
@@ -138,6 +138,37 @@ abstract class ParentChildPValuesCalculation extends AbstractPValueCalculation
 		return prop;
 	}
 
+	@Override
+	protected void calculatePValues(StudySet studySet, double [] p, boolean [] ignoreAtMTC)
+	{
+		int[] studyIds = getUniqueIDs(studySet);
+
+		for (int i = 0; i < termIds.length; i++)
+		{
+			TermID termId = termIds[i];
+			int studyTermCount = Util.commonInts(studyIds, term2Items[i]);
+			int popTermCount = term2Items[i].length;
+
+			p[i] = 1.0;
+			if (ignoreAtMTC != null) ignoreAtMTC[i] = true;
+
+			/* The family counts are only needed for the p value, see calculateTerm() */
+			if (studyTermCount == 0 || graph.isRootTerm(termId))
+				continue;
+
+			Counts counts = getCounts(studyIds, graph.getTerm(termId));
+			if (counts.popFamilyCount == popTermCount)
+				continue;
+
+			p[i] = hyperg.phypergeometric(
+					counts.popFamilyCount,
+					(double)popTermCount / (double)counts.popFamilyCount,
+					counts.studyFamilyCount,
+					studyTermCount);
+			if (ignoreAtMTC != null) ignoreAtMTC[i] = false;
+		}
+	}
+
 	/**
 	 * Calculate the counts for the given study set ids for the term.
 	 *
@@ -0,0 +1,159 @@
+package ontologizer.calculation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import ontologizer.association.AssociationContainer;
+import ontologizer.enumeration.TermEnumerator;
+import ontologizer.enumeration.TermEnumerator.TermAnnotatedGenes;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.TermID;
+import ontologizer.set.StudySet;
+import ontologizer.types.ByteString;
+import ontologizer.types.ByteStringIntHashMap;
+import sonumina.collections.ObjectIntHashMap;
+
+/**
+ * An integer based index of a population. Items and annotated terms of the
+ * population are mapped to consecutive integers, and for each term the sorted
+ * indices of all annotated items are stored.
+ *
+ * The index depends only on the population, hence it can be shared by the
+ * p-value calculations of all study sets that are analysed against the same
+ * population. It is not altered after construction, so it can be safely
+ * accessed by multiple threads.
+ */
+public class PopulationIndex
+{
+	/** Indices that are already built, keyed by the term enumerator of the population */
+	private static Map<TermEnumerator, PopulationIndex> cache = Collections.synchronizedMap(new WeakHashMap<TermEnumerator, PopulationIndex>());
+
+	/** Maps items to their index */
+	final ByteStringIntHashMap item2Index;
+
+	/** Maps term indices to term ids */
+	final TermID [] termIds;
+
+	/** Maps term ids to term indices */
+	private final ObjectIntHashMap<TermID> termId2Index;
+
+	/** Maps term indices to the sorted indices of the annotated items */
+	final int [][] term2Items;
+
+	/**
+	 * Constructs the index for the given population.
+	 *
+	 * @param graph the ontology.
+	 * @param goAssociations the associations.
+	 * @param populationSet the population.
+	 */
+	public PopulationIndex(Ontology graph, AssociationContainer goAssociations, StudySet populationSet)
+	{
+		this(populationSet.enumerateTerms(graph, goAssociations));
+	}
+
+	private PopulationIndex(TermEnumerator populationTermEnumerator)
+	{
+		int totalNumberOfAnnotatedTerms = populationTermEnumerator.getTotalNumberOfAnnotatedTerms();
+
+		List<ByteString> itemList = populationTermEnumerator.getGenesAsList();
+		item2Index = new ByteStringIntHashMap(itemList.size());
+		int itemId = 0;
+		for (ByteString item : itemList)
+		{
+			item2Index.put(item, itemId++);
+		}
+
+		termIds = new TermID[totalNumberOfAnnotatedTerms];
+		termId2Index = new ObjectIntHashMap<TermID>(totalNumberOfAnnotatedTerms);
+		term2Items = new int[totalNumberOfAnnotatedTerms][];
+
+		int i = 0;
+
+		for (TermID term : populationTermEnumerator)
+		{
+			TermAnnotatedGenes tag = populationTermEnumerator.getAnnotatedGenes(term);
+			int nTermItems = tag.totalAnnotated.size();
+
+			term2Items[i] = new int[nTermItems];
+
+			int j = 0;
+			for (ByteString item : tag.totalAnnotated)
+			{
+				term2Items[i][j++] = item2Index.get(item);
+			}
+
+			Arrays.sort(term2Items[i]);
+
+			termIds[i] = term;
+			termId2Index.put(term, i);
+			i++;
+		}
+	}
+
+	/**
+	 * Returns the index of the given population. The index is built only
+	 * once as long as the population is not altered, i.e., as long as its
+	 * term enumerator is not reset.
+	 *
+	 * @param graph the ontology.
+	 * @param goAssociations the associations.
+	 * @param populationSet the population.
+	 * @return the index.
+	 */
+	public static PopulationIndex get(Ontology graph, AssociationContainer goAssociations, StudySet populationSet)
+	{
+		TermEnumerator populationTermEnumerator = populationSet.enumerateTerms(graph, goAssociations);
+
+		/* Building the index twice in case of concurrent calls does no harm, so
+		 * we don't hold the lock during construction */
+		PopulationIndex index = cache.get(populationTermEnumerator);
+		if (index == null)
+		{
+			index = new PopulationIndex(populationTermEnumerator);
+			cache.put(populationTermEnumerator, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the number of annotated terms.
+	 */
+	public int getNumberOfTerms()
+	{
+		return termIds.length;
+	}
+
+	/**
+	 * @return the number of items.
+	 */
+	public int getNumberOfItems()
+	{
+		return item2Index.size();
+	}
+
+	/**
+	 * Return the index of the given term.
+	 *
+	 * @param tid the term whose index shall be determined
+	 * @return the index or Integer.MAX_VALUE if the term id is not known.
+	 */
+	public int getTermIndex(TermID tid)
+	{
+		return termId2Index.getIfAbsent(tid, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Return the index of the given item.
+	 *
+	 * @param item the item whose index shall be determined
+	 * @return the index or Integer.MAX_VALUE if the item is not known.
+	 */
+	public int getItemIndex(ByteString item)
+	{
+		return item2Index.getIfAbsent(item, Integer.MAX_VALUE);
+	}
+}
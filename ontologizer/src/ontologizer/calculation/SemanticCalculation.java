@@ -447,7 +447,7 @@ public class SemanticCalculation
 		{
 			gene2index.put(gene,i);
 
-			ArrayList<TermID> assocList = assoc.get(gene).getAssociations();
+			List<TermID> assocList = assoc.get(gene).getAssociations();
 			HashSet<TermID> inducedNodes = new HashSet<TermID>();
 			for (TermID tid : assocList)
 				inducedNodes.addAll(g.getTermsOfInducedGraph(null, tid));
@@ -41,6 +41,20 @@ public class TermForTermGOTermProperties extends AbstractGOTermProperties
 		return null;
 	}
 
+	@Override
+	public boolean appendProperty(int propNumber, StringBuilder sb)
+	{
+		switch (propNumber)
+		{
+			case	2: sb.append(annotatedPopulationGenes); return true;
+			case 	4: sb.append(annotatedStudyGenes); return true;
+			case	5: sb.append(p); return true;
+			case	6: sb.append(p_adjusted); return true;
+			case	7: sb.append(p_min); return true;
+		}
+		return super.appendProperty(propNumber, sb);
+	}
+
 	@Override
 	public boolean isPropertyPopulationGeneCount(int propNumber)
 	{
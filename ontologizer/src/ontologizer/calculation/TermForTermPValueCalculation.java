@@ -81,4 +81,29 @@ public class TermForTermPValueCalculation extends AbstractPValueCalculation
 		}
 		return p;
 	}
+
+	@Override
+	protected void calculatePValues(StudySet studySet, double [] p, boolean [] ignoreAtMTC)
+	{
+		int[] studyIds = getUniqueIDs(studySet);
+		int popGeneCount = populationSet.getGeneCount();
+		int studyGeneCount = studySet.getGeneCount();
+
+		for (int i = 0; i < termIds.length; i++)
+		{
+			int goidAnnotatedPopGeneCount = term2Items[i].length;
+			int goidAnnotatedStudyGeneCount = Util.commonInts(studyIds, term2Items[i]);
+
+			if (goidAnnotatedStudyGeneCount != 0)
+			{
+				p[i] = hyperg.phypergeometric(popGeneCount, (double)goidAnnotatedPopGeneCount / (double)popGeneCount,
+						studyGeneCount, goidAnnotatedStudyGeneCount);
+				if (ignoreAtMTC != null) ignoreAtMTC[i] = false;
+			} else
+			{
+				p[i] = 1.0;
+				if (ignoreAtMTC != null) ignoreAtMTC[i] = true;
+			}
+		}
+	}
 };
@@ -0,0 +1,190 @@
+package ontologizer.calculation.b2g;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import ontologizer.association.AssociationContainer;
+import ontologizer.calculation.CalculationUtils;
+import ontologizer.calculation.EnrichedGOTermsResult;
+import ontologizer.calculation.util.XorShiftRandom;
+import ontologizer.enumeration.TermEnumerator;
+import ontologizer.ontology.Ontology;
+import ontologizer.ontology.TermID;
+import ontologizer.set.PopulationSet;
+import ontologizer.set.StudySet;
+import ontologizer.types.ByteString;
+import sonumina.collections.IntMapper;
+
+/**
+ * Runs many MGSA analyses against the same population. The population
+ * specific data, i.e., the term enumeration and the term links, are
+ * prepared only once. Scores are pooled and reused by subsequent chains,
+ * for which only the observed gene state needs to be reset.
+ *
+ * Instances can be shared between threads.
+ */
+public class Bayes2GOBatch
+{
+	private Ontology graph;
+	private AssociationContainer goAssociations;
+	private PopulationSet populationSet;
+
+	private TermEnumerator populationEnumerator;
+	private IntMapper<TermID> termMapper;
+	private IntMapper<ByteString> geneMapper;
+	private int [][] termLinks;
+
+	/** Scores that are currently not in use */
+	private ConcurrentLinkedQueue<FixedAlphaBetaScore> idleScores = new ConcurrentLinkedQueue<FixedAlphaBetaScore>();
+
+	/**
+	 * Prepares the batch for the given population.
+	 *
+	 * @param graph
+	 * @param goAssociations
+	 * @param populationSet
+	 */
+	public Bayes2GOBatch(Ontology graph, AssociationContainer goAssociations, PopulationSet populationSet)
+	{
+		this.graph = graph;
+		this.goAssociations = goAssociations;
+		this.populationSet = populationSet;
+
+		populationEnumerator = populationSet.enumerateTerms(graph, goAssociations);
+		termMapper = IntMapper.create(populationEnumerator.getAllAnnotatedTermsAsList());
+		geneMapper = IntMapper.create(populationEnumerator.getGenesAsList());
+		termLinks = CalculationUtils.makeTermLinks(populationEnumerator, termMapper, geneMapper);
+	}
+
+	/**
+	 * @return the mapping of term ids to indices as used for the marginals.
+	 */
+	public IntMapper<TermID> getTermMapper()
+	{
+		return termMapper;
+	}
+
+	/**
+	 * @return the mapping of genes to indices as used for the observed genes.
+	 */
+	public IntMapper<ByteString> getGeneMapper()
+	{
+		return geneMapper;
+	}
+
+	/**
+	 * Returns the observed gene state for the given study set. Genes
+	 * that are not annotated are ignored.
+	 *
+	 * @param studySet
+	 * @return the state of each gene of the population whether it is observed or not.
+	 */
+	public boolean [] getObservedGenes(StudySet studySet)
+	{
+		return geneMapper.getDense(studySet.enumerateTerms(graph, goAssociations).getGenes());
+	}
+
+	/**
+	 * Performs a single chain with a score that is taken from the pool.
+	 */
+	private double [] calculate(Bayes2GOCalculation calculation, boolean [] observedGenes, Random rnd)
+	{
+		FixedAlphaBetaScore score = idleScores.poll();
+		if (score == null)
+			score = new FixedAlphaBetaScore(rnd, termLinks, observedGenes);
+
+		double [] marginals = calculation.calculate(termLinks, observedGenes, rnd, score);
+		idleScores.add(score);
+		return marginals;
+	}
+
+	/**
+	 * Performs the calculation for the given observations. This is
+	 * like calling the slim interface of Bayes2GOCalculation, but the
+	 * population specific data is reused.
+	 *
+	 * @param calculation defines the parameter of the calculation.
+	 * @param observedGenes state of each gene whether it is observed or not, see {@link #getGeneMapper()}.
+	 * @return the marginal probabilities for each term, see {@link #getTermMapper()}.
+	 */
+	public double [] calculate(Bayes2GOCalculation calculation, boolean [] observedGenes)
+	{
+		return calculate(calculation, observedGenes, calculation.createRandom());
+	}
+
+	/**
+	 * Performs the calculations for the given observations concurrently.
+	 * Each chain gets its own source of randomness, which is derived from
+	 * the seed of the calculation, so results don't depend on the
+	 * scheduling.
+	 *
+	 * @param calculation defines the parameter of the calculation.
+	 * @param observedGenes the observations, see {@link #getGeneMapper()}.
+	 * @param executor the pool on which the chains are run.
+	 * @return the marginal probabilities for each term in the order of the observations.
+	 * @throws InterruptedException
+	 */
+	public List<double []> calculate(final Bayes2GOCalculation calculation, List<boolean []> observedGenes, ExecutorService executor) throws InterruptedException
+	{
+		XorShiftRandom rnd = calculation.createRandom();
+
+		List<Future<double []>> futures = new ArrayList<Future<double []>>(observedGenes.size());
+		for (final boolean [] observed : observedGenes)
+		{
+			final Random chainRnd = rnd.split();
+			futures.add(executor.submit(new Callable<double []>()
+			{
+				@Override
+				public double [] call()
+				{
+					return calculate(calculation, observed, chainRnd);
+				}
+			}));
+		}
+
+		List<double []> marginals = new ArrayList<double []>(futures.size());
+		for (Future<double []> future : futures)
+		{
+			try
+			{
+				marginals.add(future.get());
+			} catch (ExecutionException e)
+			{
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		return marginals;
+	}
+
+	/**
+	 * Performs the calculation for the given study set. This is like
+	 * {@link Bayes2GOCalculation#calculateStudySet(Ontology, AssociationContainer, PopulationSet, StudySet)}
+	 * on the population of the batch, but the population specific data
+	 * is reused.
+	 *
+	 * @param calculation defines the parameter of the calculation.
+	 * @param studySet
+	 * @return the result.
+	 */
+	public EnrichedGOTermsResult calculateStudySet(Bayes2GOCalculation calculation, StudySet studySet)
+	{
+		/* Not supported by the slim path, let the calculation handle the details */
+		if (studySet.getGeneCount() == 0 || studySet.hasOnlyValuedItemAttributes())
+			return calculation.calculateStudySet(graph, goAssociations, populationSet, studySet);
+
+		Bayes2GOEnrichedGOTermsResult result = new Bayes2GOEnrichedGOTermsResult(graph, goAssociations, studySet, populationSet.getGeneCount());
+		result.setCalculationName(calculation.getName());
+
+		TermEnumerator studyEnumerator = studySet.enumerateTerms(graph, goAssociations);
+		boolean [] observedGenes = geneMapper.getDense(studyEnumerator.getGenes());
+		double [] r = calculate(calculation, observedGenes);
+		Bayes2GOCalculation.addMarginals(result, termMapper, populationEnumerator, studyEnumerator, r);
+		return result;
+	}
+}
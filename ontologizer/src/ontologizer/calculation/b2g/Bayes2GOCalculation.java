@@ -12,6 +12,7 @@ import ontologizer.calculation.ICalculation;
 import ontologizer.calculation.ICalculationProgress;
 import ontologizer.calculation.IProgressFeedback;
 import ontologizer.calculation.ISlimCalculation;
+import ontologizer.calculation.util.XorShiftRandom;
 import ontologizer.enumeration.TermEnumerator;
 import ontologizer.ontology.Ontology;
 import ontologizer.ontology.TermID;
@@ -301,6 +302,24 @@ public class Bayes2GOCalculation implements ICalculation, ISlimCalculation, IPro
 		boolean [] observedItems = geneMapper.getDense(studyEnumerator.getGenes());
 		double [] r = calculate(termLinks, observedItems);
 
+		addMarginals(result, termMapper, populationEnumerator, studyEnumerator, r);
+	}
+
+	/**
+	 * Adds the properties of all terms to the result.
+	 *
+	 * @param result
+	 * @param termMapper
+	 * @param populationEnumerator
+	 * @param studyEnumerator
+	 * @param r the marginals as returned by calculate().
+	 */
+	static void addMarginals(Bayes2GOEnrichedGOTermsResult result,
+			IntMapper<TermID> termMapper,
+			TermEnumerator populationEnumerator,
+			TermEnumerator studyEnumerator,
+			double [] r)
+	{
 		for (int i = 0; i < r.length; i++)
 		{
 			TermID tid = termMapper.get(i);
@@ -316,9 +335,7 @@ public class Bayes2GOCalculation implements ICalculation, ISlimCalculation, IPro
 			prop.p_min = 0.001;
 
 			result.addGOTermProperties(prop);
-
 		}
-
 	}
 
 	/**
@@ -352,28 +369,51 @@ public class Bayes2GOCalculation implements ICalculation, ISlimCalculation, IPro
 	}
 
 	/**
-	 * Perform the calculation.
-	 *
-	 * @param term2Items
-	 * @param observedItems
-	 * @return a vector of marginal probabilities for each term.
+	 * @return the source of randomness for a chain, initialized with the
+	 *  seed or a random seed if no seed has been specified.
 	 */
-	private double[] calculate(int [][] term2Items, boolean [] observedItems)
+	XorShiftRandom createRandom()
 	{
-		int numTerms = term2Items.length;
-		double [] res = new double[numTerms];
-
-		Random rnd;
+		XorShiftRandom rnd;
 		if (seed != 0)
 		{
-			rnd = new Random(seed);
+			rnd = new XorShiftRandom(seed);
 			logger.log(INFO, "Use a random seed of: " + seed);
 		} else
 		{
 			long newSeed = new Random().nextLong();
 			logger.log(INFO, "Use a random seed of: " + newSeed);
-			rnd = new Random(newSeed);
+			rnd = new XorShiftRandom(newSeed);
 		}
+		return rnd;
+	}
+
+	/**
+	 * Perform the calculation.
+	 *
+	 * @param term2Items
+	 * @param observedItems
+	 * @return a vector of marginal probabilities for each term.
+	 */
+	private double[] calculate(int [][] term2Items, boolean [] observedItems)
+	{
+		return calculate(term2Items, observedItems, createRandom(), null);
+	}
+
+	/**
+	 * Perform the calculation.
+	 *
+	 * @param term2Items
+	 * @param observedItems
+	 * @param rnd the source of randomness.
+	 * @param fixedAlphaBetaScore a score on term2Items that is reset and reused
+	 *  or null if a new one should be created.
+	 * @return a vector of marginal probabilities for each term.
+	 */
+	double[] calculate(int [][] term2Items, boolean [] observedItems, Random rnd, FixedAlphaBetaScore fixedAlphaBetaScore)
+	{
+		int numTerms = term2Items.length;
+		double [] res = new double[numTerms];
 
 		boolean doAlphaEm = false;
 		boolean doBetaEm = false;
@@ -414,7 +454,10 @@ public class Bayes2GOCalculation implements ICalculation, ISlimCalculation, IPro
 
 		for (int i=0;i<maxIter;i++)
 		{
-			FixedAlphaBetaScore fixedAlphaBetaScore = new FixedAlphaBetaScore(rnd, term2Items, observedItems);
+			if (fixedAlphaBetaScore == null)
+				fixedAlphaBetaScore = new FixedAlphaBetaScore(rnd, term2Items, observedItems);
+			else
+				fixedAlphaBetaScore.reset(rnd, observedItems);
 			fixedAlphaBetaScore.setIntegrateParams(integrateParams);
 
 			if (doEm)
@@ -425,12 +468,11 @@ public class Bayes2GOCalculation implements ICalculation, ISlimCalculation, IPro
 				logger.log(INFO, "MCMC only: " + alpha + "  " + beta + "  " + expectedNumberOfTerms);
 			}
 
+			/* Bounds are always set, as the score may have been used with other bounds */
 			fixedAlphaBetaScore.setAlpha(alpha);
-			if (this.alpha.hasMax())
-				fixedAlphaBetaScore.setMaxAlpha(this.alpha.getMax());
+			fixedAlphaBetaScore.setMaxAlpha(this.alpha.getMax());
 			fixedAlphaBetaScore.setBeta(beta);
-			if (this.beta.hasMax())
-				fixedAlphaBetaScore.setMaxBeta(this.beta.getMax());
+			fixedAlphaBetaScore.setMaxBeta(this.beta.getMax());
 			fixedAlphaBetaScore.setExpectedNumberOfTerms(expectedNumberOfTerms);
 			fixedAlphaBetaScore.setUsePrior(usePrior);
 
@@ -555,9 +597,10 @@ public class Bayes2GOCalculation implements ICalculation, ISlimCalculation, IPro
 
 			if (i==maxIter - 1)
 			{
+				int [] termActivationCounts = fixedAlphaBetaScore.getTermActivationCounts();
 				for (int t = 0; t < numTerms; t++)
 				{
-					res[t] = fixedAlphaBetaScore.termActivationCounts[t] / fixedAlphaBetaScore.numRecords;
+					res[t] = termActivationCounts[t] / fixedAlphaBetaScore.numRecords;
 				}
 			}
 
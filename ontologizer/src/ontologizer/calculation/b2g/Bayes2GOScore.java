@@ -1,5 +1,6 @@
 package ontologizer.calculation.b2g;
 
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -16,8 +17,17 @@ public abstract class Bayes2GOScore extends Bayes2GOScoreBase
 	protected double [] observedValueOfGene;
 
 	protected int numRecords;
+
+	/**
+	 * The activation counts of the terms. The counts are updated lazily,
+	 * i.e., periods in which a term is active are only accounted for when
+	 * the term is deactivated or when the counts are queried.
+	 */
 	protected int [] termActivationCounts;
 
+	/** Value of numRecords at the time the term has been activated */
+	private int [] activatedAtRecord;
+
 	protected boolean usePrior = true;
 	protected double p = Double.NaN;
 
@@ -73,6 +83,7 @@ public abstract class Bayes2GOScore extends Bayes2GOScoreBase
 		}
 
 		termActivationCounts = new int[numTerms];
+		activatedAtRecord = new int[numTerms];
 	}
 
 	/**
@@ -175,17 +186,11 @@ public abstract class Bayes2GOScore extends Bayes2GOScoreBase
 		proposeNewState(rnd.nextLong());
 	}
 
-	/**
-	 * Exchange the state from t1 to t2. This is merely a short-cut to switchState() being
-	 * called on t1 and t2 in sequence. It does not check if the state is really exchanged.
-	 *
-	 * @param t1 id of the first term to be toggled
-	 * @param t2 id of the second term to be toggled
-	 */
-	public void exchange(int t1, int t2)
+	@Override
+	protected void termSwitched(int term)
 	{
-		switchState(t1);
-		switchState(t2);
+		if (isActive(term)) activatedAtRecord[term] = numRecords;
+		else termActivationCounts[term] += numRecords - activatedAtRecord[term];
 	}
 
 	/**
@@ -199,17 +204,42 @@ public abstract class Bayes2GOScore extends Bayes2GOScoreBase
 	 */
 	public abstract long getNeighborhoodSize();
 
+	/**
+	 * Clears all records, i.e., the term activation counts.
+	 */
+	protected void clearRecords()
+	{
+		Arrays.fill(termActivationCounts, 0);
+		Arrays.fill(activatedAtRecord, 0);
+		numRecords = 0;
+	}
+
 	/**
 	 * Records the current settings.
 	 */
 	public void record()
 	{
-		for (int i = numInactiveTerms; i < numTerms; i++)
-			termActivationCounts[termPartition[i]]++;
-
 		numRecords++;
 	}
 
+	/**
+	 * Returns for each term the number of records in which the term
+	 * was active.
+	 *
+	 * @return the activation counts, indexed by term id.
+	 */
+	public int [] getTermActivationCounts()
+	{
+		/* Account for the terms that are still active */
+		for (int i = numInactiveTerms; i < numTerms; i++)
+		{
+			int t = termPartition[i];
+			termActivationCounts[t] += numRecords - activatedAtRecord[t];
+			activatedAtRecord[t] = numRecords;
+		}
+		return termActivationCounts;
+	}
+
 	/**
 	 * @return the terms that are currently activated
 	 */
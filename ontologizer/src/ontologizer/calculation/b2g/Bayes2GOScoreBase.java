@@ -8,6 +8,14 @@ public abstract class Bayes2GOScoreBase
 	/** Maps a term id to the ids of the genes to that the term is annotated */
 	private int [][] termLinks;
 
+	/**
+	 * The genes of the terms as bit sets, used to determine the symmetric
+	 * difference of two terms in exchange(). Only terms whose bit set is not
+	 * larger than the corresponding entry in termLinks have one, for other
+	 * terms the entry is null.
+	 */
+	private long [][] termBits;
+
 	/**
 	 * Contains indices to terms of termsArray.
 	 */
@@ -50,6 +58,20 @@ public abstract class Bayes2GOScoreBase
 			termPartition[i] = i;
 			positionOfTermInPartition[i] = i;
 		}
+
+		int numWords = (numItems + 63) / 64;
+		termBits = new long[termLinks.length][];
+		for (int i=0; i < termLinks.length; i++)
+		{
+			/* A word takes as much space as two entries of termLinks */
+			if (termLinks[i].length < 2 * numWords)
+				continue;
+
+			long [] bits = new long[numWords];
+			for (int gid : termLinks[i])
+				bits[gid >>> 6] |= 1L << gid;
+			termBits[i] = bits;
+		}
 	}
 
 	/**
@@ -66,65 +88,160 @@ public abstract class Bayes2GOScoreBase
 		{
 			/* A term was added, activate/deactivate genes */
 			for (int gid : geneIDs)
-			{
-				if (activeHiddenGenes[gid] == 0)
-				{
-					activeHiddenGenes[gid] = 1;
-					hiddenGeneActivated(gid);
-				} else
-				{
-					activeHiddenGenes[gid]++;
-				}
-			}
-
-			/* Move the added set from the 0 partition to the 1 partition (it essentially becomes the
-			 * new first element of the 1 element, while the last 0 element gets the original position
-			 * of the added set) */
-			numInactiveTerms--;
-			if (numInactiveTerms != 0)
-			{
-				int pos = positionOfTermInPartition[toSwitch];
-				int e0 = termPartition[numInactiveTerms];
-
-				/* Move last element in the partition to left */
-				termPartition[pos] = e0;
-				positionOfTermInPartition[e0] = pos;
-				/* Let be the newly added term the first in the partition */
-				termPartition[numInactiveTerms] = toSwitch;
-				positionOfTermInPartition[toSwitch] = numInactiveTerms;
-			}
+				activateGene(gid);
+
+			movePartitionToActive(toSwitch);
 		} else
 		{
 			/* Update hiddenActiveGenes */
 			for (int gid : geneIDs)
-			{
-				if (activeHiddenGenes[gid] == 1)
-				{
-					activeHiddenGenes[gid] = 0;
-					hiddenGeneDeactivated(gid);
-				} else
-				{
-					activeHiddenGenes[gid]--;
-				}
-			}
-
-			/* Converse of above. Here the removed set, which belonged to the 1 partition,
-			 * is moved at the end of the 0 partition while the element at that place is
-			 * pushed to the original position of the removed element. */
-			if (numInactiveTerms != (isActive.length - 1))
-			{
-				int pos = positionOfTermInPartition[toSwitch];
-				int b1 = termPartition[numInactiveTerms];
-				termPartition[pos] = b1;
-				positionOfTermInPartition[b1] = pos;
-				termPartition[numInactiveTerms] = toSwitch;
-				positionOfTermInPartition[toSwitch] = numInactiveTerms;
-			}
-			numInactiveTerms++;
+				deactivateGene(gid);
+
+			movePartitionToInactive(toSwitch);
+		}
+
+		termSwitched(toSwitch);
+	}
+
+	/**
+	 * Exchange the state from t1 to t2. The result is the same as if
+	 * switchState() is called on t1 and t2 in sequence. If t1 is active,
+	 * t2 is inactive, and both terms have many genes, only the genes that
+	 * are annotated to exactly one of the terms are visited.
+	 *
+	 * @param t1 id of the first term to be toggled
+	 * @param t2 id of the second term to be toggled
+	 */
+	public void exchange(int t1, int t2)
+	{
+		if (!isActive[t1] || isActive[t2] || termBits[t1] == null || termBits[t2] == null)
+		{
+			switchState(t1);
+			switchState(t2);
+			return;
+		}
+
+		/* Genes that are annotated to both terms keep their activation count,
+		 * so only the symmetric difference of the two gene sets is visited */
+		long [] bits1 = termBits[t1];
+		long [] bits2 = termBits[t2];
+		for (int w = 0; w < bits1.length; w++)
+		{
+			long b1 = bits1[w];
+			long b2 = bits2[w];
+
+			for (long d = b1 & ~b2; d != 0; d &= d - 1)
+				deactivateGene((w << 6) + Long.numberOfTrailingZeros(d));
+			for (long a = b2 & ~b1; a != 0; a &= a - 1)
+				activateGene((w << 6) + Long.numberOfTrailingZeros(a));
+		}
+
+		isActive[t1] = false;
+		isActive[t2] = true;
+
+		/* Keep the partition as it would be after two switchState() calls */
+		movePartitionToInactive(t1);
+		movePartitionToActive(t2);
+
+		termSwitched(t1);
+		termSwitched(t2);
+	}
 
+	private void activateGene(int gid)
+	{
+		if (activeHiddenGenes[gid] == 0)
+		{
+			activeHiddenGenes[gid] = 1;
+			hiddenGeneActivated(gid);
+		} else
+		{
+			activeHiddenGenes[gid]++;
 		}
 	}
 
+	private void deactivateGene(int gid)
+	{
+		if (activeHiddenGenes[gid] == 1)
+		{
+			activeHiddenGenes[gid] = 0;
+			hiddenGeneDeactivated(gid);
+		} else
+		{
+			activeHiddenGenes[gid]--;
+		}
+	}
+
+	private void movePartitionToActive(int toSwitch)
+	{
+		/* Move the added set from the 0 partition to the 1 partition (it essentially becomes the
+		 * new first element of the 1 element, while the last 0 element gets the original position
+		 * of the added set) */
+		numInactiveTerms--;
+		if (numInactiveTerms != 0)
+		{
+			int pos = positionOfTermInPartition[toSwitch];
+			int e0 = termPartition[numInactiveTerms];
+
+			/* Move last element in the partition to left */
+			termPartition[pos] = e0;
+			positionOfTermInPartition[e0] = pos;
+			/* Let be the newly added term the first in the partition */
+			termPartition[numInactiveTerms] = toSwitch;
+			positionOfTermInPartition[toSwitch] = numInactiveTerms;
+		}
+	}
+
+	private void movePartitionToInactive(int toSwitch)
+	{
+		/* Converse of above. Here the removed set, which belonged to the 1 partition,
+		 * is moved at the end of the 0 partition while the element at that place is
+		 * pushed to the original position of the removed element. */
+		if (numInactiveTerms != (isActive.length - 1))
+		{
+			int pos = positionOfTermInPartition[toSwitch];
+			int b1 = termPartition[numInactiveTerms];
+			termPartition[pos] = b1;
+			positionOfTermInPartition[b1] = pos;
+			termPartition[numInactiveTerms] = toSwitch;
+			positionOfTermInPartition[toSwitch] = numInactiveTerms;
+		}
+		numInactiveTerms++;
+	}
+
+	/**
+	 * Deactivates all terms and restores the initial order of the
+	 * partition, i.e., the state after construction.
+	 */
+	protected void deactivateAllTerms()
+	{
+		while (numInactiveTerms < numTerms)
+			switchState(termPartition[numInactiveTerms]);
+
+		for (int i=0; i < numTerms; i++)
+		{
+			termPartition[i] = i;
+			positionOfTermInPartition[i] = i;
+		}
+	}
+
+	/**
+	 * @param term the id of the term
+	 * @return whether the given term is currently active.
+	 */
+	public boolean isActive(int term)
+	{
+		return isActive[term];
+	}
+
+	/**
+	 * The state of the given term has been switched.
+	 *
+	 * @param term
+	 */
+	protected void termSwitched(int term)
+	{
+	}
+
 	/**
 	 * The given gene is now activated
 	 *
@@ -1,5 +1,6 @@
 package ontologizer.calculation.b2g;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import ontologizer.calculation.util.Gamma;
@@ -38,6 +39,22 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 	protected double alpha = Double.NaN;
 	protected double beta = Double.NaN;
 
+	/* Logarithms of the parameters, indexed like ALPHA, BETA, and EXPECTED_NUMBER_OF_TERMS */
+	private double [] logAlpha;
+	private double [] log1MinusAlpha;
+	private double [] logBeta;
+	private double [] log1MinusBeta;
+	private double [] logP;
+	private double [] log1MinusP;
+
+	/* Logarithms of the fixed parameters */
+	private double logFixedAlpha;
+	private double log1MinusFixedAlpha;
+	private double logFixedBeta;
+	private double log1MinusFixedBeta;
+	private double logFixedP;
+	private double log1MinusFixedP;
+
 	/** True negative count */
 	private int n00;
 
@@ -65,6 +82,8 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 	{
 		this.alpha = alpha;
 		doAlphaMCMC = Double.isNaN(alpha);
+		logFixedAlpha = Math.log(alpha);
+		log1MinusFixedAlpha = Math.log(1 - alpha);
 	}
 
 	/**
@@ -76,6 +95,8 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 	{
 		this.beta = beta;
 		doBetaMCMC = Double.isNaN(beta);
+		logFixedBeta = Math.log(beta);
+		log1MinusFixedBeta = Math.log(1 - beta);
 	}
 
 	@Override
@@ -83,6 +104,8 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 	{
 		super.setExpectedNumberOfTerms(terms);
 		doExpMCMC = Double.isNaN(terms);
+		logFixedP = Math.log(p);
+		log1MinusFixedP = Math.log(1 - p);
 	}
 
 	public void setMaxAlpha(double maxAlpha)
@@ -101,6 +124,9 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 		ALPHA[0] = 0.0000001;
 		for (int i=1;i<20;i++)
 			ALPHA[i] = i * maxAlpha / span;
+
+		logAlpha = log(ALPHA);
+		log1MinusAlpha = log1Minus(ALPHA);
 	}
 
 	public void setMaxBeta(double maxBeta)
@@ -120,6 +146,32 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 		for (int i=1;i<20;i++)
 			BETA[i] = i * maxBeta / span;
 
+		logBeta = log(BETA);
+		log1MinusBeta = log1Minus(BETA);
+	}
+
+	/**
+	 * @param values
+	 * @return the logarithms of the given values.
+	 */
+	private static double [] log(double [] values)
+	{
+		double [] logs = new double[values.length];
+		for (int i=0;i<values.length;i++)
+			logs[i] = Math.log(values[i]);
+		return logs;
+	}
+
+	/**
+	 * @param values
+	 * @return the logarithms of one minus the given values.
+	 */
+	private static double [] log1Minus(double [] values)
+	{
+		double [] logs = new double[values.length];
+		for (int i=0;i<values.length;i++)
+			logs[i] = Math.log(1 - values[i]);
+		return logs;
 	}
 
 	/**
@@ -140,6 +192,12 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 		setMaxAlpha(1.);
 		setMaxBeta(1.);
 
+		double [] ps = new double[EXPECTED_NUMBER_OF_TERMS.length];
+		for (int i=0;i<ps.length;i++)
+			ps[i] = (double)EXPECTED_NUMBER_OF_TERMS[i] / numTerms;
+		logP = log(ps);
+		log1MinusP = log1Minus(ps);
+
 		/* At this state, all terms are inactive, hence all observed genes are false positive */
 		for (int i=0; i < observedGenes.length; i++)
 		{
@@ -150,6 +208,52 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 		n00 = observedGenes.length - n10;
 	}
 
+	/**
+	 * Resets the score to the state after construction with the given
+	 * observed genes, so that the score can be reused for another chain
+	 * on the same terms. All terms are deactivated and all records are
+	 * cleared. Parameter settings like the fixed alpha, beta, or the
+	 * expected number of terms are kept.
+	 *
+	 * @param rnd the new source for proposing states.
+	 * @param observedGenes state of each gene whether it is observed or not.
+	 */
+	public void reset(Random rnd, boolean [] observedGenes)
+	{
+		if (observedGenes.length != this.observedGenes.length)
+			throw new IllegalArgumentException("Expected " + this.observedGenes.length + " genes but got " + observedGenes.length);
+
+		deactivateAllTerms();
+		clearRecords();
+
+		this.rnd = rnd;
+
+		n10 = 0;
+		for (int i=0; i < observedGenes.length; i++)
+		{
+			this.observedGenes[i] = observedGenes[i];
+			observedValueOfGene[i] = observedGenes[i] ? -1 : 1;
+			if (observedGenes[i])
+				n10++;
+		}
+		n00 = observedGenes.length - n10;
+		n01 = 0;
+		n11 = 0;
+
+		alphaIdx = 0;
+		betaIdx = 0;
+		expIdx = 0;
+
+		totalN00 = 0;
+		totalN01 = 0;
+		totalN10 = 0;
+		totalN11 = 0;
+		totalT = 0;
+		Arrays.fill(totalAlpha, 0);
+		Arrays.fill(totalBeta, 0);
+		Arrays.fill(totalExp, 0);
+	}
+
 	@Override
 	public void hiddenGeneActivated(int gid)
 	{
@@ -329,18 +433,47 @@ public class FixedAlphaBetaScore extends Bayes2GOScore
 
 		if (!integrateParams)
 		{
-			double alpha;
-			double beta;
-			double p;
+			/* Use the precomputed logarithms, see getAlpha(), getBeta(), and getP() */
+			double logAlpha, log1MinusAlpha;
+			double logBeta, log1MinusBeta;
+
+			if (Double.isNaN(this.alpha))
+			{
+				logAlpha = this.logAlpha[alphaIdx];
+				log1MinusAlpha = this.log1MinusAlpha[alphaIdx];
+			} else
+			{
+				logAlpha = logFixedAlpha;
+				log1MinusAlpha = log1MinusFixedAlpha;
+			}
 
-			alpha = getAlpha();
-			beta = getBeta();
-			p = getP();
+			if (Double.isNaN(this.beta))
+			{
+				logBeta = this.logBeta[betaIdx];
+				log1MinusBeta = this.log1MinusBeta[betaIdx];
+			} else
+			{
+				logBeta = logFixedBeta;
+				log1MinusBeta = log1MinusFixedBeta;
+			}
 
-			newScore2 = Math.log(alpha) * n10 + Math.log(1-alpha)*n00 + Math.log(1-beta)*n11 + Math.log(beta)*n01;
+			newScore2 = logAlpha * n10 + log1MinusAlpha * n00 + log1MinusBeta * n11 + logBeta * n01;
 
 			if (usePrior)
-				newScore2 += Math.log(p)*(numTerms - numInactiveTerms) + Math.log(1-p)*numInactiveTerms;
+			{
+				double logP, log1MinusP;
+
+				if (Double.isNaN(this.p))
+				{
+					logP = this.logP[expIdx];
+					log1MinusP = this.log1MinusP[expIdx];
+				} else
+				{
+					logP = logFixedP;
+					log1MinusP = log1MinusFixedP;
+				}
+				newScore2 += logP * (numTerms - numInactiveTerms) + log1MinusP * numInactiveTerms;
+			}
 		} else
 		{
 			/* Prior */
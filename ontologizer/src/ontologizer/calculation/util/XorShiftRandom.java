@@ -0,0 +1,86 @@
+package ontologizer.calculation.util;
+
+import java.util.Random;
+
+/**
+ * A fast random number generator based on xorshift64*.
+ *
+ * In contrast to java.util.Random, the state is not updated atomically,
+ * hence instances must not be shared between threads. Use {@link #split()}
+ * to derive an independent generator, e.g., for another thread or chain.
+ * As this is a subclass of Random, it can be used wherever a Random is
+ * expected.
+ */
+public class XorShiftRandom extends Random
+{
+	private static final long serialVersionUID = 1L;
+
+	private long state;
+
+	/**
+	 * Constructs a new generator with a random seed.
+	 */
+	public XorShiftRandom()
+	{
+		this(new Random().nextLong());
+	}
+
+	/**
+	 * Constructs a new generator with the given seed.
+	 *
+	 * @param seed
+	 */
+	public XorShiftRandom(long seed)
+	{
+		super(seed);
+	}
+
+	/**
+	 * Mixes the bits of the given value (the finalizer of splitmix64).
+	 */
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	@Override
+	public synchronized void setSeed(long seed)
+	{
+		super.setSeed(seed);
+
+		state = mix(seed + 0x9e3779b97f4a7c15L);
+		if (state == 0)
+			state = 0x9e3779b97f4a7c15L;
+	}
+
+	@Override
+	protected int next(int bits)
+	{
+		return (int)(nextLong() >>> (64 - bits));
+	}
+
+	@Override
+	public long nextLong()
+	{
+		long x = state;
+		x ^= x >>> 12;
+		x ^= x << 25;
+		x ^= x >>> 27;
+		state = x;
+		return x * 0x2545f4914f6cdd1dL;
+	}
+
+	/**
+	 * Returns a new generator whose sequence is independent of the
+	 * sequence of this generator. The state of this generator is
+	 * advanced.
+	 *
+	 * @return the new generator
+	 */
+	public XorShiftRandom split()
+	{
+		return new XorShiftRandom(mix(nextLong()));
+	}
+}
@@ -10,7 +10,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.Map.Entry;
 
-import ontologizer.association.Association;
+import ontologizer.association.AssociationContainer;
 import ontologizer.association.Gene2Associations;
 import ontologizer.ontology.Ontology;
 import ontologizer.ontology.Term;
@@ -84,6 +84,25 @@ public class TermEnumerator implements Iterable<TermID>
 	 *  the given evidence codes.
 	 */
 	public void push(Gene2Associations geneAssociations, Set<ByteString> evidences)
+	{
+		push(geneAssociations, evidences, AssociationContainer.ALL_EVIDENCES);
+	}
+
+	/**
+	 * Pushes the given gene association into the enumerator, considering only
+	 * annotation entries whose evidence code is contained in the given mask.
+	 *
+	 * @param geneAssociations the gene associations
+	 * @param evidenceMask the mask of the evidence codes to be considered as
+	 *  returned by {@link AssociationContainer#getEvidenceMask(java.util.Collection)}
+	 *  or {@link AssociationContainer#ALL_EVIDENCES}.
+	 */
+	public void push(Gene2Associations geneAssociations, long evidenceMask)
+	{
+		push(geneAssociations, null, evidenceMask);
+	}
+
+	private void push(Gene2Associations geneAssociations, Set<ByteString> evidences, long evidenceMask)
 	{
 		ByteString geneName = geneAssociations.name();
 
@@ -122,16 +141,22 @@ public class TermEnumerator implements Iterable<TermID>
 		HashSet<TermID> termIDSet = new HashSet<TermID>();
 
 		/* At first add the direct counts and remember the terms */
-		for (Association association : geneAssociations)
+		for (int i = 0; i < geneAssociations.size(); i++)
 		{
-			TermID termID = association.getTermID();
+			TermID termID = geneAssociations.getTermID(i);
 
 			if (!graph.isRelevantTermID(termID))
 				continue;
 
+			if (evidenceMask != AssociationContainer.ALL_EVIDENCES)
+			{
+				if ((geneAssociations.getEvidenceBit(i) & evidenceMask) == 0)
+					continue;
+			}
+
 			if (evidences != null)
 			{
-				if (!evidences.contains(association.getEvidence()))
+				if (!evidences.contains(geneAssociations.getEvidence(i)))
 					continue;
 			}
 
@@ -147,7 +172,7 @@ public class TermEnumerator implements Iterable<TermID>
 			termGenes.directAnnotated.add(geneName);
 
 			/* This term is annotated */
-			termIDSet.add(association.getTermID());
+			termIDSet.add(termID);
 		}
 
 		/* Then add the total counts */
@@ -61,6 +61,13 @@ public class StudySet implements Iterable<ByteString>
 	/** Cached TermEnumerator */
 	private TermEnumerator termEnumerator;
 
+	/** Cached term enumerators for evidence masks */
+	private HashMap<Long,TermEnumerator> maskedTermEnumerators = new HashMap<Long,TermEnumerator>();
+
+	/** The ontology and associations for which the masked enumerators have been created */
+	private Ontology maskedGraph;
+	private AssociationContainer maskedAssociationContainer;
+
 	/** The current random ID. Used for unique study set names */
 	private int randomID = 0;
 
@@ -165,6 +172,9 @@ public class StudySet implements Iterable<ByteString>
 	public void resetCounterAndEnumerator()
 	{
 		termEnumerator = null;
+		maskedTermEnumerators.clear();
+		maskedGraph = null;
+		maskedAssociationContainer = null;
 	}
 
 	/**
@@ -341,6 +351,9 @@ public class StudySet implements Iterable<ByteString>
 	 */
 	public synchronized TermEnumerator enumerateTerms(Ontology graph, AssociationContainer associationContainer, Set<ByteString> evidences, TermEnumerator.IRemover remover)
 	{
+		if (evidences != null && remover == null && associationContainer.getNumberOfEvidenceCodes() <= AssociationContainer.MAX_MASKABLE_EVIDENCE_CODES)
+			return enumerateTerms(graph, associationContainer, associationContainer.getEvidenceMask(evidences));
+
 		/* Return cached enumerator if available */
 		if (termEnumerator != null) return termEnumerator;
 
@@ -359,6 +372,46 @@ public class StudySet implements Iterable<ByteString>
 		return termEnumerator;
 	}
 
+	/**
+	 * Enumerate genes annotated for every term considering only annotations
+	 * whose evidence codes are contained in the given mask. Enumerations are
+	 * cached per mask, so switching between evidence sets is fast as long as
+	 * the gene set, the ontology and the associations have not been changed
+	 * in-between.
+	 *
+	 * @param graph defines the ontology
+	 * @param associationContainer defines the associations
+	 * @param evidenceMask the mask of the evidence codes, see
+	 *  {@link AssociationContainer#getEvidenceMask(java.util.Collection)}
+	 * @return the term enumerator
+	 */
+	public synchronized TermEnumerator enumerateTerms(Ontology graph, AssociationContainer associationContainer, long evidenceMask)
+	{
+		if (evidenceMask == AssociationContainer.ALL_EVIDENCES)
+			return enumerateTerms(graph, associationContainer);
+
+		/* Masks are specific to the container */
+		if (graph != maskedGraph || associationContainer != maskedAssociationContainer)
+		{
+			maskedTermEnumerators.clear();
+			maskedGraph = graph;
+			maskedAssociationContainer = associationContainer;
+		}
+
+		TermEnumerator enumerator = maskedTermEnumerators.get(evidenceMask);
+		if (enumerator != null) return enumerator;
+
+		enumerator = new TermEnumerator(graph);
+		for (ByteString geneName : gene2Attribute.keySet())
+		{
+			Gene2Associations geneAssociations = associationContainer.get(geneName);
+			if (geneAssociations != null)
+				enumerator.push(geneAssociations, evidenceMask);
+		}
+		maskedTermEnumerators.put(evidenceMask, enumerator);
+		return enumerator;
+	}
+
 	/**
 	 * @return an unique name derived from the study sets' name
 	 */
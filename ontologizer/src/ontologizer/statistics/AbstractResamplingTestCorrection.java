@@ -9,6 +9,18 @@ public abstract class AbstractResamplingTestCorrection extends AbstractTestCorre
 	/** Used for progress update */
 	private IResamplingProgress progress;
 
+	/** The number of resamples after which the adaptive mode checks whether it can stop */
+	protected static final int ADAPTIVE_CHECK_INTERVAL = 32;
+
+	/** The probability that the adaptive mode makes any decision that differs from the one of infinite resampling */
+	protected static final double ADAPTIVE_ERROR = 0.001;
+
+	/** The threshold at which the decisions of the adaptive mode are made, NaN if disabled */
+	private double adaptiveThreshold = Double.NaN;
+
+	/** The number of resampling steps that were performed by the last adjustment */
+	protected int numberOfUsedResamplingSteps;
+
 	/**
 	 * Set the number of resampling steps.
 	 */
@@ -25,6 +37,98 @@ public abstract class AbstractResamplingTestCorrection extends AbstractTestCorre
 		return numberOfResamplingSteps;
 	}
 
+	/**
+	 * Enables the adaptive mode. In this mode, resampling is stopped as
+	 * soon as it is settled for each adjusted p value whether it is below
+	 * or above the given threshold, at the latest when the number of
+	 * resampling steps has been reached.
+	 *
+	 * Only sub classes of this class support the adaptive mode, the cached
+	 * step-down variants such as {@link WestfallYoungStepDownCached} always
+	 * perform the full number of resampling steps.
+	 *
+	 * @param threshold the threshold, or NaN to disable the adaptive mode.
+	 */
+	public void setAdaptiveThreshold(double threshold)
+	{
+		adaptiveThreshold = threshold;
+	}
+
+	/**
+	 * @return the threshold of the adaptive mode, or NaN if it is disabled.
+	 */
+	public double getAdaptiveThreshold()
+	{
+		return adaptiveThreshold;
+	}
+
+	/**
+	 * @return whether the adaptive mode is enabled.
+	 */
+	public boolean isAdaptive()
+	{
+		return !Double.isNaN(adaptiveThreshold);
+	}
+
+	/**
+	 * @return the number of resampling steps that were actually performed
+	 *  by the last adjustment.
+	 */
+	public int getNumberOfUsedResamplingSteps()
+	{
+		return numberOfUsedResamplingSteps;
+	}
+
+	/**
+	 * Returns whether the adaptive mode should check after the given
+	 * number of resamples whether it can stop.
+	 *
+	 * @param n the number of resamples performed so far.
+	 */
+	protected boolean isAdaptiveCheckpoint(int n)
+	{
+		return isAdaptive() && n % ADAPTIVE_CHECK_INTERVAL == 0;
+	}
+
+	/**
+	 * Returns whether the decisions for all adjusted p values are settled,
+	 * i.e., whether each estimated adjusted p value is significantly below
+	 * or above the threshold of the adaptive mode. A decision is settled if
+	 * n * KL(c/n || threshold) >= ln(m * L / ADAPTIVE_ERROR), where m is the
+	 * number of p values and L the number of checkpoints. By the Chernoff
+	 * bound and a union bound over all p values and checkpoints, with
+	 * probability at least 1 - ADAPTIVE_ERROR all settled decisions agree
+	 * with the ones that infinite resampling would make.
+	 *
+	 * @param counts the number of resamples that are at least as extreme as
+	 *  the observation (i.e., the adjusted p value times n) for each p value.
+	 * @param n the number of resamples.
+	 */
+	protected boolean isSettled(int [] counts, int n)
+	{
+		int looks = (numberOfResamplingSteps + ADAPTIVE_CHECK_INTERVAL - 1) / ADAPTIVE_CHECK_INTERVAL;
+		double bound = Math.log(counts.length * (double)Math.max(looks, 1) / ADAPTIVE_ERROR);
+
+		for (int c : counts)
+		{
+			if (n * kullbackLeibler((double)c / n, adaptiveThreshold) < bound)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the Kullback-Leibler divergence of the Bernoulli distribution
+	 *  with parameter t from the one with parameter a.
+	 */
+	private static double kullbackLeibler(double a, double t)
+	{
+		double kl = 0;
+		if (a > 0) kl += a * Math.log(a / t);
+		if (a < 1) kl += (1 - a) * Math.log((1 - a) / (1 - t));
+		return kl;
+	}
+
 	/**
 	 * Sets the progress update instance used for
 	 * progress notifications.
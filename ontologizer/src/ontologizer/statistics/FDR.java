@@ -71,15 +71,14 @@ public class FDR extends AbstractTestCorrection
 		double [][] pValues = new double[numberOfResamplingSteps][rawP.length];
 
 		/* Now "permute" */
+		RandomPValues randomPValues = new RandomPValues(pvalues, m);
 		for (int b=0; b < numberOfResamplingSteps; b++)
 		{
 			/* Compute raw p values of "permuted" data */
-			PValue [] randomRawP = pvalues.calculateRandomPValues(null);
-
-			assert(randomRawP.length == rawP.length);
+			double [] randomRawP = randomPValues.next();
 
 			for (i=0;i<m;i++)
-				pValues[b][i] = randomRawP[i].p;
+				pValues[b][i] = randomRawP[i];
 
 			System.out.print("created " + (b+1) + " samples out of " + numberOfResamplingSteps + "\r");
 		}
@@ -175,4 +174,19 @@ public class FDR extends AbstractTestCorrection
 	{
 
 	}
+
+	public int getCacheHits()
+	{
+		return 0;
+	}
+
+	public int getCacheApproximateHits()
+	{
+		return 0;
+	}
+
+	public int getCacheMisses()
+	{
+		return 0;
+	}
 }
@@ -26,106 +26,26 @@ public class FDRBySteffen extends AbstractTestCorrection
 
 	public PValue[] adjustPValues(IPValueCalculation pvalues, ITestCorrectionProgress progress)
 	{
-		int i;
-
 		/* Calculate raw P-values  and sort them*/
 		PValue [] rawP = pvalues.calculateRawPValues(null);
 		Arrays.sort(rawP);
 
-		int m = rawP.length;
-
-		/* this will hold the sorted resampled p-values*/
-		double [][] pValues = new double[numberOfResamplingSteps][m];
+		/* Summarizes the resamples by their rejections at the raw P-values,
+		 * so the resampled p-values don't need to be stored */
+		FDRBySteffenKernel kernel = new FDRBySteffenKernel(rawP);
+		RandomPValues randomPValues = new RandomPValues(pvalues, rawP.length);
 
-		/* create them */
 		for (int b=0; b < numberOfResamplingSteps; b++)
 		{
 			/* Compute raw p values of "permuted" data */
-			PValue [] randomRawP = pvalues.calculateRandomPValues(null);
-			Arrays.sort(randomRawP);
-
-			assert(randomRawP.length == m);
-
-			for (i=0;i<m;i++)
-				pValues[b][i] = randomRawP[i].p;
+			kernel.add(randomPValues.next());
 
 			System.out.print("created " + (b+1) + " samples out of " + numberOfResamplingSteps + "\r");
 		}
 		System.out.println();
 
 		/* For every P-value determine the adjusted P-value */
-
-		// we go along the sorted p-values
-		int lastObservedRejections = 0;
-		double lastPValue = rawP[0].p;
-
-		/* This will hold the number of rejected tests in the samples at the current level.
-		 * We assume that sampled p-values are sorted! */
-		int [] lastSampleRejects = new int[numberOfResamplingSteps];
-		int lastTotalSampleRejects = 0;
-		// initializing
-		for (int b=0; b < numberOfResamplingSteps; b++) {
-			lastSampleRejects[b] = 0;
-			while (pValues[b][lastSampleRejects[b]] < lastPValue) {
-				lastSampleRejects[b]++;
-			}
-			lastTotalSampleRejects += lastSampleRejects[b];
-		}
-
-		double lastFDR = 0.0;
-		for (int b=0; b < numberOfResamplingSteps; b++) {
-			lastFDR +=
-				((double)lastSampleRejects[b])/(lastSampleRejects[b] + lastObservedRejections - ((double)lastTotalSampleRejects)/numberOfResamplingSteps);
-		}
-		if (Double.isNaN(lastFDR)) lastFDR = 0;
-		else lastFDR /= numberOfResamplingSteps;
-
-
-		i=0;
-
-		while (i < m) // we increment i++ in the loop
-		{
-			//System.out.println("Before: m: " + m + "\ti: " + i + "\tlast P: " + lastPValue + "\tlastObservedRejections : " + lastObservedRejections);
-			// we take old values until something happens
-			int lc = 0;
-			while (i < m && rawP[i].p <= lastPValue)
-			{
-				rawP[i].p_adjusted = lastFDR;
-				lc++;
-				i++;
-			}
-
-			// we need an emergency exit...
-			if (i == m) break;
-
-			// update p-value
-			lastPValue = rawP[i].p;
-
-			// update counts
-			lastObservedRejections += lc;
-			lastTotalSampleRejects = 0;
-			for (int b=0; b < numberOfResamplingSteps; b++) {
-				while (pValues[b][lastSampleRejects[b]] < lastPValue) {
-					lastSampleRejects[b]++;
-				}
-				lastTotalSampleRejects += lastSampleRejects[b];
-			}
-
-			// update FDR
-			lastFDR = 0.0;
-			for (int b=0; b < numberOfResamplingSteps; b++) {
-				lastFDR +=
-					(double)lastSampleRejects[b]/(lastSampleRejects[b] + lastObservedRejections - (double)lastTotalSampleRejects/numberOfResamplingSteps);
-			}
-			if (Double.isNaN(lastFDR)) lastFDR = 0;
-			else lastFDR /= numberOfResamplingSteps;
-/*			System.out.println("After: m: " + m
-					+ "\ti: " + i
-					+ "\tlast P: " + lastPValue
-					+ "\tlastObservedRejections: " + lastObservedRejections
-					+ "\tlastFDR: " + lastFDR);
-*/		}
-
+		kernel.adjust(rawP);
 		return rawP;
 	}
 
@@ -154,4 +74,19 @@ public class FDRBySteffen extends AbstractTestCorrection
 	{
 
 	}
+
+	public int getCacheHits()
+	{
+		return 0;
+	}
+
+	public int getCacheApproximateHits()
+	{
+		return 0;
+	}
+
+	public int getCacheMisses()
+	{
+		return 0;
+	}
 }
@@ -1,7 +1,7 @@
 package ontologizer.statistics;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
 
 /**
  *
@@ -13,7 +13,7 @@ public class FDRBySteffenCached extends AbstractTestCorrection
 {
 	/** Specifies the number of resampling steps */
 	private int numberOfResamplingSteps = 1000;
-	private HashMap<Integer,PvalueSetStore> sampledPValuesPerSize = new HashMap<Integer,PvalueSetStore>();
+	private SizeIndexedCache<PvalueSetStore> sampledPValuesPerSize = new SizeIndexedCache<PvalueSetStore>(0);
 
 	public String getDescription()
 	{
@@ -41,9 +41,10 @@ public class FDRBySteffenCached extends AbstractTestCorrection
 		/* holds the sampled random p values for the current study set size */
 		PvalueSetStore randomSampledPValues;
 
-		if (sampledPValuesPerSize.containsKey(studySetSize)) {
-			System.out.println("Using available samples for study set size " + studySetSize);
-			randomSampledPValues = sampledPValuesPerSize.get(studySetSize);
+		Map.Entry<Integer,PvalueSetStore> cached = sampledPValuesPerSize.lookup(studySetSize);
+		if (cached != null) {
+			System.out.println("Using available samples made for study set size " + cached.getKey() + " for study set size " + studySetSize);
+			randomSampledPValues = cached.getValue();
 		} else {
 			System.out.println("Sampling for study set size " + studySetSize + "\nThis may take a while...");
 			randomSampledPValues = new PvalueSetStore(numberOfResamplingSteps,m);
@@ -153,16 +154,31 @@ public class FDRBySteffenCached extends AbstractTestCorrection
 
 	public void resetCache()
 	{
-		sampledPValuesPerSize = new HashMap<Integer,PvalueSetStore>();
+		sampledPValuesPerSize.clear();
 	}
 
 	public int getSizeTolerance()
 	{
-		return 0;
+		return sampledPValuesPerSize.getSizeTolerance();
 	}
 
 	public void setSizeTolerance(int t)
 	{
+		sampledPValuesPerSize.setSizeTolerance(t);
+	}
+
+	public int getCacheHits()
+	{
+		return sampledPValuesPerSize.getHits();
+	}
 
+	public int getCacheApproximateHits()
+	{
+		return sampledPValuesPerSize.getApproximateHits();
+	}
+
+	public int getCacheMisses()
+	{
+		return sampledPValuesPerSize.getMisses();
 	}
 }
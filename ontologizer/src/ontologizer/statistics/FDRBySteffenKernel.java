@@ -0,0 +1,342 @@
+package ontologizer.statistics;
+
+import java.util.Arrays;
+
+/**
+ * The resampling part of the FDR procedure of {@link FDRBySteffen}
+ * without keeping the resampled p values.
+ *
+ * Each resample is summarized by its number of rejections at every
+ * distinct observed p value, i.e., the number of resampled p values that
+ * are smaller than the threshold. These are determined by a binary search
+ * of each resampled p value against the sorted thresholds. As the FDR
+ * estimate depends nonlinearly on the mean number of rejections, which is
+ * known only after all resamples have been added, the rejection counts of
+ * each threshold are kept as a histogram of the distinct counts rather
+ * than per resample.
+ *
+ * The memory is therefore not O(m + B) but proportional to the total
+ * number of distinct rejection counts, which is at most m * min(B, m + 1)
+ * for m thresholds and B resamples. As the rejection counts of a threshold
+ * scatter around their mean, this is usually much less than the B * m
+ * resampled p values, but it still grows with m times the spread of the
+ * counts. Resamples are collected in blocks of BLOCK_SIZE, whose counts are
+ * sorted and merged into the histograms at once, so the histograms are
+ * kept without slack and adding a resample takes amortized time of about
+ * the number of distinct counts divided by BLOCK_SIZE per threshold.
+ *
+ * Calculating the rejections via {@link #rejections(PValue[])} doesn't
+ * modify the kernel, so resamples can be prepared concurrently and then
+ * added as they arrive.
+ */
+public final class FDRBySteffenKernel
+{
+	/** The number of resamples that are merged into the histograms at once */
+	static final int BLOCK_SIZE = 64;
+
+	/** The distinct raw p values in ascending order */
+	private final double [] thresholds;
+
+	/** For each threshold, the number of raw p values that are smaller */
+	private final int [] observedRejections;
+
+	/** For each raw p value, the index of its threshold */
+	private final int [] rawThreshold;
+
+	/** For each threshold, the sum of the rejections of all resamples */
+	private final long [] totalRejections;
+
+	/** For each threshold, the sorted distinct rejection counts */
+	private final int [][] rejectionValues;
+
+	/** For each threshold, the number of resamples with the corresponding rejection count */
+	private final int [][] rejectionCounts;
+
+	/** For each threshold, the number of distinct rejection counts */
+	private final int [] numberOfRejectionValues;
+
+	/** The rejections of the pending resamples, rejection of threshold k of resample b is at k * BLOCK_SIZE + b */
+	private final int [] pending;
+	private int numberOfPending;
+
+	private int numberOfResamples;
+
+	/**
+	 * Constructs the kernel for the given raw p values.
+	 *
+	 * @param rawP
+	 */
+	public FDRBySteffenKernel(PValue [] rawP)
+	{
+		int m = rawP.length;
+
+		double [] sorted = new double[m];
+		for (int i = 0; i < m; i++)
+			sorted[i] = rawP[i].p;
+		Arrays.sort(sorted);
+
+		int k = 0;
+		for (int i = 0; i < m; i++)
+		{
+			if (i == 0 || sorted[i] != sorted[i-1])
+				k++;
+		}
+
+		thresholds = new double[k];
+		observedRejections = new int[k];
+		k = 0;
+		for (int i = 0; i < m; i++)
+		{
+			if (i == 0 || sorted[i] != sorted[i-1])
+			{
+				thresholds[k] = sorted[i];
+				observedRejections[k] = i;
+				k++;
+			}
+		}
+
+		rawThreshold = new int[m];
+		for (int i = 0; i < m; i++)
+			rawThreshold[i] = Arrays.binarySearch(thresholds, rawP[i].p);
+
+		totalRejections = new long[k];
+		rejectionValues = new int[k][0];
+		rejectionCounts = new int[k][0];
+		numberOfRejectionValues = new int[k];
+		pending = new int[k * BLOCK_SIZE];
+	}
+
+	/**
+	 * Returns the index of the first threshold that is larger than the
+	 * given p value, or the number of thresholds if there is none.
+	 */
+	private int firstLargerThreshold(double p)
+	{
+		int lo = 0;
+		int hi = thresholds.length;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (p < thresholds[mid]) hi = mid;
+			else lo = mid + 1;
+		}
+		return lo;
+	}
+
+	/**
+	 * Determines the number of rejections of the given resample at each
+	 * threshold. This doesn't modify the kernel.
+	 *
+	 * @param randomRawP the p values of the resample in any order.
+	 * @return the number of rejections at each threshold.
+	 */
+	public int [] rejections(PValue [] randomRawP)
+	{
+		int [] rejections = new int[thresholds.length];
+		for (PValue p : randomRawP)
+			reject(rejections, p.p);
+		return accumulate(rejections);
+	}
+
+	/**
+	 * Determines the number of rejections of the given resample at each
+	 * threshold. This doesn't modify the kernel.
+	 *
+	 * @param randomRawP the p values of the resample in any order.
+	 * @return the number of rejections at each threshold.
+	 */
+	public int [] rejections(double [] randomRawP)
+	{
+		int [] rejections = new int[thresholds.length];
+		for (double p : randomRawP)
+			reject(rejections, p);
+		return accumulate(rejections);
+	}
+
+	/**
+	 * A p value is rejected at all thresholds starting with the first
+	 * larger one, which is marked here.
+	 */
+	private void reject(int [] rejections, double p)
+	{
+		int k = firstLargerThreshold(p);
+		if (k < rejections.length)
+			rejections[k]++;
+	}
+
+	private static int [] accumulate(int [] rejections)
+	{
+		for (int k = 1; k < rejections.length; k++)
+			rejections[k] += rejections[k-1];
+		return rejections;
+	}
+
+	/**
+	 * Adds a resample.
+	 *
+	 * @param randomRawP the p values of the resample in any order.
+	 */
+	public void add(PValue [] randomRawP)
+	{
+		add(rejections(randomRawP));
+	}
+
+	/**
+	 * Adds a resample.
+	 *
+	 * @param randomRawP the p values of the resample in any order.
+	 */
+	public void add(double [] randomRawP)
+	{
+		add(rejections(randomRawP));
+	}
+
+	/**
+	 * Adds a resample that has been summarized by {@link #rejections(PValue[])}.
+	 *
+	 * @param rejections
+	 */
+	public synchronized void add(int [] rejections)
+	{
+		for (int k = 0; k < rejections.length; k++)
+		{
+			totalRejections[k] += rejections[k];
+			pending[k * BLOCK_SIZE + numberOfPending] = rejections[k];
+		}
+		numberOfResamples++;
+		if (++numberOfPending == BLOCK_SIZE)
+			flush();
+	}
+
+	/**
+	 * Merges the rejection counts of the pending resamples into the
+	 * histograms.
+	 */
+	private void flush()
+	{
+		int n = numberOfPending;
+		if (n == 0)
+			return;
+
+		for (int k = 0; k < numberOfRejectionValues.length; k++)
+		{
+			int from = k * BLOCK_SIZE;
+			Arrays.sort(pending, from, from + n);
+			merge(k, from, from + n);
+		}
+		numberOfPending = 0;
+	}
+
+	/**
+	 * Merges the sorted rejection counts pending[from] to pending[to - 1]
+	 * into the histogram of threshold k.
+	 */
+	private void merge(int k, int from, int to)
+	{
+		int [] values = rejectionValues[k];
+		int [] counts = rejectionCounts[k];
+		int d = numberOfRejectionValues[k];
+
+		/* Determine the number of distinct counts after the merge */
+		int newD = d;
+		int i = 0;
+		for (int j = from; j < to; j++)
+		{
+			int r = pending[j];
+			if (j > from && r == pending[j - 1])
+				continue;
+			while (i < d && values[i] < r)
+				i++;
+			if (i == d || values[i] != r)
+				newD++;
+		}
+
+		int [] newValues = values;
+		int [] newCounts = counts;
+		if (newD != d)
+		{
+			newValues = new int[newD];
+			newCounts = new int[newD];
+		}
+
+		/* Merge from the back, so the arrays can be updated in place */
+		i = d - 1;
+		int o = newD - 1;
+		int j = to - 1;
+		while (j >= from)
+		{
+			int r = pending[j];
+			int c = 0;
+			while (j >= from && pending[j] == r)
+			{
+				c++;
+				j--;
+			}
+			while (i >= 0 && values[i] > r)
+			{
+				newValues[o] = values[i];
+				newCounts[o] = counts[i];
+				o--;
+				i--;
+			}
+			if (i >= 0 && values[i] == r)
+			{
+				c += counts[i];
+				i--;
+			}
+			newValues[o] = r;
+			newCounts[o] = c;
+			o--;
+		}
+		while (i >= 0)
+		{
+			newValues[o] = values[i];
+			newCounts[o] = counts[i];
+			o--;
+			i--;
+		}
+
+		rejectionValues[k] = newValues;
+		rejectionCounts[k] = newCounts;
+		numberOfRejectionValues[k] = newD;
+	}
+
+	/**
+	 * @return the number of resamples that have been added.
+	 */
+	public synchronized int getNumberOfResamples()
+	{
+		return numberOfResamples;
+	}
+
+	/**
+	 * Sets the adjusted p values of the given raw p values, i.e., the
+	 * estimated FDR at the level of the respective raw p value.
+	 *
+	 * @param rawP the raw p values for which the kernel has been constructed.
+	 */
+	public synchronized void adjust(PValue [] rawP)
+	{
+		flush();
+
+		double [] fdr = new double[thresholds.length];
+		for (int k = 0; k < thresholds.length; k++)
+		{
+			double meanRejections = (double)totalRejections[k] / numberOfResamples;
+			int [] values = rejectionValues[k];
+			int [] counts = rejectionCounts[k];
+
+			double sum = 0.0;
+			for (int j = 0; j < numberOfRejectionValues[k]; j++)
+			{
+				int r = values[j];
+				sum += counts[j] * ((double)r / (r + observedRejections[k] - meanRejections));
+			}
+			if (Double.isNaN(sum)) fdr[k] = 0;
+			else fdr[k] = sum / numberOfResamples;
+		}
+
+		for (int i = 0; i < rawP.length; i++)
+			rawP[i].p_adjusted = fdr[rawThreshold[i]];
+	}
+}
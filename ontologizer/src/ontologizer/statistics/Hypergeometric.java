@@ -1,5 +1,6 @@
 package ontologizer.statistics;
 
+import java.util.HashMap;
 import java.util.Vector;
 import java.lang.Math;
 
@@ -19,6 +20,18 @@ public class Hypergeometric
 	 */
 	private Vector<Double> lfactorial;
 
+	/** Maximum number of probabilities that are kept in upper tails (32 MB) */
+	private static final int MAX_UPPER_TAILS_LENGTH = 1 << 22;
+
+	/**
+	 * Upper tails of the hypergeometric distribution as used by
+	 * phypergeometric(), see getUpperTail().
+	 */
+	private HashMap<Long,double[]> upperTails = new HashMap<Long,double[]>();
+
+	/** The total length of the upper tails */
+	private int upperTailsLength;
+
 	/**
 	 * <P>
 	 * For the hypergeometric distribution note the following.
@@ -73,6 +86,69 @@ public class Hypergeometric
 		int np = (int) java.lang.Math.round(n * p); // Round to nearest int
 		int nq = (int) java.lang.Math.round(n * q);
 
+		int top = k;
+		if (np < k)
+		{
+			top = np;
+		}
+
+		if (r > top)
+			return 0.0;
+
+		return getUpperTail(n, np, nq, k)[r];
+	}
+
+	/**
+	 * Returns the upper tail for all numbers of study genes in group, i.e.,
+	 * phypergeometric() for r between 1 and min(np,k). As during resampling
+	 * the population and study sizes are fixed, the tails are calculated
+	 * once for every term size and then kept.
+	 *
+	 * @param n number of population genes
+	 * @param np number of population genes in group
+	 * @param nq number of population genes not in group
+	 * @param k number of study genes
+	 * @return the tail, whose entry r is the probability to have at least r
+	 *  study genes in group
+	 */
+	private double [] getUpperTail(int n, int np, int nq, int k)
+	{
+		/* Only keep tails that can be identified by the key */
+		if (nq != n - np || n >= (1 << 21) || k >= (1 << 21))
+			return calculateUpperTail(n, np, nq, k);
+
+		Long key = ((long)n << 42) | ((long)k << 21) | np;
+		double [] tail;
+
+		synchronized (upperTails)
+		{
+			tail = upperTails.get(key);
+		}
+
+		if (tail == null)
+		{
+			tail = calculateUpperTail(n, np, nq, k);
+
+			synchronized (upperTails)
+			{
+				if (upperTailsLength + tail.length > MAX_UPPER_TAILS_LENGTH)
+				{
+					upperTails.clear();
+					upperTailsLength = 0;
+				}
+				if (upperTails.put(key, tail) == null)
+					upperTailsLength += tail.length;
+			}
+		}
+		return tail;
+	}
+
+	/**
+	 * Calculates the upper tail. The terms are summed up from the top,
+	 * so each entry is exactly what a sum down to the entry gives.
+	 */
+	private double [] calculateUpperTail(int n, int np, int nq, int k)
+	{
 		double log_n_choose_k = lNchooseK(n, k);
 		int top = k;
 		if (np < k)
@@ -80,14 +156,16 @@ public class Hypergeometric
 			top = np;
 		}
 
+		double [] tail = new double[top + 1];
 		double lfoo = lNchooseK(np, top) + lNchooseK(nq, k - top);
 
 		double sum = 0.0;
 
-		for (int i = top; i >= r; --i)
+		for (int i = top; i >= 1; --i)
 		{
 			sum += java.lang.Math.exp(lfoo - log_n_choose_k);
-			if (i > r)
+			tail[i] = sum;
+			if (i > 1)
 			{
 				lfoo = lfoo
 						+ java.lang.Math.log((double) i / (double) (np - i + 1))
@@ -95,8 +173,7 @@ public class Hypergeometric
 								/ (double) (k - i + 1));
 			}
 		}
-		return sum;
-
+		return tail;
 	}
 
 	/**
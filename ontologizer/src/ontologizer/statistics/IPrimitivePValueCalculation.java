@@ -0,0 +1,23 @@
+package ontologizer.statistics;
+
+/**
+ * A p value calculation that can provide the p values of random datasets
+ * in primitive arrays. Resampling based multiple test correction
+ * procedures, which need only the p values of the random datasets, use
+ * this instead of calculateRandomPValues() if available, which avoids
+ * creating a PValue object per p value and resample.
+ */
+public interface IPrimitivePValueCalculation extends IPValueCalculation
+{
+	/**
+	 * Calculate the p values using a random dataset. This is like
+	 * {@link #calculateRandomPValues(IPValueCalculationProgress)}, but the
+	 * result is stored in the given arrays, whose size must match the
+	 * number of p values.
+	 *
+	 * @param p receives the p values.
+	 * @param ignoreAtMTC receives whether the respective p value should be
+	 *  ignored by the mtc. May be null if the flags are not needed.
+	 */
+	void calculateRandomPValues(double [] p, boolean [] ignoreAtMTC);
+}
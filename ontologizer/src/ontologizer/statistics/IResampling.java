@@ -39,4 +39,23 @@ public interface IResampling
 	public int getSizeTolerance();
 
 	public void resetCache();
+
+	/**
+	 * @return the number of cache lookups that were served by samples
+	 *  made for the same study set size.
+	 */
+	public int getCacheHits();
+
+	/**
+	 * @return the number of cache lookups that were served by samples
+	 *  made for a different study set size within the size tolerance.
+	 */
+	public int getCacheApproximateHits();
+
+	/**
+	 * @return the number of cache lookups that couldn't be served, i.e.,
+	 *  for which new samples were made. Corrections without a cache
+	 *  return 0 for all counters.
+	 */
+	public int getCacheMisses();
 }
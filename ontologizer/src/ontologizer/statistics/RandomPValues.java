@@ -0,0 +1,44 @@
+package ontologizer.statistics;
+
+/**
+ * Provides the p values of random datasets as a primitive array. The fast
+ * path of the calculation is used if it is available, see
+ * {@link IPrimitivePValueCalculation}.
+ */
+final class RandomPValues
+{
+	private final IPValueCalculation calculation;
+	private final double [] p;
+
+	/**
+	 * @param calculation the calculation from which the p values are taken.
+	 * @param m the number of p values.
+	 */
+	RandomPValues(IPValueCalculation calculation, int m)
+	{
+		this.calculation = calculation;
+		this.p = new double[m];
+	}
+
+	/**
+	 * Calculates the p values of the next random dataset.
+	 *
+	 * @return the p values. The array is reused by the next call.
+	 */
+	double [] next()
+	{
+		if (calculation instanceof IPrimitivePValueCalculation)
+		{
+			((IPrimitivePValueCalculation)calculation).calculateRandomPValues(p, null);
+		} else
+		{
+			PValue [] randomRawP = calculation.calculateRandomPValues(null);
+
+			assert(randomRawP.length == p.length);
+
+			for (int i = 0; i < p.length; i++)
+				p[i] = randomRawP[i].p;
+		}
+		return p;
+	}
+}
@@ -0,0 +1,160 @@
+package ontologizer.statistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A cache for resampled data that is indexed by the size of the study set.
+ * A lookup is served by the stored size that is nearest to the requested
+ * one, provided that both sizes differ by at most the size tolerance in
+ * percent (see {@link IResampling#setSizeTolerance(int)}). With a
+ * tolerance of 0, only equal sizes match.
+ *
+ * The cache keeps track of exact hits, approximate hits, and misses.
+ *
+ * @param <V> the type of the cached data.
+ */
+public class SizeIndexedCache<V>
+{
+	private TreeMap<Integer,V> entries = new TreeMap<Integer,V>();
+
+	private int sizeTolerance;
+
+	private int hits;
+	private int approximateHits;
+	private int misses;
+
+	/**
+	 * Constructs the cache.
+	 *
+	 * @param sizeTolerance the tolerance in percent.
+	 */
+	public SizeIndexedCache(int sizeTolerance)
+	{
+		this.sizeTolerance = sizeTolerance;
+	}
+
+	public int getSizeTolerance()
+	{
+		return sizeTolerance;
+	}
+
+	public void setSizeTolerance(int sizeTolerance)
+	{
+		this.sizeTolerance = sizeTolerance;
+	}
+
+	/**
+	 * Returns the ratio of the larger and the smaller size.
+	 */
+	private static double ratio(int s1, int s2)
+	{
+		if (s1 >= s2) return ((double)s1) / s2;
+		return ((double)s2) / s1;
+	}
+
+	/**
+	 * Looks up the entry whose size is nearest to the given one within the
+	 * tolerance.
+	 *
+	 * @param size the size of the study set.
+	 * @return the entry, whose key is the size for which the data was
+	 *  stored, or null if there is no such entry.
+	 */
+	public Map.Entry<Integer,V> lookup(int size)
+	{
+		Map.Entry<Integer,V> best = entries.ceilingEntry(size);
+		if (best == null || best.getKey() != size)
+		{
+			Map.Entry<Integer,V> floor = entries.floorEntry(size);
+			if (floor != null && (best == null || ratio(floor.getKey(), size) < ratio(best.getKey(), size)))
+				best = floor;
+
+			if (best != null && ratio(best.getKey(), size) > 1 + 0.01 * sizeTolerance)
+				best = null;
+		}
+
+		if (best == null) misses++;
+		else if (best.getKey() == size) hits++;
+		else approximateHits++;
+
+		return best;
+	}
+
+	/**
+	 * Counts a lookup that was served by data of a different size as a
+	 * miss. This is intended for callers that don't use the returned data
+	 * but make new data instead.
+	 */
+	public void rejectApproximateHit()
+	{
+		approximateHits--;
+		misses++;
+	}
+
+	/**
+	 * Returns the data for the given size or for the nearest size within
+	 * the tolerance.
+	 *
+	 * @param size the size of the study set.
+	 * @return the data or null if there is no such data.
+	 */
+	public V get(int size)
+	{
+		Map.Entry<Integer,V> entry = lookup(size);
+		if (entry == null) return null;
+		return entry.getValue();
+	}
+
+	/**
+	 * Stores the data for the given size.
+	 *
+	 * @param size
+	 * @param value
+	 */
+	public void put(int size, V value)
+	{
+		entries.put(size, value);
+	}
+
+	/**
+	 * Removes all entries. The statistics are kept.
+	 */
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	/**
+	 * @return the number of stored sizes.
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of lookups that were served by data of the same size.
+	 */
+	public int getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return the number of lookups that were served by data of a different
+	 *  size within the tolerance.
+	 */
+	public int getApproximateHits()
+	{
+		return approximateHits;
+	}
+
+	/**
+	 * @return the number of lookups that couldn't be served.
+	 */
+	public int getMisses()
+	{
+		return misses;
+	}
+}
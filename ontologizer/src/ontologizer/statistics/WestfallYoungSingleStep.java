@@ -1,11 +1,11 @@
 package ontologizer.statistics;
 
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
 
 public class WestfallYoungSingleStep extends AbstractResamplingTestCorrection
 {
-	private HashMap<Integer,double[]> sampledMinPPerSize = new HashMap<Integer,double[]>();
+	private SizeIndexedCache<double[]> sampledMinPPerSize = new SizeIndexedCache<double[]>(0);
 
 	public String getDescription()
 	{
@@ -57,83 +57,147 @@ public class WestfallYoungSingleStep extends AbstractResamplingTestCorrection
 		}
 		Arrays.sort(sortedRawPValues);
 
-		/* this will hold the minima of the sampled p-values */
-		double [] sampledMinP = new double[numberOfResamplingSteps];
+		double [] sortedRawP = new double[m];
+		for (i=0;i<m;i++)
+			sortedRawP[i] = sortedRawPValues[i].value;
 
 		int studySetSize = pvalues.currentStudySetSize();
 
-		if (sampledMinPPerSize.containsKey(studySetSize)) {  // we have samples
-			System.out.println("Using available samples for study set size " + studySetSize);
-			sampledMinP = sampledMinPPerSize.get(studySetSize);
+		/* this will hold the minima of the sampled p-values */
+		Map.Entry<Integer,double[]> cached = sampledMinPPerSize.lookup(studySetSize);
+		double [] cachedMinP = cached != null ? cached.getValue() : null;
+		int n = cachedMinP != null ? cachedMinP.length : 0;
+		double [] sampledMinP = new double[Math.max(n, numberOfResamplingSteps)];
+
+		/*
+		 * this will hold the differences of the counts used for adjusting p-values
+		 * Attention! Counts are for the sorted raw p-values!
+		 */
+		int [] countDiffs = new int[m + 1];
+
+		for (int b=0; b < n; b++)
+		{
+			sampledMinP[b] = cachedMinP[b];
+			addMinP(countDiffs, sortedRawP, cachedMinP[b]);
+		}
+
+		/* Cached samples may be too few, e.g., if an adaptive run stopped early */
+		boolean sample = cachedMinP == null ||
+			(n < numberOfResamplingSteps && !(isAdaptive() && isSettled(counts(countDiffs, m), n)));
+
+		if (sample && cachedMinP != null && cached.getKey() != studySetSize)
+		{
+			/* Samples made for a different size are not extended, we start over */
+			sampledMinPPerSize.rejectApproximateHit();
+			n = 0;
+			Arrays.fill(countDiffs, 0);
+		}
+
+		if (!sample) {  // we have samples
+			System.out.println("Using available samples made for study set size " + cached.getKey() + " for study set size " + studySetSize);
 		} else {        // we have to sample
 			System.out.println("Sampling for study set size " + studySetSize + "\nThis may take a while...");
 
 			initProgress(numberOfResamplingSteps);
+			RandomPValues randomPValues = new RandomPValues(pvalues, m);
 
-			for (int b=0; b < numberOfResamplingSteps; b++) {
+			while (n < numberOfResamplingSteps) {
 				/* create random sample */
-				PValue [] randomRawP = pvalues.calculateRandomPValues(null);
+				double [] randomRawP = randomPValues.next();
 
 				if (randomRawP.length > 0)
 				{
 					/* determine minimal p-value in sample */
-					double minP = randomRawP[0].p;
+					double minP = randomRawP[0];
 					for (i=1; i < randomRawP.length; i++) {
-						minP = Math.min(minP,randomRawP[i].p);
+						minP = Math.min(minP,randomRawP[i]);
 					}
-					sampledMinP[b] = minP;
+					sampledMinP[n] = minP;
 				}
+				addMinP(countDiffs, sortedRawP, sampledMinP[n]);
+				n++;
 
-				updateProgress(b);
-				System.out.print("created " + b + " samples out of " + numberOfResamplingSteps + "\r");
-			}
-			/* sort sampled minimal p-values according to size */
-			Arrays.sort(sampledMinP);
-
-			sampledMinPPerSize.put(studySetSize,sampledMinP);
-		}
-
-		/*
-		 * this will hold the counts used for adjusting p-values
-		 * Attention! Counts are for the sorted raw p-values!
-		 */
-		int [] count = new int[m];
-
-		int samplesConsidered = 0;
-		int lastcount = 0;
+				updateProgress(n);
+				System.out.print("created " + n + " samples out of " + numberOfResamplingSteps + "\r");
 
-		for (i=0; i < m; i++) {
-			count[i] = lastcount;
-			while (samplesConsidered < numberOfResamplingSteps && sampledMinP[samplesConsidered] <= sortedRawPValues[i].value) {
-				count[i]++;
-				samplesConsidered++;
+				/* Stop early if all decisions are settled */
+				if (isAdaptiveCheckpoint(n) && isSettled(counts(countDiffs, m), n))
+					break;
 			}
-			lastcount = count[i];
+
+			sampledMinPPerSize.put(studySetSize,Arrays.copyOf(sampledMinP, n));
 		}
+		numberOfUsedResamplingSteps = n;
 
+		int [] count = counts(countDiffs, m);
 
 		/* Calculate the adjusted p values */
 		for (i=0;i<m;i++)
 		{
-			rawP[sortedRawPValues[i].index].p_adjusted = ((double)count[i])/numberOfResamplingSteps;
+			rawP[sortedRawPValues[i].index].p_adjusted = ((double)count[i])/n;
 		}
 		return rawP;
 	}
 
+	/**
+	 * Accounts for a sampled minimal p-value, which is counted for all
+	 * sorted raw p-values that are not smaller.
+	 */
+	private static void addMinP(int [] countDiffs, double [] sortedRawP, double minP)
+	{
+		int lo = 0;
+		int hi = sortedRawP.length;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (minP <= sortedRawP[mid]) hi = mid;
+			else lo = mid + 1;
+		}
+		countDiffs[lo]++;
+	}
+
+	/**
+	 * Returns the counts for the sorted raw p-values.
+	 */
+	private static int [] counts(int [] countDiffs, int m)
+	{
+		int [] count = new int[m];
+		int c = 0;
+		for (int i=0; i < m; i++)
+		{
+			c += countDiffs[i];
+			count[i] = c;
+		}
+		return count;
+	}
+
 	public void resetCache()
 	{
-		sampledMinPPerSize = new HashMap<Integer,double[]>();
+		sampledMinPPerSize.clear();
 	}
 
 	public int getSizeTolerance()
 	{
-		// TODO Auto-generated method stub
-		return 0;
+		return sampledMinPPerSize.getSizeTolerance();
 	}
 
 	public void setSizeTolerance(int t)
 	{
-		// TODO Auto-generated method stub
+		sampledMinPPerSize.setSizeTolerance(t);
+	}
+
+	public int getCacheHits()
+	{
+		return sampledMinPPerSize.getHits();
+	}
+
+	public int getCacheApproximateHits()
+	{
+		return sampledMinPPerSize.getApproximateHits();
+	}
 
+	public int getCacheMisses()
+	{
+		return sampledMinPPerSize.getMisses();
 	}
 }
@@ -1,12 +1,11 @@
 package ontologizer.statistics;
 
-import java.util.Arrays;
-
-public class WestfallYoungStepDown extends AbstractTestCorrection
-						   implements IResampling
+public class WestfallYoungStepDown extends AbstractResamplingTestCorrection
 {
-	/** Specifies the number of resampling steps */
-	private int numberOfResamplingSteps = 1000;
+	public WestfallYoungStepDown()
+	{
+		numberOfResamplingSteps = 1000;
+	}
 
 	public String getDescription()
 	{
@@ -19,115 +18,66 @@ public class WestfallYoungStepDown extends AbstractTestCorrection
 		return "Westfall-Young-Step-Down";
 	}
 
-	/**
-	 *
-	 * @author Sebastian Bauer
-	 *
-	 * Class models a double value entry and its index of
-	 * a source array.
-	 *
-	 */
-	private class Entry implements Comparable<Entry>
-	{
-		public double value;
-		public int index;
-
-		public int compareTo(Entry o)
-		{
-			if (value < o.value) return -1;
-			if (value == o.value) return 0;
-			return 1;
-		}
-	};
-
 	public PValue[] adjustPValues(IPValueCalculation pvalues, ITestCorrectionProgress progress)
 	{
-		int i;
-
 		/* Calculate raw P-values */
 		PValue [] rawP = pvalues.calculateRawPValues(null);
 
-		double [] q = new double[rawP.length];
-		int [] count = new int[rawP.length];
-
-		/* Sort the raw P-values and remember their original index */
-		int m = rawP.length;
-		int r[] = new int[m];
-		Entry [] sortedRawPValues = new Entry[m];
-
-		for (i=0;i<m;i++)
-		{
-			sortedRawPValues[i] = new Entry();
-			sortedRawPValues[i].value = rawP[i].p;
-			sortedRawPValues[i].index = i;
-		}
-		Arrays.sort(sortedRawPValues);
-
-		/* build up r, this info is redundant but using r is more convenient */
-		for (i=0;i<m;i++)
-			r[i] = sortedRawPValues[i].index;
+		/* Sorts the raw P-values and counts the successive minima of the resamples */
+		WestfallYoungStepDownKernel kernel = new WestfallYoungStepDownKernel(rawP);
+		RandomPValues randomPValues = new RandomPValues(pvalues, rawP.length);
 
 		/* Now "permute" */
 		System.out.println("Sampling " + numberOfResamplingSteps + " random study sets\nThis may take a while...");
+		initProgress(numberOfResamplingSteps);
 		for (int b=0; b < numberOfResamplingSteps; b++)
 		{
 			/* Compute raw p values of "permuted" data */
-			PValue [] randomRawP = pvalues.calculateRandomPValues(null);
-
-			assert(randomRawP.length == rawP.length);
-
-			/* Compute the successive minima of raw p values */
-			q[m-1] = randomRawP[r[m-1]].p;
-			for (i=m-2;i>=0;i--)
-				q[i] = Math.min(q[i+1],randomRawP[r[i]].p);
-
-			/* Count up */
-			for (i=0;i<m;i++)
-			{
-				if (q[i] <= rawP[r[i]].p) // = sortedRawPValues[i].value
-					count[i]++;
-			}
+			kernel.add(randomPValues.next());
 
+			updateProgress(b);
 			System.out.print(b + "\r");
-		}
-		System.out.println("Done!");
 
-		/* Enforce monotony contraints */
-		int c = count[0];
-		for (i=1;i<m;i++)
-			c = count[i] = Math.max(1,Math.max(c,count[i]));
-
-		/* Calculate the adjusted p values */
-		for (i=0;i<m;i++)
-		{
-			rawP[r[i]].p_adjusted = ((double)count[i])/numberOfResamplingSteps;
+			/* Stop early if all decisions are settled */
+			if (isAdaptiveCheckpoint(b+1) && isSettled(kernel.getAdjustedCounts(), b+1))
+				break;
 		}
+		numberOfUsedResamplingSteps = kernel.getNumberOfResamples();
+		System.out.println("Done after " + numberOfUsedResamplingSteps + " samples!");
+
+		/* Enforce monotony contraints and calculate the adjusted p values */
+		kernel.adjust(rawP);
 		return rawP;
 	}
 
-	public void setNumberOfResamplingSteps(int n)
+	public void resetCache()
 	{
-		numberOfResamplingSteps = n;
+		// no cache here, nothing to do
+
 	}
 
-	public int getNumberOfResamplingSteps()
+	public int getSizeTolerance()
 	{
-		return numberOfResamplingSteps;
+		return 0;
 	}
 
-	public void resetCache()
+	public void setSizeTolerance(int t)
 	{
-		// no cache here, nothing to do
 
 	}
 
-	public int getSizeTolerance()
+	public int getCacheHits()
 	{
 		return 0;
 	}
 
-	public void setSizeTolerance(int t)
+	public int getCacheApproximateHits()
 	{
+		return 0;
+	}
 
+	public int getCacheMisses()
+	{
+		return 0;
 	}
 }
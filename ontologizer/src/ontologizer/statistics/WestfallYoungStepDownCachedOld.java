@@ -1,6 +1,5 @@
 package ontologizer.statistics;
 
-import java.util.Arrays;
 import java.util.HashMap;
 
 public class WestfallYoungStepDownCachedOld extends AbstractTestCorrection
@@ -11,6 +10,9 @@ public class WestfallYoungStepDownCachedOld extends AbstractTestCorrection
 
 	private HashMap<Integer,PValue[][]> sampledPValuesPerSize = new HashMap<Integer,PValue[][]>();
 
+	private int cacheHits;
+	private int cacheMisses;
+
 	public String getDescription()
 	{
 		// TODO Auto-generated method stub
@@ -22,53 +24,14 @@ public class WestfallYoungStepDownCachedOld extends AbstractTestCorrection
 		return "Westfall-Young-Step-Down-Cached-Old";
 	}
 
-	/**
-	 *
-	 * @author Sebastian Bauer
-	 *
-	 * Class models a double value entry and its index of
-	 * a source array.
-	 *
-	 */
-	private class Entry implements Comparable<Entry>
-	{
-		public double value;
-		public int index;
-
-		public int compareTo(Entry o)
-		{
-			if (value < o.value) return -1;
-			if (value == o.value) return 0;
-			return 1;
-		}
-	};
-
 	public PValue[] adjustPValues(IPValueCalculation pvalueCalc, ITestCorrectionProgress progress)
 	{
-		int i;
-
 		/* Calculate raw P-values */
 		PValue [] rawP = pvalueCalc.calculateRawPValues(null);
 
-		double [] q = new double[rawP.length];
-		int [] count = new int[rawP.length];
-
-		/* Sort the raw P-values and remember their original index */
+		/* Sorts the raw P-values and counts the successive minima of the resamples */
 		int m = rawP.length;
-		int r[] = new int[m];
-		Entry [] sortedRawPValues = new Entry[m];
-
-		for (i=0;i<m;i++)
-		{
-			sortedRawPValues[i] = new Entry();
-			sortedRawPValues[i].value = rawP[i].p;
-			sortedRawPValues[i].index = i;
-		}
-		Arrays.sort(sortedRawPValues);
-
-		/* build up r, this info is redundant but using r is more convenient */
-		for (i=0;i<m;i++)
-			r[i] = sortedRawPValues[i].index;
+		WestfallYoungStepDownKernel kernel = new WestfallYoungStepDownKernel(rawP);
 
 		int studySetSize = pvalueCalc.currentStudySetSize();
 
@@ -76,9 +39,11 @@ public class WestfallYoungStepDownCachedOld extends AbstractTestCorrection
 		PValue[][] randomSampledPValues = new PValue[numberOfResamplingSteps][m];
 
 		if (sampledPValuesPerSize.containsKey(studySetSize)) {
+			cacheHits++;
 			System.out.println("Using available samples for study set size " + studySetSize);
 			randomSampledPValues = sampledPValuesPerSize.get(studySetSize);
 		} else {
+			cacheMisses++;
 			System.out.println("Sampling for study set size " + studySetSize + "\nThis may take a while...");
 			for (int b=0; b < numberOfResamplingSteps; b++) {
 				/* Compute raw p values of "permuted" data */
@@ -95,29 +60,11 @@ public class WestfallYoungStepDownCachedOld extends AbstractTestCorrection
 			/* Compute raw p values of "permuted" data */
 			PValue [] randomRawP = randomSampledPValues[b];
 
-			/* Compute the successive minima of raw p values */
-			q[m-1] = randomRawP[r[m-1]].p;
-			for (i=m-2;i>=0;i--)
-				q[i] = Math.min(q[i+1],randomRawP[r[i]].p);
-
-			/* Count up */
-			for (i=0;i<m;i++)
-			{
-				if (q[i] <= rawP[r[i]].p) // = sortedRawPValues[i].value
-					count[i]++;
-			}
+			kernel.add(randomRawP);
 		}
 
-		/* Enforce monotony contraints */
-		int c = count[0];
-		for (i=1;i<m;i++)
-			c = count[i] = Math.max(1,Math.max(c,count[i]));
-
-		/* Calculate the adjusted p values */
-		for (i=0;i<m;i++)
-		{
-			rawP[r[i]].p_adjusted = ((double)count[i])/numberOfResamplingSteps;
-		}
+		/* Enforce monotony contraints and calculate the adjusted p values */
+		kernel.adjust(rawP);
 		return rawP;
 	}
 
@@ -151,4 +98,19 @@ public class WestfallYoungStepDownCachedOld extends AbstractTestCorrection
 	{
 
 	}
+
+	public int getCacheHits()
+	{
+		return cacheHits;
+	}
+
+	public int getCacheApproximateHits()
+	{
+		return 0;
+	}
+
+	public int getCacheMisses()
+	{
+		return cacheMisses;
+	}
 }
@@ -1,7 +1,6 @@
 package ontologizer.statistics;
 
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Map;
 
 public class WestfallYoungStepDownCachedSecondVersion extends AbstractTestCorrection
 						   implements IResampling
@@ -9,7 +8,7 @@ public class WestfallYoungStepDownCachedSecondVersion extends AbstractTestCorrec
 	/** Specifies the number of resampling steps */
 	private int numberOfResamplingSteps = 1000;
 
-	private HashMap<Integer,PvalueSetStoreSecondVersion> sampledPValuesPerSize = new HashMap<Integer,PvalueSetStoreSecondVersion>();
+	private SizeIndexedCache<PvalueSetStoreSecondVersion> sampledPValuesPerSize = new SizeIndexedCache<PvalueSetStoreSecondVersion>(0);
 
 	public String getDescription()
 	{
@@ -22,62 +21,24 @@ public class WestfallYoungStepDownCachedSecondVersion extends AbstractTestCorrec
 		return "Westfall-Young-Step-Down-Cached-Second-Version";
 	}
 
-	/**
-	 *
-	 * @author Sebastian Bauer
-	 *
-	 * Class models a double value entry and its index of
-	 * a source array.
-	 *
-	 */
-	private class Entry implements Comparable<Entry>
-	{
-		public double value;
-		public int index;
-
-		public int compareTo(Entry o)
-		{
-			if (value < o.value) return -1;
-			if (value == o.value) return 0;
-			return 1;
-		}
-	};
-
 	public PValue[] adjustPValues(IPValueCalculation pvalueCalc, ITestCorrectionProgress progress)
 	{
-		int i;
-
 		/* Calculate raw P-values */
 		PValue [] rawP = pvalueCalc.calculateRawPValues(null);
 
-		double [] q = new double[rawP.length];
-		int [] count = new int[rawP.length];
-
-		/* Sort the raw P-values and remember their original index */
+		/* Sorts the raw P-values and counts the successive minima of the resamples */
 		int m = rawP.length;
-		int r[] = new int[m];
-		Entry [] sortedRawPValues = new Entry[m];
-
-		for (i=0;i<m;i++)
-		{
-			sortedRawPValues[i] = new Entry();
-			sortedRawPValues[i].value = rawP[i].p;
-			sortedRawPValues[i].index = i;
-		}
-		Arrays.sort(sortedRawPValues);
-
-		/* build up r, this info is redundant but using r is more convenient */
-		for (i=0;i<m;i++)
-			r[i] = sortedRawPValues[i].index;
+		WestfallYoungStepDownKernel kernel = new WestfallYoungStepDownKernel(rawP);
 
 		int studySetSize = pvalueCalc.currentStudySetSize();
 
 		/* holds the sampled random p values for the current study set size */
 		PvalueSetStoreSecondVersion randomSampledPValues;
 
-		if (sampledPValuesPerSize.containsKey(studySetSize)) {
-			System.out.println("Using available samples for study set size " + studySetSize);
-			randomSampledPValues = sampledPValuesPerSize.get(studySetSize);
+		Map.Entry<Integer,PvalueSetStoreSecondVersion> cached = sampledPValuesPerSize.lookup(studySetSize);
+		if (cached != null) {
+			System.out.println("Using available samples made for study set size " + cached.getKey() + " for study set size " + studySetSize);
+			randomSampledPValues = cached.getValue();
 		} else {
 			System.out.println("Sampling for study set size " + studySetSize + "\nThis may take a while...");
 			randomSampledPValues = new PvalueSetStoreSecondVersion(numberOfResamplingSteps,m);
@@ -96,29 +57,11 @@ public class WestfallYoungStepDownCachedSecondVersion extends AbstractTestCorrec
 			/* Compute raw p values of "permuted" data */
 //			PValue [] randomRawP = randomSampledPValues[b];
 
-			/* Compute the successive minima of raw p values */
-			q[m-1] = randomRawP[r[m-1]].p;
-			for (i=m-2;i>=0;i--)
-				q[i] = Math.min(q[i+1],randomRawP[r[i]].p);
-
-			/* Count up */
-			for (i=0;i<m;i++)
-			{
-				if (q[i] <= rawP[r[i]].p) // = sortedRawPValues[i].value
-					count[i]++;
-			}
+			kernel.add(randomRawP);
 		}
 
-		/* Enforce monotony contraints */
-		int c = count[0];
-		for (i=1;i<m;i++)
-			c = count[i] = Math.max(1,Math.max(c,count[i]));
-
-		/* Calculate the adjusted p values */
-		for (i=0;i<m;i++)
-		{
-			rawP[r[i]].p_adjusted = ((double)count[i])/numberOfResamplingSteps;
-		}
+		/* Enforce monotony contraints and calculate the adjusted p values */
+		kernel.adjust(rawP);
 		return rawP;
 	}
 
@@ -129,7 +72,7 @@ public class WestfallYoungStepDownCachedSecondVersion extends AbstractTestCorrec
 			numberOfResamplingSteps = n;
 
 			/* Clear the cache */
-			sampledPValuesPerSize = new HashMap<Integer,PvalueSetStoreSecondVersion>();
+			sampledPValuesPerSize.clear();
 		}
 	}
 
@@ -140,16 +83,31 @@ public class WestfallYoungStepDownCachedSecondVersion extends AbstractTestCorrec
 
 	public void resetCache()
 	{
-		sampledPValuesPerSize = new HashMap<Integer,PvalueSetStoreSecondVersion>();
+		sampledPValuesPerSize.clear();
 	}
 
 	public int getSizeTolerance()
 	{
-		return 0;
+		return sampledPValuesPerSize.getSizeTolerance();
 	}
 
 	public void setSizeTolerance(int t)
 	{
+		sampledPValuesPerSize.setSizeTolerance(t);
+	}
+
+	public int getCacheHits()
+	{
+		return sampledPValuesPerSize.getHits();
+	}
+
+	public int getCacheApproximateHits()
+	{
+		return sampledPValuesPerSize.getApproximateHits();
+	}
 
+	public int getCacheMisses()
+	{
+		return sampledPValuesPerSize.getMisses();
 	}
 }
@@ -0,0 +1,216 @@
+package ontologizer.statistics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The counting kernel of the Westfall-Young step-down procedure.
+ *
+ * The raw p values are sorted once. The p values of each resample are
+ * then stored in sorted order within a block of BLOCK_SIZE resamples, in
+ * which the values of the same term of all resamples are adjacent. The
+ * successive minima and the counts are determined for all resamples of a
+ * block in a single sequential pass, whose inner loop runs over the
+ * independent resamples and hence can be vectorized.
+ */
+public final class WestfallYoungStepDownKernel
+{
+	/** Number of resamples that are processed together */
+	static final int BLOCK_SIZE = 16;
+
+	/** Number of p values */
+	private final int m;
+
+	/** Maps positions of the sorted order to original indices */
+	private final int [] order;
+
+	/** The raw p values in sorted order */
+	private final double [] sortedRawP;
+
+	/** For each sorted position, the number of resamples whose successive minimum is not larger */
+	private final int [] count;
+
+	/** The pending resamples, value of position i of resample b is at i * BLOCK_SIZE + b */
+	private final double [] block;
+
+	/** The successive minima of the resamples of the block */
+	private final double [] minima = new double[BLOCK_SIZE];
+
+	/** Number of resamples in the block */
+	private int blockResamples;
+
+	private int numberOfResamples;
+
+	/**
+	 * Constructs the kernel for the given raw p values.
+	 *
+	 * @param rawP
+	 */
+	public WestfallYoungStepDownKernel(final double [] rawP)
+	{
+		m = rawP.length;
+
+		/* Sort stable, like Arrays.sort() on objects */
+		Integer [] sorted = new Integer[m];
+		for (int i = 0; i < m; i++)
+			sorted[i] = i;
+		Arrays.sort(sorted, new Comparator<Integer>()
+		{
+			public int compare(Integer o1, Integer o2)
+			{
+				double v1 = rawP[o1];
+				double v2 = rawP[o2];
+				if (v1 < v2) return -1;
+				if (v1 == v2) return 0;
+				return 1;
+			}
+		});
+
+		order = new int[m];
+		sortedRawP = new double[m];
+		for (int i = 0; i < m; i++)
+		{
+			order[i] = sorted[i];
+			sortedRawP[i] = rawP[order[i]];
+		}
+
+		count = new int[m];
+		block = new double[m * BLOCK_SIZE];
+	}
+
+	/**
+	 * Constructs the kernel for the given raw p values.
+	 *
+	 * @param rawP
+	 */
+	public WestfallYoungStepDownKernel(PValue [] rawP)
+	{
+		this(getP(rawP));
+	}
+
+	private static double [] getP(PValue [] pvals)
+	{
+		double [] p = new double[pvals.length];
+		for (int i = 0; i < pvals.length; i++)
+			p[i] = pvals[i].p;
+		return p;
+	}
+
+	/**
+	 * Adds the p values of a resample.
+	 *
+	 * @param randomRawP the p values in the order of the raw p values.
+	 */
+	public void add(double [] randomRawP)
+	{
+		for (int i = 0, j = blockResamples; i < m; i++, j += BLOCK_SIZE)
+			block[j] = randomRawP[order[i]];
+		added();
+	}
+
+	/**
+	 * Adds the p values of a resample.
+	 *
+	 * @param randomRawP the p values in the order of the raw p values.
+	 */
+	public void add(PValue [] randomRawP)
+	{
+		for (int i = 0, j = blockResamples; i < m; i++, j += BLOCK_SIZE)
+			block[j] = randomRawP[order[i]].p;
+		added();
+	}
+
+	private void added()
+	{
+		numberOfResamples++;
+		if (++blockResamples == BLOCK_SIZE)
+			processBlock();
+	}
+
+	/**
+	 * Computes the successive minima of the resamples of the block and
+	 * counts for each position how many are not larger than the raw p
+	 * value.
+	 */
+	private void processBlock()
+	{
+		int n = blockResamples;
+
+		Arrays.fill(minima, Double.POSITIVE_INFINITY);
+		for (int i = m - 1, base = (m - 1) * BLOCK_SIZE; i >= 0; i--, base -= BLOCK_SIZE)
+		{
+			double p = sortedRawP[i];
+			int c = 0;
+			for (int b = 0; b < n; b++)
+			{
+				double q = Math.min(minima[b], block[base + b]);
+				minima[b] = q;
+				c += q <= p ? 1 : 0;
+			}
+			count[i] += c;
+		}
+		blockResamples = 0;
+	}
+
+	/**
+	 * @return the number of resamples that have been added.
+	 */
+	public int getNumberOfResamples()
+	{
+		return numberOfResamples;
+	}
+
+	/**
+	 * Returns the counts of the adjusted p values, i.e., the counts after
+	 * monotony constraints have been enforced. Resamples can still be
+	 * added afterwards.
+	 *
+	 * @return the counts in the order of the raw p values.
+	 */
+	public int [] getAdjustedCounts()
+	{
+		if (blockResamples > 0)
+			processBlock();
+
+		int [] adjusted = new int[m];
+		if (m == 0)
+			return adjusted;
+
+		/* Enforce monotony contraints */
+		int c = count[0];
+		adjusted[order[0]] = c;
+		for (int i = 1; i < m; i++)
+		{
+			c = Math.max(1, Math.max(c, count[i]));
+			adjusted[order[i]] = c;
+		}
+		return adjusted;
+	}
+
+	/**
+	 * Returns the adjusted p values, i.e., the relative counts after
+	 * monotony constraints have been enforced.
+	 *
+	 * @return the adjusted p values in the order of the raw p values.
+	 */
+	public double [] getAdjustedPValues()
+	{
+		int [] counts = getAdjustedCounts();
+		double [] adjusted = new double[m];
+		for (int i = 0; i < m; i++)
+			adjusted[i] = (double)counts[i] / numberOfResamples;
+		return adjusted;
+	}
+
+	/**
+	 * Sets the adjusted p values of the given raw p values.
+	 *
+	 * @param rawP the raw p values for which the kernel has been constructed.
+	 */
+	public void adjust(PValue [] rawP)
+	{
+		double [] adjusted = getAdjustedPValues();
+		for (int i = 0; i < m; i++)
+			rawP[i].p_adjusted = adjusted[i];
+	}
+}
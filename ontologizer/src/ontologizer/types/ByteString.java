@@ -66,6 +66,17 @@ public final class ByteString
 		return bytes.length;
 	}
 
+	/**
+	 * Returns the byte at the given index.
+	 *
+	 * @param index
+	 * @return the byte
+	 */
+	public byte byteAt(int index)
+	{
+		return bytes[index];
+	}
+
 	@Override
 	public String toString()
 	{
@@ -259,11 +270,35 @@ public final class ByteString
 		if (hashVal != 0)
 			return hashVal;
 
-		for (int i = 0; i < bytes.length; i++)
-			hashVal = 31*hashVal + bytes[i];
+		hashVal = hashCode(bytes, 0, bytes.length);
 		return hashVal;
 	}
 
+	/**
+	 * Returns the hash code of the given slice, which is the same as the hash
+	 * code of a byte string consisting of the same bytes.
+	 *
+	 * @param buf
+	 * @param off
+	 * @param len
+	 * @return the hash code
+	 */
+	public static int hashCode(byte [] buf, int off, int len)
+	{
+		int h = 0;
+		for (int i = off; i < off + len; i++)
+			h = 31*h + buf[i];
+		return h;
+	}
+
+	/**
+	 * @return the internal bytes, which must not be altered.
+	 */
+	byte [] bytes()
+	{
+		return bytes;
+	}
+
 	public ByteString[] splitBySingleChar(char c)
 	{
 		int from = 0;
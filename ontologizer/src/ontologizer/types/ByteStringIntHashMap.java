@@ -0,0 +1,287 @@
+package ontologizer.types;
+
+import java.util.Arrays;
+
+import sonumina.collections.ObjectIntHashMap.ObjectIntProcedure;
+
+/**
+ * A hashmap mapping byte strings to ints.
+ *
+ * In contrast to ObjectIntHashMap, the bytes of all keys are stored
+ * contiguously in a single arena together with their hash values, so a probe
+ * doesn't need to dereference any key object. Keys can be also looked up
+ * directly from a slice of a byte array, e.g., a field of a line buffer,
+ * without creating a ByteString first.
+ *
+ * Hash values agree with {@link ByteString#hashCode()}, so the cached hash
+ * value of a ByteString key is used. Keys cannot be removed.
+ */
+public final class ByteStringIntHashMap
+{
+	public static final int EMPTY_VALUE = 0;
+
+	private static final int OCCUPIED_DATA_RATIO = 2;
+	private static final int DEFAULT_INITIAL_CAPACITY = 8;
+
+	/** The open addressing table, contains the entry index + 1 or 0 for free slots */
+	private int [] table;
+
+	/** The bytes of all keys */
+	private byte [] arena;
+	private int arenaSize;
+
+	/** Per entry data */
+	private int [] hashes;
+	private int [] offsets;
+	private int [] lengths;
+	private int [] values;
+	private int size;
+
+	public ByteStringIntHashMap()
+	{
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Constructs the map.
+	 *
+	 * @param initialCapacity the expected number of keys.
+	 */
+	public ByteStringIntHashMap(int initialCapacity)
+	{
+		if (initialCapacity < 0)
+			throw new IllegalArgumentException("initial capacity cannot be less than 0");
+
+		initialCapacity = Math.max(initialCapacity, DEFAULT_INITIAL_CAPACITY);
+		table = new int[smallestPowerOfTwoGreaterThan(initialCapacity * OCCUPIED_DATA_RATIO)];
+		arena = new byte[initialCapacity * 8];
+		hashes = new int[initialCapacity];
+		offsets = new int[initialCapacity];
+		lengths = new int[initialCapacity];
+		values = new int[initialCapacity];
+	}
+
+	private static int smallestPowerOfTwoGreaterThan(int n)
+	{
+		return n > 1 ? Integer.highestOneBit(n - 1) << 1 : 1;
+	}
+
+	/**
+	 * Spreads the bits of the hash value, as the low bits of the
+	 * polynomial string hash are not very well distributed.
+	 */
+	private static int spread(int hash)
+	{
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		return hash;
+	}
+
+	/**
+	 * @return the number of keys.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Removes all keys.
+	 */
+	public void clear()
+	{
+		Arrays.fill(table, 0);
+		size = 0;
+		arenaSize = 0;
+	}
+
+	/**
+	 * Returns the slot of the table at which the given key is stored or
+	 * the free slot at which it would be stored.
+	 */
+	private int probe(byte [] buf, int off, int len, int hash)
+	{
+		int mask = table.length - 1;
+		int slot = spread(hash) & mask;
+
+		while (true)
+		{
+			int entry = table[slot] - 1;
+			if (entry < 0)
+				return slot;
+
+			if (hashes[entry] == hash && lengths[entry] == len)
+			{
+				int o = offsets[entry];
+				int i = 0;
+				while (i < len && arena[o + i] == buf[off + i])
+					i++;
+				if (i == len)
+					return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Associates the given key with the given value.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void put(ByteString key, int value)
+	{
+		put(key.bytes(), 0, key.length(), key.hashCode(), value);
+	}
+
+	/**
+	 * Associates the key given as slice of a byte array with the given value.
+	 * The bytes are copied.
+	 *
+	 * @param buf the buffer containing the key
+	 * @param off the offset of the key within the buffer
+	 * @param len the length of the key
+	 * @param value
+	 */
+	public void put(byte [] buf, int off, int len, int value)
+	{
+		put(buf, off, len, ByteString.hashCode(buf, off, len), value);
+	}
+
+	private void put(byte [] buf, int off, int len, int hash, int value)
+	{
+		int slot = probe(buf, off, len, hash);
+		int entry = table[slot] - 1;
+		if (entry >= 0)
+		{
+			values[entry] = value;
+			return;
+		}
+		add(slot, buf, off, len, hash, value);
+	}
+
+	/**
+	 * Returns the value that is associated with the given key. If the key
+	 * is not contained, it is associated with the given value.
+	 *
+	 * @param key
+	 * @param value the value that is put and returned if the key is not
+	 *  contained.
+	 * @return the value associated with the key.
+	 */
+	public int getIfAbsentPut(ByteString key, int value)
+	{
+		byte [] buf = key.bytes();
+		int len = key.length();
+		int hash = key.hashCode();
+		int slot = probe(buf, 0, len, hash);
+		int entry = table[slot] - 1;
+		if (entry >= 0)
+			return values[entry];
+		add(slot, buf, 0, len, hash, value);
+		return value;
+	}
+
+	/**
+	 * Adds a new key at the given free slot.
+	 */
+	private void add(int slot, byte [] buf, int off, int len, int hash, int value)
+	{
+		if (size == hashes.length)
+		{
+			int newLength = size * 2;
+			hashes = Arrays.copyOf(hashes, newLength);
+			offsets = Arrays.copyOf(offsets, newLength);
+			lengths = Arrays.copyOf(lengths, newLength);
+			values = Arrays.copyOf(values, newLength);
+		}
+		if (arenaSize + len > arena.length)
+			arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + len));
+
+		System.arraycopy(buf, off, arena, arenaSize, len);
+		hashes[size] = hash;
+		offsets[size] = arenaSize;
+		lengths[size] = len;
+		values[size] = value;
+		arenaSize += len;
+		table[slot] = ++size;
+
+		if (size * OCCUPIED_DATA_RATIO > table.length)
+			rehash(table.length << 1);
+	}
+
+	private void rehash(int newCapacity)
+	{
+		table = new int[newCapacity];
+		int mask = newCapacity - 1;
+		for (int entry = 0; entry < size; entry++)
+		{
+			int slot = spread(hashes[entry]) & mask;
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+			table[slot] = entry + 1;
+		}
+	}
+
+	public int get(ByteString key)
+	{
+		return getIfAbsent(key, EMPTY_VALUE);
+	}
+
+	/**
+	 * Returns the value that is associated with the given key.
+	 *
+	 * @param key
+	 * @param ifAbsent the value that is returned if the key is not contained.
+	 * @return the value or ifAbsent.
+	 */
+	public int getIfAbsent(ByteString key, int ifAbsent)
+	{
+		int entry = table[probe(key.bytes(), 0, key.length(), key.hashCode())] - 1;
+		return entry >= 0 ? values[entry] : ifAbsent;
+	}
+
+	/**
+	 * Returns the value that is associated with the key given as slice of
+	 * a byte array. No objects are allocated.
+	 *
+	 * @param buf the buffer containing the key
+	 * @param off the offset of the key within the buffer
+	 * @param len the length of the key
+	 * @param ifAbsent the value that is returned if the key is not contained.
+	 * @return the value or ifAbsent.
+	 */
+	public int getIfAbsent(byte [] buf, int off, int len, int ifAbsent)
+	{
+		int entry = table[probe(buf, off, len, ByteString.hashCode(buf, off, len))] - 1;
+		return entry >= 0 ? values[entry] : ifAbsent;
+	}
+
+	public boolean containsKey(ByteString key)
+	{
+		return table[probe(key.bytes(), 0, key.length(), key.hashCode())] != 0;
+	}
+
+	public boolean containsKey(byte [] buf, int off, int len)
+	{
+		return table[probe(buf, off, len, ByteString.hashCode(buf, off, len))] != 0;
+	}
+
+	/**
+	 * Calls the procedure for each key value pair in the order in which
+	 * the keys have been added. Key objects are created on the fly.
+	 *
+	 * @param procedure
+	 */
+	public void forEachKeyValue(ObjectIntProcedure<? super ByteString> procedure)
+	{
+		for (int entry = 0; entry < size; entry++)
+			procedure.keyValue(new ByteString(arena, offsets[entry], offsets[entry] + lengths[entry]), values[entry]);
+	}
+}
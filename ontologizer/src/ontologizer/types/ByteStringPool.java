@@ -0,0 +1,104 @@
+package ontologizer.types;
+
+import java.util.ArrayList;
+
+/**
+ * A pool of unique byte strings. Strings that are interned via the pool are
+ * represented by a single instance, which reduces the memory footprint of data
+ * in which the same strings are repeated many times, e.g., the evidence codes,
+ * aspects and symbols of an association file.
+ *
+ * Lookups are answered from slices of byte arrays via a ByteStringIntHashMap,
+ * whose arena stores the bytes of all strings contiguously, so no object is
+ * allocated for a string that is already known.
+ */
+public final class ByteStringPool
+{
+	/** Approximate size of a ByteString and its byte array header in bytes */
+	private static final int BYTESTRING_OVERHEAD = 40;
+
+	/** Maps strings to the indices within strings */
+	private ByteStringIntHashMap string2Index = new ByteStringIntHashMap();
+
+	/** The unique instances */
+	private ArrayList<ByteString> strings = new ArrayList<ByteString>();
+
+	private long numberOfRequests;
+	private long savedBytes;
+
+	/**
+	 * Returns the unique instance of the string that is given as slice.
+	 *
+	 * @param buf the buffer containing the string
+	 * @param from the first position of the string (inclusive)
+	 * @param to the last position of the string (exclusive)
+	 * @return the unique instance
+	 */
+	public ByteString intern(byte [] buf, int from, int to)
+	{
+		numberOfRequests++;
+
+		int index = string2Index.getIfAbsent(buf, from, to - from, -1);
+		if (index == -1)
+		{
+			index = strings.size();
+			strings.add(new ByteString(buf, from, to));
+			string2Index.put(buf, from, to - from, index);
+		} else
+		{
+			savedBytes += BYTESTRING_OVERHEAD + ((to - from + 7) & ~7);
+		}
+		return strings.get(index);
+	}
+
+	/**
+	 * Returns the unique instance of the given string. If the string is
+	 * not yet known, the given instance becomes the unique instance.
+	 *
+	 * @param str the string to be interned.
+	 * @return the unique instance
+	 */
+	public ByteString intern(ByteString str)
+	{
+		numberOfRequests++;
+
+		int index = string2Index.getIfAbsent(str, -1);
+		if (index == -1)
+		{
+			index = strings.size();
+			strings.add(str);
+			string2Index.put(str, index);
+			return str;
+		}
+
+		ByteString unique = strings.get(index);
+		if (unique != str)
+			savedBytes += BYTESTRING_OVERHEAD + ((str.length() + 7) & ~7);
+		return unique;
+	}
+
+	/**
+	 * @return the number of unique strings.
+	 */
+	public int size()
+	{
+		return strings.size();
+	}
+
+	/**
+	 * @return the number of strings that have been interned.
+	 */
+	public long getNumberOfRequests()
+	{
+		return numberOfRequests;
+	}
+
+	/**
+	 * @return an estimate of the number of bytes that are saved by
+	 *  representing equal strings by a single instance.
+	 */
+	public long getSavedBytes()
+	{
+		return savedBytes;
+	}
+}
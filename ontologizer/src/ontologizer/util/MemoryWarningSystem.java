@@ -57,6 +57,19 @@ public class MemoryWarningSystem {
     tenuredGenPool.setUsageThreshold(warningThreshold);
   }
 
+  /**
+   * Returns the usage of the tenured space after the last garbage
+   * collection, i.e., an estimate of the memory that is actually
+   * required, as a fraction of the maximum.
+   */
+  public static double getCollectionUsage() {
+    MemoryUsage usage = tenuredGenPool.getCollectionUsage();
+    if (usage == null) usage = tenuredGenPool.getUsage();
+    long maxMemory = usage.getMax();
+    if (maxMemory <= 0) return 0.0;
+    return (double) usage.getUsed() / maxMemory;
+  }
+
   /**
    * Tenured Space Pool can be determined by it being of type
    * HEAP and by it being possible to set the usage threshold.
@@ -2,8 +2,10 @@ package ontologizer.worksets;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,15 @@ import ontologizer.util.MemoryWarningSystem;
 /**
  * Thread which is responsible for loading work set files.
  *
+ * Loaded files are cached. Work sets that are obtained via
+ * {@link #obtainDatafiles(WorkSet, Runnable)} are reference counted and
+ * are not evicted from the cache until they are released again. Of the
+ * unreferenced work sets, only the {@link #MAX_UNREFERENCED_WORKSETS} most
+ * recently used ones are kept, and all of them are evicted if the
+ * {@link MemoryWarningSystem} reports a low memory condition. Work sets
+ * can be preloaded speculatively, which is done only if the thread is
+ * otherwise idle and enough memory is available.
+ *
  * @author Sebastian Bauer
  *
  */
@@ -40,7 +51,9 @@ public class WorkSetLoadThread extends Thread
 	private static class WorkSetMessage extends Message { public WorkSet workset; }
 	private static class ObtainWorkSetMessage extends WorkSetMessage { Runnable callback; public IWorkSetProgress progress;}
 	private static class ReleaseWorkSetMessage extends WorkSetMessage { }
+	private static class PreloadWorkSetMessage extends WorkSetMessage { }
 	private static class CleanCacheMessage extends Message { }
+	private static class EvictMessage extends Message { }
 	private static class CallbackMessage extends Message { Runnable run;}
 
 	/**
@@ -103,6 +116,15 @@ public class WorkSetLoadThread extends Thread
 		}
 	}
 
+	/** The number of unreferenced work sets whose files are kept in the cache */
+	public static final int MAX_UNREFERENCED_WORKSETS = 3;
+
+	/** The memory usage (as a fraction of the maximum) at which the cache is cleared */
+	private static final double EVICT_THRESHOLD = 0.80;
+
+	/** The memory usage (as a fraction of the maximum) up to which work sets are preloaded */
+	private static final double PRELOAD_THRESHOLD = 0.50;
+
 	private static WorkSetLoadThread wslt;
 
 	static
@@ -160,6 +182,21 @@ public class WorkSetLoadThread extends Thread
 		wslt.messageQueue.add(rwsm);
 	}
 
+	/**
+	 * Speculatively load the data files for the given WorkSet in the
+	 * background. Files are loaded only if they don't need to be downloaded,
+	 * the thread has nothing else to do, and enough memory is available.
+	 * The work set is not referenced by this call.
+	 *
+	 * @param df
+	 */
+	public static void preloadDatafiles(WorkSet df)
+	{
+		PreloadWorkSetMessage pwsm = new PreloadWorkSetMessage();
+		pwsm.workset = df;
+		wslt.messageQueue.add(pwsm);
+	}
+
 	public static void cleanCache()
 	{
 		CleanCacheMessage cwsm = new CleanCacheMessage();
@@ -180,9 +217,15 @@ public class WorkSetLoadThread extends Thread
 		return wslt.graphMap.get(localPath);
 	}
 
-	/* Private attributes */
-	private Map<String,Ontology> graphMap = Collections.synchronizedMap(new HashMap<String,Ontology>());
-	private Map<String,AssociationContainer> assocMap = Collections.synchronizedMap(new HashMap<String,AssociationContainer>());
+	/* Private attributes. The maps are keyed by local file names and are in access order */
+	private Map<String,Ontology> graphMap = Collections.synchronizedMap(new LinkedHashMap<String,Ontology>(16, 0.75f, true));
+	private Map<String,AssociationContainer> assocMap = Collections.synchronizedMap(new LinkedHashMap<String,AssociationContainer>(16, 0.75f, true));
+
+	/** Reference counts of the paths of obtained but not yet released work sets */
+	private Map<String,Integer> refCounts = new HashMap<String,Integer>();
+
+	/** Work sets that are about to be preloaded */
+	private LinkedList<WorkSet> preloadList = new LinkedList<WorkSet>();
 
 	private BlockingQueue<Message> messageQueue = new LinkedBlockingQueue<Message>();
 
@@ -201,12 +244,12 @@ public class WorkSetLoadThread extends Thread
 		setPriority(Thread.MIN_PRIORITY);
 
 		/* Low memory handler */
-		MemoryWarningSystem.setPercentageUsageThreshold(0.80);
+		MemoryWarningSystem.setPercentageUsageThreshold(EVICT_THRESHOLD);
 	    MemoryWarningSystem mws = new MemoryWarningSystem();
 	    mws.addListener(new MemoryWarningSystem.Listener() {
 	      public void memoryUsageLow(long usedMemory, long maxMemory) {
 	    	  logger.warning("Low memory condition! Trying to clean some caches");
-	    	  cleanCache();
+	    	  wslt.messageQueue.add(new EvictMessage());
 	      }
 	    });
 
@@ -264,6 +307,7 @@ public class WorkSetLoadThread extends Thread
 								if (FileCache.isNonBlocking(t.obo) && FileCache.isNonBlocking(t.assoc))
 								{
 									loadFiles(FileCache.getLocalFileName(t.obo), FileCache.getLocalFileName(t.assoc), dummyWorkSetProgress);
+									evict(MAX_UNREFERENCED_WORKSETS);
 								}
 
 								t.issueCallbacks();
@@ -301,7 +345,14 @@ public class WorkSetLoadThread extends Thread
 			again:
 			while (true)
 			{
-				Message msg =  messageQueue.take();
+				Message msg = messageQueue.poll();
+				if (msg == null)
+				{
+					/* Preload only if there is nothing else to do */
+					if (preload())
+						continue again;
+					msg = messageQueue.take();
+				}
 
 				if (msg instanceof CallbackMessage)
 				{
@@ -312,6 +363,11 @@ public class WorkSetLoadThread extends Thread
 					graphMap.clear();
 					assocMap.clear();
 				} else
+				if (msg instanceof EvictMessage)
+				{
+					preloadList.clear();
+					evict(0);
+				} else
 				if (msg instanceof WorkSetMessage)
 				{
 					WorkSetMessage wsm = (WorkSetMessage) msg;
@@ -319,9 +375,12 @@ public class WorkSetLoadThread extends Thread
 
 					if (wsm instanceof ObtainWorkSetMessage)
 					{
+						reference(ws.getOboPath(), 1);
+						reference(ws.getAssociationPath(), 1);
+
 						/* Check whether stuff has already been loaded. Fire if positive */
 						ObtainWorkSetMessage owsm = (ObtainWorkSetMessage) msg;
-						if (graphMap.containsKey(ws.getOboPath()) && assocMap.containsKey(ws.getAssociationPath()))
+						if (isLoaded(ws))
 						{
 							owsm.callback.run();
 							continue again;
@@ -349,6 +408,7 @@ public class WorkSetLoadThread extends Thread
 						if (oboName != null && assocName != null)
 						{
 							loadFiles(oboName,assocName,owsm.progress);
+							evict(MAX_UNREFERENCED_WORKSETS);
 							owsm.callback.run();
 							continue again;
 						}
@@ -365,6 +425,13 @@ public class WorkSetLoadThread extends Thread
 					{
 						if (wsm instanceof ReleaseWorkSetMessage)
 						{
+							reference(ws.getOboPath(), -1);
+							reference(ws.getAssociationPath(), -1);
+							evict(MAX_UNREFERENCED_WORKSETS);
+						} else if (wsm instanceof PreloadWorkSetMessage)
+						{
+							if (!isLoaded(ws) && !preloadList.contains(ws))
+								preloadList.add(ws);
 						}
 					}
 				}
@@ -380,6 +447,119 @@ public class WorkSetLoadThread extends Thread
 		}
 	}
 
+	/**
+	 * Change the reference count of the given path.
+	 *
+	 * @param path
+	 * @param delta
+	 */
+	private void reference(String path, int delta)
+	{
+		Integer count = refCounts.get(path);
+		int newCount = (count != null ? count : 0) + delta;
+		if (newCount > 0) refCounts.put(path, newCount);
+		else refCounts.remove(path);
+	}
+
+	/**
+	 * Checks whether the given local file is used by any work set that
+	 * has been obtained but not released yet.
+	 *
+	 * @param localName
+	 * @return whether the file is referenced.
+	 */
+	private boolean isReferenced(String localName)
+	{
+		for (String path : refCounts.keySet())
+		{
+			if (localName.equals(FileCache.getLocalFileName(path)))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the files of the given work set have been loaded.
+	 *
+	 * @param ws
+	 * @return whether the files are loaded.
+	 */
+	private boolean isLoaded(WorkSet ws)
+	{
+		String oboName = FileCache.getLocalFileName(ws.getOboPath());
+		String assocName = FileCache.getLocalFileName(ws.getAssociationPath());
+		if (oboName == null || assocName == null)
+			return false;
+		return graphMap.containsKey(oboName) && assocMap.containsKey(assocName);
+	}
+
+	/**
+	 * Evict the least recently used unreferenced entries from the caches
+	 * such that at most the given number of unreferenced entries remain
+	 * in each of them.
+	 *
+	 * @param maxUnreferenced
+	 */
+	private void evict(int maxUnreferenced)
+	{
+		evict(graphMap, maxUnreferenced);
+		evict(assocMap, maxUnreferenced);
+	}
+
+	private void evict(Map<String,?> map, int maxUnreferenced)
+	{
+		synchronized (map)
+		{
+			List<String> unreferenced = new ArrayList<String>();
+			for (String localName : map.keySet())
+			{
+				if (!isReferenced(localName))
+					unreferenced.add(localName);
+			}
+
+			/* The list is in access order, least recently used first */
+			for (int i = 0; i < unreferenced.size() - maxUnreferenced; i++)
+			{
+				logger.info("Evicting \"" + unreferenced.get(i) + "\" from the cache");
+				map.remove(unreferenced.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Preload the next work set of the preload list, if any.
+	 *
+	 * @return whether any work has been done.
+	 */
+	private boolean preload()
+	{
+		if (preloadList.isEmpty())
+			return false;
+
+		WorkSet ws = preloadList.removeFirst();
+
+		/* Don't download anything, this is on user's request only */
+		if (!FileCache.isNonBlocking(ws.getOboPath()) || !FileCache.isNonBlocking(ws.getAssociationPath()))
+			return true;
+
+		if (MemoryWarningSystem.getCollectionUsage() > PRELOAD_THRESHOLD)
+		{
+			logger.info("Not enough memory to preload work set \"" + ws.getName() + "\"");
+			preloadList.clear();
+			return true;
+		}
+
+		String oboName = FileCache.getLocalFileName(ws.getOboPath());
+		String assocName = FileCache.getLocalFileName(ws.getAssociationPath());
+		if (oboName == null || assocName == null || isLoaded(ws))
+			return true;
+
+		logger.info("Preloading work set \"" + ws.getName() + "\"");
+		loadFiles(oboName, assocName, dummyWorkSetProgress);
+		evict(MAX_UNREFERENCED_WORKSETS);
+		return true;
+	}
+
 	/**
 	 * Add a new task to the task list.
 	 *
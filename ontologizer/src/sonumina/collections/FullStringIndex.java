@@ -1,19 +1,59 @@
 package sonumina.collections;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 
 /**
  * A class mapping strings to other objects. The data structure compares
  * the strings in a case-insensitive manner.
  *
+ * Substring queries are answered with the help of an inverted index of
+ * the trigrams of all strings. Only strings that contain the least frequent
+ * trigram of the query are candidates that need to be checked. In addition,
+ * the result of the previous query is remembered, so if the query is refined
+ * by the user, e.g., by typing another character, only the previous matches
+ * need to be checked.
+ *
  * @author Sebastian Bauer
  */
 public class FullStringIndex<T>
 {
+	/** Length of the grams that are indexed */
+	private static final int GRAM_LENGTH = 3;
+
 	private ArrayList<String> stringList = new ArrayList<String>();
 	private ArrayList<T> objectList = new ArrayList<T>();
 
+	/** Maps trigrams to the ascending positions of all strings that contain the trigram */
+	private HashMap<Long,IntList> gram2Positions = new HashMap<Long,IntList>();
+
+	/** The last query, or null */
+	private String lastQuery;
+
+	/** The positions of the strings that matched the last query */
+	private int [] lastPositions;
+
+	/**
+	 * A simple growable list of ints.
+	 */
+	private static class IntList
+	{
+		private int [] data = new int[4];
+		private int size;
+
+		public void add(int v)
+		{
+			if (size == data.length)
+			{
+				int [] newData = new int[size * 2];
+				System.arraycopy(data, 0, newData, 0, size);
+				data = newData;
+			}
+			data[size++] = v;
+		}
+	}
+
 	/**
 	 * Private class to iterate over strings containing
 	 * a given string.
@@ -22,30 +62,23 @@ public class FullStringIndex<T>
 	 */
 	private class StringIterator implements Iterator<T>
 	{
-		private String str;
+		private int [] positions;
 		private int pos = -1;
 
 		public StringIterator(String str)
 		{
-			this.str = str;
+			this.positions = find(str);
 		}
 
 		@Override
 		public boolean hasNext() {
-			while (true)
-			{
-				pos++;
-				if (pos >= stringList.size())
-					return false;
-				if (stringList.get(pos).contains(str))
-					return true;
-			}
+			return pos + 1 < positions.length;
 		}
 
 		@Override
 		public T next()
 		{
-			return objectList.get(pos);
+			return objectList.get(positions[++pos]);
 		}
 
 		@Override
@@ -60,8 +93,29 @@ public class FullStringIndex<T>
 	 */
 	public void add(String string, T o)
 	{
-		stringList.add(string.toLowerCase());
+		String lowerString = string.toLowerCase();
+		int position = stringList.size();
+
+		stringList.add(lowerString);
 		objectList.add(o);
+
+		for (int i = 0; i + GRAM_LENGTH <= lowerString.length(); i++)
+		{
+			Long gram = gram(lowerString, i);
+			IntList positions = gram2Positions.get(gram);
+			if (positions == null)
+			{
+				positions = new IntList();
+				gram2Positions.put(gram, positions);
+			}
+
+			/* A trigram may occur more than once in a string */
+			if (positions.size == 0 || positions.data[positions.size - 1] != position)
+				positions.add(position);
+		}
+
+		lastQuery = null;
+		lastPositions = null;
 	}
 
 	/**
@@ -71,6 +125,9 @@ public class FullStringIndex<T>
 	{
 		stringList.clear();
 		objectList.clear();
+		gram2Positions.clear();
+		lastQuery = null;
+		lastPositions = null;
 	}
 
 	/**
@@ -102,4 +159,77 @@ public class FullStringIndex<T>
 					}
 				};
 	}
+
+	/**
+	 * Determines the positions of all strings that contain the given
+	 * (lower case) string.
+	 *
+	 * @param str
+	 * @return the positions in ascending order.
+	 */
+	private int [] find(String str)
+	{
+		/* Determine the candidates, i.e., a superset of the result, which is as
+		 * small as possible. If the query is a refinement of the last query, the
+		 * last result is such a superset. */
+		int [] candidates = null;
+		int numCandidates = stringList.size();
+
+		if (lastQuery != null && str.contains(lastQuery))
+		{
+			candidates = lastPositions;
+			numCandidates = candidates.length;
+		}
+
+		for (int i = 0; i + GRAM_LENGTH <= str.length(); i++)
+		{
+			IntList positions = gram2Positions.get(gram(str, i));
+			if (positions == null)
+			{
+				candidates = new int[0];
+				numCandidates = 0;
+				break;
+			}
+			if (positions.size < numCandidates)
+			{
+				candidates = positions.data;
+				numCandidates = positions.size;
+			}
+		}
+
+		int [] result = new int[numCandidates];
+		int n = 0;
+		for (int i = 0; i < numCandidates; i++)
+		{
+			int position = candidates != null ? candidates[i] : i;
+			if (stringList.get(position).contains(str))
+				result[n++] = position;
+		}
+		if (n != result.length)
+		{
+			int [] newResult = new int[n];
+			System.arraycopy(result, 0, newResult, 0, n);
+			result = newResult;
+		}
+
+		lastQuery = str;
+		lastPositions = result;
+		return result;
+	}
+
+	/**
+	 * Returns the key of the gram of the given string that starts at the
+	 * given position.
+	 *
+	 * @param str
+	 * @param start
+	 * @return the key of the gram.
+	 */
+	private static Long gram(String str, int start)
+	{
+		long key = 0;
+		for (int i = start; i < start + GRAM_LENGTH; i++)
+			key = (key << 16) | str.charAt(i);
+		return key;
+	}
 }